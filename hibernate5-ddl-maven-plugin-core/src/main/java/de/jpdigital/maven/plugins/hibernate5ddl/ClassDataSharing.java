@@ -0,0 +1,382 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Manages the application class data sharing (AppCDS) archive for the JVMs
+ * started by the plugin (the {@link ForkedWorker}s and the
+ * {@link GeneratorDaemon}). Most of the startup time of these JVMs is spent
+ * loading the classes of Hibernate and its dependencies. The first JVM
+ * started for a classpath dumps the loaded classes into an archive
+ * ({@code -XX:ArchiveClassesAtExit}), later JVMs map the archive
+ * ({@code -XX:SharedArchiveFile}) instead of loading and verifying the classes
+ * again. Dynamic archives require Java 13 or newer, with older versions the
+ * JVMs are started without an archive.
+ *
+ * The name of the archive contains the versions of the plugin, of Hibernate
+ * and of Java, and the fingerprint of the classpath, because the JVM only
+ * accepts an archive created for the same classpath. The archive is written
+ * to a temporary file and moved to its final name after the JVM has exited,
+ * therefore concurrent builds never see an incomplete archive.
+ *
+ * To report the time saved, the run time of a JVM started without the
+ * archive is stored for the model (entities and dialects) it generated the
+ * DDL for. If a JVM using the archive generates the DDL for the same model
+ * both run times are logged.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ClassDataSharing {
+
+    private static final int MIN_JAVA_VERSION = 13;
+
+    private final Path archive;
+
+    private final Log log;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directory        The directory containing the archives.
+     * @param pluginName       The artifact ID and version of the plugin.
+     * @param hibernateVersion The version of Hibernate used by the plugin.
+     * @param classPath        The classpath of the JVMs.
+     * @param log              The Maven log.
+     */
+    ClassDataSharing(
+        final File directory,
+        final String pluginName,
+        final String hibernateVersion,
+        final List<String> classPath,
+        final Log log
+    ) {
+        this.log = log;
+        final String fingerprint = ScanCache.fingerprint(log, classPath);
+        if (directory == null
+                || fingerprint == null
+                || Runtime.version().feature() < MIN_JAVA_VERSION) {
+            this.archive = null;
+        } else {
+            this.archive = directory.toPath().resolve(
+                String.format(
+                    "%s-hibernate-%s-java-%s-%s.jsa",
+                    pluginName,
+                    hibernateVersion,
+                    Runtime.version().feature(),
+                    fingerprint.substring(0, 16)
+                ).replaceAll("[^A-Za-z0-9._-]", "_")
+            );
+        }
+    }
+
+    /**
+     * @return {@code true} if an archive can be used or created for the
+     *         classpath.
+     */
+    public boolean isSupported() {
+        return archive != null;
+    }
+
+    /**
+     * @return {@code true} if the archive exists.
+     */
+    public boolean isArchiveAvailable() {
+        return archive != null && Files.isRegularFile(archive);
+    }
+
+    /**
+     * Prepares the start of a JVM.
+     *
+     * @param createArchive If {@code true} and the archive does not exist yet
+     *                      the JVM dumps its classes into the archive when it
+     *                      exits. Should only be set for one JVM of an
+     *                      execution.
+     *
+     * @return The usage of the archive by the JVM.
+     */
+    public Usage prepare(final boolean createArchive) {
+        if (archive == null) {
+            return new Usage(Collections.emptyList(), false, null);
+        }
+        if (isArchiveAvailable()) {
+            final List<String> jvmArgs = new ArrayList<>();
+            jvmArgs.add(String.format("-XX:SharedArchiveFile=%s", archive));
+            return new Usage(jvmArgs, true, null);
+        }
+        if (!createArchive) {
+            return new Usage(Collections.emptyList(), false, null);
+        }
+        try {
+            Files.createDirectories(archive.getParent());
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to create the directory for the class data "
+                        + "sharing archive: %s",
+                    ex.getMessage()
+                )
+            );
+            return new Usage(Collections.emptyList(), false, null);
+        }
+        final Path tmpArchive = archive.resolveSibling(
+            String.format(
+                "%s.%s.tmp", archive.getFileName(), UUID.randomUUID()
+            )
+        );
+        final List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add(String.format("-XX:ArchiveClassesAtExit=%s", tmpArchive));
+        return new Usage(jvmArgs, false, tmpArchive);
+    }
+
+    /**
+     * Called after the JVM has exited. Moves a newly created archive to its
+     * final name and logs the time saved by using the archive.
+     *
+     * @param usage          The usage returned by {@link #prepare(boolean)}.
+     * @param name           The name of the JVM for the log messages.
+     * @param model          Identifies the work done by the JVM, for example
+     *                       the names of the entities and dialects.
+     * @param runTimeMillis  The run time of the JVM.
+     */
+    public void finish(
+        final Usage usage,
+        final String name,
+        final List<String> model,
+        final long runTimeMillis
+    ) {
+        if (archive == null) {
+            return;
+        }
+        final Path baselineFile = archive.resolveSibling(
+            String.format(
+                "%s.%s.baseline", archive.getFileName(), hash(model)
+            )
+        );
+        if (usage.isArchiveUsed()) {
+            final Long baseline = readBaseline(baselineFile);
+            if (baseline == null) {
+                log.info(
+                    String.format(
+                        "%s used the class data sharing archive, run time "
+                            + "%d ms.",
+                        name,
+                        runTimeMillis
+                    )
+                );
+            } else {
+                log.info(
+                    String.format(
+                        "%s used the class data sharing archive, run time "
+                            + "%d ms (%d ms without the archive, %d ms "
+                            + "saved).",
+                        name,
+                        runTimeMillis,
+                        baseline,
+                        baseline - runTimeMillis
+                    )
+                );
+            }
+            return;
+        }
+
+        writeBaseline(baselineFile, runTimeMillis);
+        if (usage.getTmpArchive() != null) {
+            moveArchive(usage.getTmpArchive());
+        }
+    }
+
+    /**
+     * Called if the JVM failed. Deletes the archive created by the JVM, if
+     * any.
+     *
+     * @param usage The usage returned by {@link #prepare(boolean)}.
+     */
+    public void discard(final Usage usage) {
+        if (usage.getTmpArchive() != null) {
+            deleteQuietly(usage.getTmpArchive());
+        }
+    }
+
+    private void moveArchive(final Path tmpArchive) {
+        try {
+            if (!Files.isRegularFile(tmpArchive)
+                    || Files.size(tmpArchive) == 0) {
+                log.warn(
+                    "The forked JVM did not create a class data sharing "
+                        + "archive."
+                );
+                Files.deleteIfExists(tmpArchive);
+                return;
+            }
+            Files.move(tmpArchive, archive, StandardCopyOption.ATOMIC_MOVE);
+            log.info(
+                String.format(
+                    "Created class data sharing archive %s.", archive
+                )
+            );
+        } catch (FileAlreadyExistsException ex) {
+            // Created by another build in the meantime.
+            deleteQuietly(tmpArchive);
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to store the class data sharing archive: %s",
+                    ex.getMessage()
+                )
+            );
+            deleteQuietly(tmpArchive);
+        }
+    }
+
+    private Long readBaseline(final Path baselineFile) {
+        if (!Files.isRegularFile(baselineFile)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(
+                new String(
+                    Files.readAllBytes(baselineFile), StandardCharsets.UTF_8
+                ).trim()
+            );
+        } catch (IOException | NumberFormatException ex) {
+            log.debug(
+                String.format(
+                    "Failed to read %s: %s", baselineFile, ex.getMessage()
+                )
+            );
+            return null;
+        }
+    }
+
+    private void writeBaseline(
+        final Path baselineFile, final long runTimeMillis
+    ) {
+        try {
+            Files.createDirectories(baselineFile.getParent());
+            final Path tmpPath = Files.createTempFile(
+                baselineFile.getParent(),
+                baselineFile.getFileName().toString(),
+                ".tmp"
+            );
+            Files.write(
+                tmpPath,
+                Long.toString(runTimeMillis).getBytes(StandardCharsets.UTF_8)
+            );
+            Files.move(
+                tmpPath,
+                baselineFile,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (IOException ex) {
+            log.debug(
+                String.format(
+                    "Failed to write %s: %s", baselineFile, ex.getMessage()
+                )
+            );
+        }
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.debug(
+                String.format("Failed to delete %s: %s", path, ex.getMessage())
+            );
+        }
+    }
+
+    private static String hash(final List<String> values) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (final String value : values) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return ScanCache
+                .toHex(digest.digest())
+                .substring(0, 16)
+                .toLowerCase(Locale.ROOT);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The usage of the archive by a JVM.
+     */
+    static final class Usage {
+
+        private final List<String> jvmArgs;
+
+        private final boolean archiveUsed;
+
+        private final Path tmpArchive;
+
+        private Usage(
+            final List<String> jvmArgs,
+            final boolean archiveUsed,
+            final Path tmpArchive
+        ) {
+            this.jvmArgs = Collections.unmodifiableList(jvmArgs);
+            this.archiveUsed = archiveUsed;
+            this.tmpArchive = tmpArchive;
+        }
+
+        /**
+         * @return The arguments for the JVM.
+         */
+        public List<String> getJvmArgs() {
+            return jvmArgs;
+        }
+
+        /**
+         * @return {@code true} if the JVM maps the existing archive.
+         */
+        public boolean isArchiveUsed() {
+            return archiveUsed;
+        }
+
+        /**
+         * @return The temporary file into which the JVM dumps its classes,
+         *         {@code null} if the JVM does not create the archive.
+         */
+        public Path getTmpArchive() {
+            return tmpArchive;
+        }
+
+    }
+
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for the {@link GeneratorDaemon}. Connects to a running daemon or
+ * starts a new one if no daemon is running for the classpath of the plugin.
+ *
+ * Each combination of daemon classpath, Java installation and daemon settings
+ * gets its own daemon. The daemon writes its port and token into a state
+ * file in the daemon directory, named after the fingerprint of the
+ * combination. Starting a daemon is guarded by a file lock, therefore
+ * parallel executions don't start several daemons.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class DaemonClient {
+
+    private static final long START_TIMEOUT_SECONDS = 60;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final File daemonDirectory;
+
+    private final List<String> classPath;
+
+    private final Log log;
+
+    private int idleTimeout = 30;
+
+    private String maxHeap = "1g";
+
+    private String maxMetaspace = "512m";
+
+    private int cachedClassLoaders = 4;
+
+    private ClassDataSharing classDataSharing;
+
+    /**
+     * Creates a new client.
+     *
+     * @param daemonDirectory The directory containing the state and log files
+     *                        of the daemons.
+     * @param classPath       The classpath of the daemon.
+     * @param log             The Maven log.
+     */
+    DaemonClient(
+        final File daemonDirectory,
+        final List<String> classPath,
+        final Log log
+    ) {
+        this.daemonDirectory = daemonDirectory;
+        this.classPath = new ArrayList<>(classPath);
+        this.log = log;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(final int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public String getMaxHeap() {
+        return maxHeap;
+    }
+
+    public void setMaxHeap(final String maxHeap) {
+        this.maxHeap = maxHeap;
+    }
+
+    public String getMaxMetaspace() {
+        return maxMetaspace;
+    }
+
+    public void setMaxMetaspace(final String maxMetaspace) {
+        this.maxMetaspace = maxMetaspace;
+    }
+
+    public int getCachedClassLoaders() {
+        return cachedClassLoaders;
+    }
+
+    public void setCachedClassLoaders(final int cachedClassLoaders) {
+        this.cachedClassLoaders = cachedClassLoaders;
+    }
+
+    public ClassDataSharing getClassDataSharing() {
+        return classDataSharing;
+    }
+
+    /**
+     * Sets the {@link ClassDataSharing} used for starting the daemon. The
+     * daemon uses the archive if it exists, but does not create it. The
+     * archive is created by the {@link ForkedWorkers}.
+     *
+     * @param classDataSharing The class data sharing settings, {@code null}
+     *                         to start the daemon without an archive.
+     */
+    public void setClassDataSharing(
+        final ClassDataSharing classDataSharing
+    ) {
+        this.classDataSharing = classDataSharing;
+    }
+
+    /**
+     * Sends a request for generating DDL files to the daemon. The log entries
+     * of the daemon are written to the Maven log.
+     *
+     * @param request The request.
+     *
+     * @return {@code true} if the daemon has processed the request,
+     *         {@code false} if the daemon is not available.
+     *
+     * @throws MojoFailureException If the daemon failed to generate the DDL
+     *                              files.
+     */
+    public boolean generate(final Properties request)
+        throws MojoFailureException {
+        final Properties state = connectOrStart();
+        if (state == null) {
+            return false;
+        }
+
+        final Properties response;
+        try {
+            response = send(state, request, 0);
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to send request to the generator daemon: %s",
+                    ex.getMessage()
+                )
+            );
+            return false;
+        }
+
+        replayLog(response);
+        if (!DaemonProtocol.STATUS_OK.equals(
+            response.getProperty(DaemonProtocol.STATUS)
+        )) {
+            throw new MojoFailureException(
+                String.format(
+                    "The generator daemon failed to generate the DDL files: "
+                        + "%s",
+                    response.getProperty(DaemonProtocol.MESSAGE)
+                )
+            );
+        }
+        return true;
+    }
+
+    /**
+     * Collects the URLs of a class loader and its parents, up to (but not
+     * including) the provided class loader.
+     *
+     * @param classLoader The class loader.
+     * @param stop        The first class loader which is not included, for
+     *                    example the class loader of the plugin.
+     *
+     * @return The classpath elements, the elements of the parents first.
+     */
+    static List<String> getClassPath(
+        final ClassLoader classLoader, final ClassLoader stop
+    ) {
+        final Deque<String> elements = new ArrayDeque<>();
+        ClassLoader current = classLoader;
+        while (current instanceof URLClassLoader && current != stop) {
+            final URL[] urls = ((URLClassLoader) current).getURLs();
+            for (int i = urls.length - 1; i >= 0; i--) {
+                try {
+                    elements.addFirst(new File(urls[i].toURI()).getPath());
+                } catch (URISyntaxException | IllegalArgumentException ex) {
+                    elements.addFirst(urls[i].getPath());
+                }
+            }
+            current = current.getParent();
+        }
+        return new ArrayList<>(elements);
+    }
+
+    private Properties connectOrStart() {
+        final String key = ScanCache.fingerprint(
+            log,
+            classPath,
+            System.getProperty("java.home"),
+            maxHeap,
+            maxMetaspace,
+            Integer.toString(idleTimeout),
+            Integer.toString(cachedClassLoaders)
+        );
+        if (key == null) {
+            return null;
+        }
+        final String name = key.substring(0, 16);
+        final Path stateFile = daemonDirectory.toPath().resolve(
+            String.format("%s.properties", name)
+        );
+
+        final Properties state = readState(stateFile);
+        if (state != null && ping(state)) {
+            return state;
+        }
+
+        // The file lock only excludes other JVMs, parallel executions in this
+        // JVM are excluded by synchronizing on the class.
+        synchronized (DaemonClient.class) {
+            return startLocked(stateFile, name);
+        }
+    }
+
+    private Properties startLocked(final Path stateFile, final String name) {
+        try {
+            Files.createDirectories(daemonDirectory.toPath());
+            final Path lockFile = daemonDirectory.toPath().resolve(
+                String.format("%s.lock", name)
+            );
+            try (RandomAccessFile file = new RandomAccessFile(
+                lockFile.toFile(), "rw"
+            );
+                 FileChannel channel = file.getChannel();
+                 FileLock lock = channel.lock()) {
+                log.debug(
+                    String.format("Acquired daemon lock %s.", lock)
+                );
+                // Another execution may have started the daemon while we
+                // waited for the lock.
+                final Properties state = readState(stateFile);
+                if (state != null && ping(state)) {
+                    return state;
+                }
+                Files.deleteIfExists(stateFile);
+                startDaemon(stateFile, name);
+                return waitForDaemon(stateFile);
+            }
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to start the generator daemon: %s",
+                    ex.getMessage()
+                )
+            );
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void startDaemon(final Path stateFile, final String name)
+        throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(
+            Paths
+                .get(System.getProperty("java.home"), "bin", "java")
+                .toString()
+        );
+        command.add(String.format("-Xmx%s", maxHeap));
+        command.add(String.format("-XX:MaxMetaspaceSize=%s", maxMetaspace));
+        if (classDataSharing != null) {
+            command.addAll(classDataSharing.prepare(false).getJvmArgs());
+        }
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classPath));
+        command.add(GeneratorDaemon.class.getName());
+        command.add(stateFile.toAbsolutePath().toString());
+        command.add(Integer.toString(idleTimeout));
+        command.add(Integer.toString(cachedClassLoaders));
+
+        final File logFile = daemonDirectory
+            .toPath()
+            .resolve(String.format("%s.log", name))
+            .toFile();
+        log.info(
+            String.format(
+                "Starting generator daemon, log file: %s",
+                logFile.getAbsolutePath()
+            )
+        );
+        log.debug(String.format("Daemon command: %s", command));
+        new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+            .start();
+    }
+
+    private Properties waitForDaemon(final Path stateFile)
+        throws InterruptedException {
+        final long deadline = System.nanoTime()
+                                  + TimeUnit.SECONDS.toNanos(
+                START_TIMEOUT_SECONDS
+            );
+        while (System.nanoTime() < deadline) {
+            final Properties state = readState(stateFile);
+            if (state != null && ping(state)) {
+                return state;
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        log.warn(
+            String.format(
+                "The generator daemon did not start within %d seconds.",
+                START_TIMEOUT_SECONDS
+            )
+        );
+        return null;
+    }
+
+    private boolean ping(final Properties state) {
+        final Properties request = new Properties();
+        request.setProperty(DaemonProtocol.TYPE, DaemonProtocol.TYPE_PING);
+        try {
+            final Properties response = send(
+                state, request, CONNECT_TIMEOUT_MILLIS
+            );
+            return DaemonProtocol.STATUS_OK.equals(
+                response.getProperty(DaemonProtocol.STATUS)
+            );
+        } catch (IOException | RuntimeException ex) {
+            log.debug(
+                String.format(
+                    "Generator daemon not reachable: %s", ex.getMessage()
+                )
+            );
+            return false;
+        }
+    }
+
+    private static Properties send(
+        final Properties state,
+        final Properties request,
+        final int timeoutMillis
+    ) throws IOException {
+        final int port;
+        try {
+            port = Integer.parseInt(state.getProperty("port"));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid port in daemon state file.", ex);
+        }
+        request.setProperty(
+            DaemonProtocol.TOKEN, state.getProperty(DaemonProtocol.TOKEN, "")
+        );
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(timeoutMillis);
+            DaemonProtocol.write(socket.getOutputStream(), request);
+            return DaemonProtocol.read(socket.getInputStream());
+        }
+    }
+
+    private static Properties readState(final Path stateFile) {
+        if (!Files.isRegularFile(stateFile)) {
+            return null;
+        }
+        final Properties state = new Properties();
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            state.load(inputStream);
+        } catch (IOException ex) {
+            return null;
+        }
+        if (state.getProperty("port") == null
+                || state.getProperty(DaemonProtocol.TOKEN) == null) {
+            return null;
+        }
+        return state;
+    }
+
+    private void replayLog(final Properties response) {
+        final int count;
+        try {
+            count = Integer.parseInt(
+                response.getProperty(DaemonProtocol.LOG_COUNT, "0")
+            );
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            final String level = response.getProperty(
+                String.format("log.%d.level", i), "info"
+            );
+            final String message = String.format(
+                "[daemon] %s",
+                response.getProperty(String.format("log.%d.message", i), "")
+            );
+            RemoteLog.replay(log, level, message);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The protocol used between the {@link DaemonClient} and the
+ * {@link GeneratorDaemon} and between the {@link ForkedWorkers} and a
+ * {@link ForkedWorker}. Requests and responses are {@link Properties}, each
+ * message is prefixed with its length. Lists are stored as a single
+ * property, the entries are separated by line breaks.
+ *
+ * The daemon sends a single response containing the log entries. A forked
+ * worker streams a message of type {@link #TYPE_LOG} for each log entry and
+ * a message of type {@link #TYPE_RESULT} for each generated DDL file,
+ * followed by a message containing the {@link #STATUS}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class DaemonProtocol {
+
+    /**
+     * The token of the daemon, required for every request.
+     */
+    static final String TOKEN = "token";
+
+    /**
+     * The type of a request, one of {@link #TYPE_GENERATE},
+     * {@link #TYPE_PING} and {@link #TYPE_SHUTDOWN}.
+     */
+    static final String TYPE = "type";
+
+    static final String TYPE_GENERATE = "generate";
+
+    static final String TYPE_PING = "ping";
+
+    static final String TYPE_SHUTDOWN = "shutdown";
+
+    /**
+     * A log entry streamed by a forked worker, containing the {@link #LEVEL}
+     * and the {@link #MESSAGE}.
+     */
+    static final String TYPE_LOG = "log";
+
+    /**
+     * A DDL file streamed by a forked worker, containing the
+     * {@link #DIALECT} and the {@link #DDL}.
+     */
+    static final String TYPE_RESULT = "result";
+
+    static final String LEVEL = "level";
+
+    static final String DIALECT = "dialect";
+
+    static final String DDL = "ddl";
+
+    static final String CLASSPATH = "classpath";
+
+    static final String ENTITIES = "entities";
+
+    static final String CONVERTERS = "converters";
+
+    static final String PACKAGES = "packages";
+
+    static final String MAPPING_FILES = "mappingFiles";
+
+    static final String PERSISTENCE_UNIT = "persistenceUnit";
+
+    static final String DIALECTS = "dialects";
+
+    static final String CUSTOM_DIALECTS = "customDialects";
+
+    static final String OUTPUT_DIRECTORY = "outputDirectory";
+
+    static final String OUTPUT_FILE_NAME_PREFIX = "outputFileNamePrefix";
+
+    static final String OUTPUT_FILE_NAME_SUFFIX = "outputFileNameSuffix";
+
+    static final String OMIT_DIALECT_FROM_FILE_NAME
+        = "omitDialectFromFileName";
+
+    static final String CREATE_DROP_STATEMENTS = "createDropStatements";
+
+    static final String PERSISTENCE_XML = "persistenceXml";
+
+    static final String PERSISTENCE_PROPERTIES_TO_USE
+        = "persistencePropertiesToUse";
+
+    /**
+     * Prefix for the persistence properties set in the POM.
+     */
+    static final String PERSISTENCE_PROPERTY_PREFIX = "persistenceProperty.";
+
+    static final String GENERATION_THREADS = "generationThreads";
+
+    static final String OFFLINE_BOOT = "offlineBoot";
+
+    static final String OFFLINE_BOOT_INTEGRATORS = "offlineBootIntegrators";
+
+    static final String PARTITIONING = "partitioning";
+
+    static final String PARTITIONS = "partitions";
+
+    static final String MAX_PARTITION_SIZE = "maxPartitionSize";
+
+    static final String USE_JANDEX_INDEX = "useJandexIndex";
+
+    static final String JANDEX_INDEX_DIRECTORY = "jandexIndexDirectory";
+
+    static final String LOG_HIBERNATE_SERVICES = "logHibernateServices";
+
+    /**
+     * Whether debug log entries are sent back to the client.
+     */
+    static final String DEBUG = "debug";
+
+    /**
+     * The status of a response, either {@link #STATUS_OK} or
+     * {@link #STATUS_ERROR}.
+     */
+    static final String STATUS = "status";
+
+    static final String STATUS_OK = "ok";
+
+    static final String STATUS_ERROR = "error";
+
+    static final String MESSAGE = "message";
+
+    /**
+     * The number of log entries in a response. The entries are stored as
+     * {@code log.<n>.level} and {@code log.<n>.message}.
+     */
+    static final String LOG_COUNT = "log.count";
+
+    private static final int MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+    private DaemonProtocol() {
+        // Only static methods
+    }
+
+    public static void write(
+        final OutputStream outputStream, final Properties message
+    ) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        message.store(buffer, null);
+        final DataOutputStream dataOutputStream = new DataOutputStream(
+            outputStream
+        );
+        dataOutputStream.writeInt(buffer.size());
+        buffer.writeTo(dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+    public static Properties read(final InputStream inputStream)
+        throws IOException {
+        final DataInputStream dataInputStream = new DataInputStream(
+            inputStream
+        );
+        final int length = dataInputStream.readInt();
+        if (length < 0 || length > MAX_MESSAGE_SIZE) {
+            throw new IOException(
+                String.format("Invalid message length %d.", length)
+            );
+        }
+        final byte[] data = new byte[length];
+        dataInputStream.readFully(data);
+        final Properties message = new Properties();
+        message.load(new ByteArrayInputStream(data));
+        return message;
+    }
+
+    public static String join(final Collection<String> values) {
+        return String.join("\n", values);
+    }
+
+    public static List<String> split(final String value) {
+        if (value == null || value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> values = new ArrayList<>();
+        for (final String entry : value.split("\n")) {
+            if (!entry.isEmpty()) {
+                values.add(entry);
+            }
+        }
+        return values;
+    }
+
+}
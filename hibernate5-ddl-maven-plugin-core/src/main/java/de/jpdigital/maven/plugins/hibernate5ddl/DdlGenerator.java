@@ -18,8 +18,8 @@ package de.jpdigital.maven.plugins.hibernate5ddl;
 
 import org.apache.maven.plugin.MojoFailureException;
 
+import java.util.List;
 import java.util.ServiceLoader;
-import java.util.Set;
 
 /**
  * Interface for the {@code DdlGenerator} which generates the SQL DDL files.
@@ -34,14 +34,25 @@ import java.util.Set;
  */
 public interface DdlGenerator {
 
+    /**
+     * Provides the annotations of the persistence API and the package level
+     * Hibernate annotations supported by the Hibernate version of the
+     * generator. The {@link GenerateDdlMojo} only passes classes and
+     * packages annotated with one of these annotations to the generator.
+     *
+     * @return The annotations bound by this generator.
+     */
+    PersistenceAnnotations getPersistenceAnnotations();
+
     /**
      * Generates a SQL DDL file for a specific SQL dialect.
      *
-     * @param dialect       The SQL dialect to use.
-     * @param packages      Package with package level Hibernate annotations.
-     * @param entityClasses The entity classes for which SQL DDL statements will
-     *                      be created.
-     * @param mojo          The {@link GenerateDdlMojo} which calls the method.
+     * @param dialect        The SQL dialect to use.
+     * @param entitySources  The entity classes, converter classes and packages
+     *                       with package level Hibernate annotations for which
+     *                       SQL DDL statements will be created.
+     * @param mojo           The {@link GenerateDdlMojo} which calls the
+     *                       method.
      *
      * @throws MojoFailureException If an error occurs while creating the DDL
      *                              file.
@@ -50,8 +61,7 @@ public interface DdlGenerator {
      */
     void generateDdl(
         Dialect dialect,
-        Set<Package> packages,
-        Set<Class<?>> entityClasses,
+        EntitySources entitySources,
         GenerateDdlMojo mojo
     ) throws MojoFailureException;
 
@@ -60,11 +70,12 @@ public interface DdlGenerator {
      * string a is called by {@link GenerateDdlMojo} for processing custom
      * dialects.
      *
-     * @param dialect       The SQL dialect to use.
-     * @param packages      Package with package level Hibernate annotations.
-     * @param entityClasses The entity classes for which SQL DDL statements will
-     *                      be created.
-     * @param mojo          The {@link GenerateDdlMojo} which calls the method.
+     * @param dialect        The SQL dialect to use.
+     * @param entitySources  The entity classes, converter classes and packages
+     *                       with package level Hibernate annotations for which
+     *                       SQL DDL statements will be created.
+     * @param mojo           The {@link GenerateDdlMojo} which calls the
+     *                       method.
      *
      * @throws MojoFailureException If an error occurs while creating the DDL
      *                              file.
@@ -72,9 +83,47 @@ public interface DdlGenerator {
      */
     void generateDdl(
         String dialect,
-        Set<Package> packages,
-        Set<Class<?>> entityClasses,
+        EntitySources entitySources,
         GenerateDdlMojo mojo
     ) throws MojoFailureException;
 
+    /**
+     * Generates the SQL DDL files for several dialects. This method is called
+     * by the {@link GenerateDdlMojo} with all configured dialects (including
+     * the custom dialects). Implementations should perform the work which
+     * does not depend on the dialect, for example creating the bootstrap
+     * registry and collecting the mapping sources, only once and then create
+     * the DDL file for each dialect.
+     *
+     * The default implementation calls
+     * {@link #generateDdl(java.lang.String, de.jpdigital.maven.plugins.hibernate5ddl.EntitySources, de.jpdigital.maven.plugins.hibernate5ddl.GenerateDdlMojo)}
+     * for each dialect, using up to
+     * {@link GenerateDdlMojo#getGenerationThreads()} threads.
+     *
+     * @param dialectClassNames The class names of the SQL dialects to use.
+     * @param entitySources     The entity classes, converter classes and
+     *                          packages with package level Hibernate
+     *                          annotations for which SQL DDL statements will
+     *                          be created.
+     * @param mojo              The {@link GenerateDdlMojo} which calls the
+     *                          method.
+     *
+     * @throws MojoFailureException If an error occurs while creating the DDL
+     *                              files.
+     */
+    default void generateDdl(
+        final List<String> dialectClassNames,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        DialectTaskRunner.run(
+            dialectClassNames,
+            mojo.getGenerationThreads(),
+            dialectClassName -> generateDdl(
+                dialectClassName, entitySources, mojo
+            ),
+            mojo.getLog()
+        );
+    }
+
 }
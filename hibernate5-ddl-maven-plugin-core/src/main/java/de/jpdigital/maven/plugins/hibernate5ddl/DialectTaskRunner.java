@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a task for each dialect, either sequentially or on a bounded thread
+ * pool. Used by the {@link DdlGenerator} implementations for generating the
+ * DDL files of several dialects in parallel.
+ *
+ * A failure of one dialect does not stop the other dialects. After all tasks
+ * have finished, the failures of all dialects are reported together.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class DialectTaskRunner {
+
+    private DialectTaskRunner() {
+        // Only static methods
+    }
+
+    /**
+     * Runs the task for each dialect. The threads of the pool use the context
+     * class loader of the calling thread.
+     *
+     * @param dialectClassNames The class names of the dialects.
+     * @param threads           The maximum number of threads to use. With
+     *                          {@code 1} (or less) or only one dialect the
+     *                          tasks run in the calling thread.
+     * @param task              The task to run for each dialect.
+     * @param log               The Maven log.
+     *
+     * @throws MojoFailureException If the task failed for at least one
+     *                              dialect. The message lists all failed
+     *                              dialects, the exceptions of the other
+     *                              failed dialects are added as suppressed
+     *                              exceptions.
+     */
+    public static void run(
+        final List<String> dialectClassNames,
+        final int threads,
+        final DialectTask task,
+        final Log log
+    ) throws MojoFailureException {
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+        final int poolSize = Math.min(threads, dialectClassNames.size());
+        if (poolSize <= 1) {
+            for (final String dialectClassName : dialectClassNames) {
+                try {
+                    task.generate(dialectClassName);
+                } catch (MojoFailureException | RuntimeException | LinkageError ex) {
+                    failures.put(dialectClassName, ex);
+                }
+            }
+        } else {
+            log.info(
+                String.format(
+                    "Generating DDL files for %d dialects using %d threads.",
+                    dialectClassNames.size(),
+                    poolSize
+                )
+            );
+            runParallel(dialectClassNames, poolSize, task, failures);
+        }
+
+        throwFailures(failures);
+    }
+
+    private static void runParallel(
+        final List<String> dialectClassNames,
+        final int poolSize,
+        final DialectTask task,
+        final Map<String, Throwable> failures
+    ) throws MojoFailureException {
+        final ClassLoader contextClassLoader = Thread
+            .currentThread()
+            .getContextClassLoader();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            poolSize,
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable,
+                    String.format(
+                        "hibernate5-ddl-generate-%d",
+                        threadCounter.incrementAndGet()
+                    )
+                );
+                thread.setDaemon(true);
+                thread.setContextClassLoader(contextClassLoader);
+                return thread;
+            }
+        );
+        try {
+            final Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (final String dialectClassName : dialectClassNames) {
+                futures.put(
+                    dialectClassName,
+                    executor.submit(
+                        () -> {
+                            task.generate(dialectClassName);
+                            return null;
+                        }
+                    )
+                );
+            }
+            for (final Map.Entry<String, Future<?>> future
+                     : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (ExecutionException ex) {
+                    failures.put(future.getKey(), ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(
+                "Interrupted while generating the DDL files.", ex
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void throwFailures(final Map<String, Throwable> failures)
+        throws MojoFailureException {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        final List<Map.Entry<String, Throwable>> entries = new ArrayList<>(
+            failures.entrySet()
+        );
+        final Map.Entry<String, Throwable> first = entries.get(0);
+        if (entries.size() == 1) {
+            if (first.getValue() instanceof MojoFailureException) {
+                throw (MojoFailureException) first.getValue();
+            }
+            throw new MojoFailureException(
+                String.format(
+                    "Failed to generate the DDL file for dialect '%s': %s",
+                    first.getKey(),
+                    first.getValue().getMessage()
+                ),
+                first.getValue()
+            );
+        }
+
+        final StringBuilder message = new StringBuilder(
+            String.format(
+                "Failed to generate the DDL files for %d dialects:",
+                entries.size()
+            )
+        );
+        for (final Map.Entry<String, Throwable> entry : entries) {
+            message.append(
+                String.format(
+                    "%n\t%s: %s", entry.getKey(), entry.getValue().getMessage()
+                )
+            );
+        }
+        final MojoFailureException exception = new MojoFailureException(
+            message.toString(), first.getValue()
+        );
+        for (final Map.Entry<String, Throwable> entry
+                 : entries.subList(1, entries.size())) {
+            exception.addSuppressed(entry.getValue());
+        }
+        throw exception;
+    }
+
+    /**
+     * The task executed for each dialect.
+     */
+    @FunctionalInterface
+    interface DialectTask {
+
+        void generate(String dialectClassName) throws MojoFailureException;
+
+    }
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Filters the entities and converters found by the {@link EntityFinder}. The
+ * following filters are supported:
+ *
+ * <ul>
+ * <li>Include and exclude patterns for the class names. {@code *} can be used
+ * as wildcard.</li>
+ * <li>Include and exclude marker annotations. If include annotations are
+ * configured only classes annotated with one of them are kept. Classes
+ * annotated with one of the exclude annotations are removed.</li>
+ * <li>Root entities (patterns for the class names): If configured only the
+ * entities reachable from the root entities (see {@link EntityGraph}) are
+ * kept.</li>
+ * </ul>
+ *
+ * Annotated packages are never filtered.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@SuppressWarnings({"PMD.LongVariable", "PMD.DataClass"})
+class EntityFilter {
+
+    private String[] includes = new String[]{};
+
+    private String[] excludes = new String[]{};
+
+    private String[] includeAnnotations = new String[]{};
+
+    private String[] excludeAnnotations = new String[]{};
+
+    private String[] rootEntities = new String[]{};
+
+    private PersistenceAnnotations persistenceAnnotations
+        = new PersistenceAnnotations(
+            PersistenceAnnotations.JAVAX_PERSISTENCE,
+            Collections.emptyList()
+        );
+
+    public EntityFilter() {
+        super();
+    }
+
+    public String[] getIncludes() {
+        return Arrays.copyOf(includes, includes.length);
+    }
+
+    public void setIncludes(final String... includes) {
+        this.includes = Arrays.copyOf(includes, includes.length);
+    }
+
+    public String[] getExcludes() {
+        return Arrays.copyOf(excludes, excludes.length);
+    }
+
+    public void setExcludes(final String... excludes) {
+        this.excludes = Arrays.copyOf(excludes, excludes.length);
+    }
+
+    public String[] getIncludeAnnotations() {
+        return Arrays.copyOf(includeAnnotations, includeAnnotations.length);
+    }
+
+    public void setIncludeAnnotations(final String... includeAnnotations) {
+        this.includeAnnotations = Arrays.copyOf(
+            includeAnnotations, includeAnnotations.length
+        );
+    }
+
+    public String[] getExcludeAnnotations() {
+        return Arrays.copyOf(excludeAnnotations, excludeAnnotations.length);
+    }
+
+    public void setExcludeAnnotations(final String... excludeAnnotations) {
+        this.excludeAnnotations = Arrays.copyOf(
+            excludeAnnotations, excludeAnnotations.length
+        );
+    }
+
+    public String[] getRootEntities() {
+        return Arrays.copyOf(rootEntities, rootEntities.length);
+    }
+
+    public void setRootEntities(final String... rootEntities) {
+        this.rootEntities = Arrays.copyOf(rootEntities, rootEntities.length);
+    }
+
+    public PersistenceAnnotations getPersistenceAnnotations() {
+        return persistenceAnnotations;
+    }
+
+    /**
+     * @param persistenceAnnotations The annotations used by the
+     *                               {@link EntityGraph} for the root
+     *                               entities.
+     */
+    public void setPersistenceAnnotations(
+        final PersistenceAnnotations persistenceAnnotations
+    ) {
+        this.persistenceAnnotations = persistenceAnnotations;
+    }
+
+    /**
+     * @return {@code true} if no filter is configured.
+     */
+    public boolean isEmpty() {
+        return includes.length == 0
+                   && excludes.length == 0
+                   && includeAnnotations.length == 0
+                   && excludeAnnotations.length == 0
+                   && rootEntities.length == 0;
+    }
+
+    /**
+     * Applies the filters.
+     *
+     * @param entitySources The entity sources found by the
+     *                      {@link EntityFinder}.
+     * @param log           The Maven log.
+     *
+     * @return The filtered entity sources.
+     *
+     * @throws MojoFailureException If the classes can't be loaded or if a
+     *                              root entity pattern does not match any
+     *                              entity.
+     */
+    public EntitySources apply(
+        final EntitySources entitySources, final Log log
+    ) throws MojoFailureException {
+        if (isEmpty()) {
+            return entitySources;
+        }
+
+        // The name filters are applied first, they don't need to load
+        // the classes.
+        final List<String> entityClassNames = filterByName(
+            entitySources.getEntityClassNames()
+        );
+        final List<String> converterClassNames = filterByName(
+            entitySources.getConverterClassNames()
+        );
+
+        final EntitySources nameFiltered = entitySources.withFindings(
+            new ScanFindings(
+                entityClassNames,
+                converterClassNames,
+                entitySources.getPackageNames()
+            )
+        );
+
+        // The classes are only loaded if the annotation filters or the root
+        // entities need them. Otherwise Hibernate loads the classes while
+        // building the metadata.
+        if (includeAnnotations.length == 0
+                && excludeAnnotations.length == 0
+                && rootEntities.length == 0) {
+            logRemoved(
+                entitySources,
+                entityClassNames.size(),
+                converterClassNames.size(),
+                log
+            );
+            return nameFiltered;
+        }
+
+        final Set<String> entityNames = new HashSet<>(entityClassNames);
+        final List<Class<?>> entityClasses = new ArrayList<>();
+        final List<Class<?>> converterClasses = new ArrayList<>();
+        for (final Class<?> clazz : nameFiltered.getAnnotatedClasses()) {
+            if (!isAcceptedByAnnotations(clazz)) {
+                continue;
+            }
+            if (entityNames.contains(clazz.getName())) {
+                entityClasses.add(clazz);
+            } else {
+                converterClasses.add(clazz);
+            }
+        }
+
+        final List<Class<?>> keptEntities;
+        if (rootEntities.length == 0) {
+            keptEntities = entityClasses;
+        } else {
+            final List<Class<?>> roots = findRoots(entityClasses);
+            final EntityGraph graph = new EntityGraph(
+                entityClasses, persistenceAnnotations, log
+            );
+            keptEntities = new ArrayList<>(graph.getReachableFrom(roots));
+            log.info(
+                String.format(
+                    "%d of %d entities are reachable from %d root entities.",
+                    keptEntities.size(),
+                    entityClasses.size(),
+                    roots.size()
+                )
+            );
+        }
+
+        logRemoved(
+            entitySources, keptEntities.size(), converterClasses.size(), log
+        );
+
+        return entitySources.withFindings(
+            new ScanFindings(
+                toNames(keptEntities),
+                toNames(converterClasses),
+                entitySources.getPackageNames()
+            )
+        );
+    }
+
+    private static void logRemoved(
+        final EntitySources entitySources,
+        final int keptEntities,
+        final int keptConverters,
+        final Log log
+    ) {
+        log.info(
+            String.format(
+                "Entity filters removed %d entities and %d converters.",
+                entitySources.getEntityClassNames().size() - keptEntities,
+                entitySources.getConverterClassNames().size() - keptConverters
+            )
+        );
+    }
+
+    private List<String> filterByName(final Set<String> classNames) {
+        return classNames
+            .stream()
+            .filter(
+                name -> includes.length == 0 || matchesAny(name, includes)
+            )
+            .filter(name -> !matchesAny(name, excludes))
+            .collect(Collectors.toList());
+    }
+
+    private boolean isAcceptedByAnnotations(final Class<?> clazz) {
+        boolean included = includeAnnotations.length == 0;
+        for (final Annotation annotation : clazz.getAnnotations()) {
+            final String annotationName = annotation
+                .annotationType()
+                .getName();
+            if (Arrays.asList(excludeAnnotations).contains(annotationName)) {
+                return false;
+            }
+            if (Arrays.asList(includeAnnotations).contains(annotationName)) {
+                included = true;
+            }
+        }
+        return included;
+    }
+
+    private List<Class<?>> findRoots(final List<Class<?>> entityClasses)
+        throws MojoFailureException {
+        final List<Class<?>> roots = new ArrayList<>();
+        for (final String pattern : rootEntities) {
+            final List<Class<?>> matching = entityClasses
+                .stream()
+                .filter(
+                    clazz -> EntityFinder.matchesWildcard(
+                        clazz.getName(), pattern.trim()
+                    )
+                )
+                .collect(Collectors.toList());
+            if (matching.isEmpty()) {
+                throw new MojoFailureException(
+                    String.format(
+                        "The root entity pattern '%s' does not match any "
+                            + "entity.",
+                        pattern
+                    )
+                );
+            }
+            roots.addAll(matching);
+        }
+        return roots;
+    }
+
+    private static boolean matchesAny(
+        final String className, final String[] patterns
+    ) {
+        for (final String pattern : patterns) {
+            if (EntityFinder.matchesWildcard(className, pattern.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> toNames(final List<Class<?>> classes) {
+        return classes
+            .stream()
+            .map(Class::getName)
+            .collect(Collectors.toList());
+    }
+
+}
@@ -16,261 +16,899 @@
  */
 package de.jpdigital.maven.plugins.hibernate5ddl;
 
+import de.jpdigital.maven.plugins.hibernate5ddl.processor.EntityIndex;
 import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassInfo;
 import io.github.classgraph.PackageInfo;
 import io.github.classgraph.ScanResult;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-
-import javax.persistence.Converter;
-import javax.persistence.Entity;
+import java.util.stream.Stream;
 
 /**
  * Helper class for finding the entity classes. An instance of this class is
  * created using the
- * {@link EntityFinder#forPackage(org.apache.maven.project.MavenProject, org.apache.maven.plugin.logging.Log, java.lang.String, boolean)}
+ * {@link EntityFinder#forPackages(org.apache.maven.project.MavenProject, org.apache.maven.plugin.logging.Log, java.lang.String[], de.jpdigital.maven.plugins.hibernate5ddl.ScanSettings)}
+ * or the
+ * {@link EntityFinder#forClassPath(org.apache.maven.project.MavenProject, org.apache.maven.plugin.logging.Log, de.jpdigital.maven.plugins.hibernate5ddl.ScanSettings)}
  * method.
  *
  * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
  */
 final class EntityFinder {
 
-    /**
-     * Hibernate Annotations that only be applied on package level (in a
-     * {@code package-info.java} file).
-     */
-    private static final Set<String> PACKAGE_LEVEL_ANNOTATIONS = Collections
-        .unmodifiableSet(
-            new HashSet<>(
-                Arrays.asList(
-                    new String[]{
-                        "org.hibernate.annotations.AnyMetaDef",
-                        "org.hibernate.annotations.AnyMetaDefs",
-                        "org.hibernate.annotations.FetchProfile",
-                        "org.hibernate.annotations.FetchProfile.FetchOverride",
-                        "org.hibernate.annotations.FetchProfiles",
-                        "org.hibernate.annotations.FilterDef",
-                        "org.hibernate.annotations.FilterDefs",
-                        "org.hibernate.annotations.GenericGenerator",
-                        "org.hibernate.annotations.GenericGenerators",
-                        "org.hibernate.annotations.NamedNativeQueries",
-                        "org.hibernate.annotations.NamedNativeQuery",
-                        "org.hibernate.annotations.NamedQueries",
-                        "org.hibernate.annotations.NamedQuery",
-                        "org.hibernate.annotations.TypeDef",
-                        "org.hibernate.annotations.TypeDefs"}
-                )
-            )
-        );
-
     private final ClassLoader classLoader;
 
-    private final ScanResult scanResult;
+    private final ScanFindings findings;
 
     private EntityFinder(
-        final ScanResult scanResult,
+        final ScanFindings findings,
         final ClassLoader classLoader
     ) {
-        this.scanResult = scanResult;
+        this.findings = findings;
         this.classLoader = classLoader;
     }
 
+    /**
+     * Creates an {@code EntityFinder} for the complete classpath of the
+     * project.
+     *
+     * @param project            The Maven project in which the calling Mojo is
+     *                           executed.
+     * @param log                An Maven log object for creating output.
+     * @param settings           The settings for the scan.
+     *
+     * @return An {@code EntityFinder} instance.
+     *
+     * @throws MojoFailureException If the classpath of the project can't be
+     *                              resolved.
+     */
     public static EntityFinder forClassPath(
         final MavenProject project,
         final Log log,
-        final boolean includeTestClasses
+        final ScanSettings settings
     ) throws MojoFailureException {
         Objects.requireNonNull(project, "Parameter project is null");
 
-        final List<String> classPathElements = new ArrayList<>();
-        try {
-            classPathElements.addAll(project.getCompileClasspathElements());
-            if (includeTestClasses) {
-                classPathElements.addAll(project.getTestClasspathElements());
+        return scanProject(project, log, new String[]{}, settings);
+    }
+
+    /**
+     * Creates an {@code EntityFinder} for the provided package.
+     *
+     * @param project            The Maven project in which the calling Mojo is
+     *                           executed. Can be {@code null}.
+     * @param log                An Maven log object for creating output.
+     * @param packageName        The name of the package in the class should
+     *                           look for entities.
+     * @param includeTestClasses Include the test classpath of the project?
+     * @param annotations        The annotations of the {@link DdlGenerator}.
+     *
+     * @return An {@code EntityFinder} instance.
+     *
+     * @throws MojoFailureException If the {@link ClassGraph} instance needed
+     *                              by the {@code EntityFinder} can't be
+     *                              created.
+     */
+    public static EntityFinder forPackage(
+        final MavenProject project,
+        final Log log,
+        final String packageName,
+        final boolean includeTestClasses,
+        final PersistenceAnnotations annotations
+    ) throws MojoFailureException {
+        final ScanSettings settings = new ScanSettings();
+        settings.setIncludeTestClasses(includeTestClasses);
+        settings.setPersistenceAnnotations(annotations);
+
+        return forPackages(project, log, new String[]{packageName}, settings);
+    }
+
+    /**
+     * Creates an {@code EntityFinder} for all provided packages. In contrast to
+     * calling
+     * {@link #forPackage(org.apache.maven.project.MavenProject, org.apache.maven.plugin.logging.Log, java.lang.String, boolean, de.jpdigital.maven.plugins.hibernate5ddl.PersistenceAnnotations)}
+     * for each package only one class loader is created and the classpath is
+     * scanned only once.
+     *
+     * @param project            The Maven project in which the calling Mojo is
+     *                           executed. Can be {@code null}.
+     * @param log                An Maven log object for creating output.
+     * @param packageNames       The names of the packages in which the class
+     *                           should look for entities.
+     * @param settings           The settings for the scan.
+     *
+     * @return An {@code EntityFinder} instance.
+     *
+     * @throws MojoFailureException If the {@link ClassGraph} instance needed
+     *                              by the {@code EntityFinder} can't be
+     *                              created.
+     */
+    @SuppressWarnings({"PMD.LongVariable"})
+    public static EntityFinder forPackages(
+        final MavenProject project,
+        final Log log,
+        final String[] packageNames,
+        final ScanSettings settings
+    ) throws MojoFailureException {
+        Objects.requireNonNull(packageNames, "Parameter packageNames is null");
+
+        if (project == null) {
+            final ScanFindings findings;
+            try (ScanResult scanResult = scan(
+                createClassGraph().acceptPackages(packageNames), settings, log
+            )) {
+                findings = extractFindings(
+                    scanResult, settings.getPersistenceAnnotations()
+                );
             }
-        } catch (DependencyResolutionRequiredException ex) {
-            throw new MojoFailureException(
-                "Failed to resolve project classpath.", ex
-            );
-        }
 
-        final List<URL> classPathUrls = new ArrayList<>();
-        for (final String classPathElem : classPathElements) {
-            log.info(
-                String.format(
-                    "Adding classpath elemement '%s'...", classPathElem
-                )
+            return new EntityFinder(
+                findings,
+                ClassGraph.class.getClassLoader()
             );
-            classPathUrls.add(classPathElemToUrl(classPathElem));
+        } else {
+            return scanProject(project, log, packageNames, settings);
         }
+    }
 
-        log.info("Classpath URLs:");
-        for (final URL url : classPathUrls) {
-            log.info(String.format("\t%s", url.toString()));
-        }
+    /**
+     * Creates an {@code EntityFinder} for a persistence unit. Only the
+     * provided classpath elements (for example the JAR files listed in the
+     * persistence unit) and, if requested, the elements determined by the
+     * {@link ScanSettings#getScanScope()} are scanned. The class loader of the
+     * finder has access to the complete classpath of the project, therefore
+     * it can also be used to load the classes listed in the persistence unit.
+     *
+     * @param project                The Maven project.
+     * @param log                    The Maven log.
+     * @param includeProjectElements Scan the output directories of the
+     *                               project (and the configured artifacts)?
+     * @param additionalElements     Additional classpath elements to scan.
+     * @param settings               The settings for the scan.
+     *
+     * @return An {@code EntityFinder} instance.
+     *
+     * @throws MojoFailureException If the classpath of the project can't be
+     *                              resolved.
+     */
+    public static EntityFinder forClassPathElements(
+        final MavenProject project,
+        final Log log,
+        final boolean includeProjectElements,
+        final List<String> additionalElements,
+        final ScanSettings settings
+    ) throws MojoFailureException {
+        Objects.requireNonNull(project, "Parameter project is null");
 
-        //Here we have to do some classloader magic to ensure that the 
-        //the correct class loader is used to find the entities. Which is the 
-        //one that has access to the compiled classes
-        final ClassLoader classLoader = AccessController.doPrivileged(
-            new ClassLoaderCreator(classPathUrls)
+        return scanProject(
+            project,
+            log,
+            new String[]{},
+            settings,
+            includeProjectElements,
+            additionalElements
         );
+    }
 
-        final ScanResult scanResult = new ClassGraph()
-            .enableAllInfo()
-            .addClassLoader(classLoader)
-            .scan();
+    /**
+     * Returns the entity classes, converter classes and packages with
+     * package level Hibernate annotations found by the scan. The entity
+     * classes must be annotated with the {@code @Entity} annotation, the
+     * converter classes must be annotated with the {@code @Converter}
+     * annotation. The method uses the
+     * <a href="https://github.com/classgraph/classgraph">ClassGraph library</a>
+     * for finding the entity classes.
+     *
+     * The classes are not loaded by this method. They are loaded (without
+     * being initialized) when they are requested from the returned
+     * {@link EntitySources} instance.
+     *
+     * @return The {@link EntitySources} found by the scan.
+     */
+    public EntitySources findEntitySources() {
+        return new EntitySources(findings, classLoader);
+    }
 
-        return new EntityFinder(
-            scanResult,
-            classLoader
+    /**
+     * Helper method for scanning the classpath of a project. Depending on the
+     * {@link ScanSettings#getScanScope()} only the output directories of the
+     * project and the explicitly configured artifacts or the complete classpath
+     * are scanned. If a scan cache file is configured and the scanned part of
+     * the classpath has not changed since the last scan the findings of the
+     * last scan are used and the classpath is not scanned again.
+     *
+     * Classpath elements providing an up to date {@link EntityIndex} (created
+     * by the annotation processor from the
+     * {@code hibernate5-ddl-maven-plugin-processor} module) are not scanned.
+     * The index is used instead.
+     *
+     * @param project      The Maven project.
+     * @param log          The Maven log.
+     * @param packageNames The packages to scan. If empty, all packages are
+     *                     scanned.
+     * @param settings     The settings for the scan.
+     *
+     * @return An {@code EntityFinder} instance.
+     *
+     * @throws MojoFailureException If the classpath can't be resolved.
+     */
+    private static EntityFinder scanProject(
+        final MavenProject project,
+        final Log log,
+        final String[] packageNames,
+        final ScanSettings settings
+    ) throws MojoFailureException {
+        return scanProject(
+            project,
+            log,
+            packageNames,
+            settings,
+            true,
+            Collections.emptyList()
         );
     }
 
     /**
-     * Creates an {@code EntityFinder} for the provided package.
+     * Helper method for scanning the classpath of a project.
      *
-     * @param project     The Maven project in which the calling Mojo is
-     *                    executed. Can be {@code null}.
-     * @param log         An Maven log object for creating output.
-     * @param packageName The name of the package in the class should look for
-     *                    entities.
+     * @param project                The Maven project.
+     * @param log                    The Maven log.
+     * @param packageNames           The packages to scan. If empty, all
+     *                               packages are scanned.
+     * @param settings               The settings for the scan.
+     * @param includeProjectElements Scan the elements determined by the
+     *                               {@link ScanSettings#getScanScope()}?
+     * @param additionalElements     Additional classpath elements to scan,
+     *                               for example JAR files listed in a
+     *                               persistence unit.
      *
      * @return An {@code EntityFinder} instance.
      *
-     * @throws MojoFailureException If the {@link ClassGraph} instance needed
-     *                              by the {@code EntityFinder} can't be
-     *                              created.
+     * @throws MojoFailureException If the classpath can't be resolved.
      */
-    @SuppressWarnings({"unchecked", "PMD.LongVariable"})
-    public static EntityFinder forPackage(
+    private static EntityFinder scanProject(
         final MavenProject project,
         final Log log,
-        final String packageName,
-        final boolean includeTestClasses
+        final String[] packageNames,
+        final ScanSettings settings,
+        final boolean includeProjectElements,
+        final List<String> additionalElements
     ) throws MojoFailureException {
-        final ScanResult scanResult;
+        final List<String> classPathElements = getClassPathElements(
+            project, settings.isIncludeTestClasses()
+        );
+        final Set<String> scanElementSet = new LinkedHashSet<>();
+        if (includeProjectElements) {
+            scanElementSet.addAll(
+                getScanElements(project, log, classPathElements, settings)
+            );
+        }
+        scanElementSet.addAll(additionalElements);
+        final List<String> scanElements = new ArrayList<>(scanElementSet);
 
+        //Here we have to do some classloader magic to ensure that the 
+        //the correct class loader is used to find the entity classes. 
+        //Which is the one which has access to the compiled classes.
+        //The class loader is not set as context class loader here, the
+        //GenerateDdlMojo sets it only while the DDL files are generated.
         final ClassLoader classLoader;
-        if (project == null) {
-            scanResult = new ClassGraph()
-                .enableAllInfo()
-                .acceptPackages(packageName)
-                .scan();
+        if (settings.getReactorCache() == null) {
+            // The parent is the class loader of the plugin, not the context
+            // class loader of the current thread. In a parallel build the
+            // context class loader may have been changed by another
+            // execution.
+            classLoader = createClassLoader(
+                classPathElements, EntityFinder.class.getClassLoader(), log
+            );
+        } else {
+            classLoader = createSharedClassLoader(
+                project, classPathElements, settings.getReactorCache(), log
+            );
+        }
 
-            classLoader = scanResult.getClass().getClassLoader();
+        final ScanCache scanCache;
+        final String fingerprint;
+        if (settings.getScanCacheFile() == null) {
+            scanCache = null;
+            fingerprint = null;
         } else {
-            final List<String> classPathElements = new ArrayList<>();
-            try {
-                classPathElements.addAll(project.getCompileClasspathElements());
-                if (includeTestClasses) {
-                    classPathElements.addAll(project.getTestClasspathElements());
-                }
-            } catch (DependencyResolutionRequiredException ex) {
-                throw new MojoFailureException(
-                    "Failed to resolve project classpath.", ex
+            scanCache = new ScanCache(settings.getScanCacheFile(), log);
+            fingerprint = scanCache.fingerprint(
+                scanElements,
+                String.join(",", packageNames),
+                settings.getScanScope().toString(),
+                settings.getPersistenceAnnotations().getKey()
+            );
+            final ScanFindings cachedFindings = scanCache.read(fingerprint);
+            if (cachedFindings != null) {
+                log.info(
+                    String.format(
+                        "Classpath has not changed since the last scan, "
+                            + "using cached scan result from '%s'.",
+                        settings.getScanCacheFile().getPath()
+                    )
+                );
+                return new EntityFinder(cachedFindings, classLoader);
+            }
+        }
+
+        final List<ScanFindings> allFindings = new ArrayList<>();
+        final List<String> elementsToScan = new ArrayList<>();
+        for (final String scanElement : scanElements) {
+            final EntityIndex entityIndex;
+            if (settings.isUseEntityIndex()) {
+                entityIndex = readEntityIndex(
+                    project, scanElement, settings, log
                 );
+            } else {
+                entityIndex = null;
             }
-            final List<URL> classPathUrls = new ArrayList<>();
-            for (final String classPathElement : classPathElements) {
+            if (entityIndex == null) {
+                elementsToScan.add(scanElement);
+            } else {
                 log.info(
                     String.format(
-                        "Adding classpath elemement '%s'...", classPathElement
+                        "Using entity index of '%s' instead of scanning it.",
+                        scanElement
                     )
                 );
-                classPathUrls.add(classPathElemToUrl(classPathElement));
+                allFindings.add(
+                    toFindings(
+                        entityIndex, settings.getPersistenceAnnotations()
+                    ).filterByPackages(packageNames)
+                );
             }
+        }
 
-            log.info("Classpath URLs:");
-            for (final URL url : classPathUrls) {
-                log.info(String.format("\t%s", url.toString()));
+        if (settings.getReactorCache() != null) {
+            useReactorCache(
+                project, elementsToScan, allFindings, packageNames, settings, log
+            );
+        }
+
+        if (settings.getIncrementalStateDirectory() != null) {
+            final IncrementalScanner incrementalScanner
+                = new IncrementalScanner(settings, log);
+            final Iterator<String> iterator = elementsToScan.iterator();
+            while (iterator.hasNext()) {
+                final String element = iterator.next();
+                if (isProjectOutputDirectory(project, element)
+                        && Files.isDirectory(Paths.get(element))) {
+                    allFindings.add(
+                        incrementalScanner
+                            .scan(element)
+                            .filterByPackages(packageNames)
+                    );
+                    iterator.remove();
+                }
             }
+        }
 
-            //Here we have to do some classloader magic to ensure that the 
-            //the correct class loader is used to find the entity classes. 
-            //Which is the one which has access to the compiled classes
-            classLoader = AccessController.doPrivileged(
-                new ClassLoaderCreator(classPathUrls)
+        if (settings.getJarScanCacheDirectory() != null) {
+            scanJarsWithCache(
+                elementsToScan, allFindings, packageNames, settings, log
             );
+        }
+
+        if (scanElements.isEmpty() && includeProjectElements) {
+            log.warn("Nothing to scan for entities.");
+        } else if (!elementsToScan.isEmpty()) {
+            final ClassGraph classGraph = createClassGraph()
+                .overrideClasspath(elementsToScan);
+            if (packageNames.length > 0) {
+                classGraph.acceptPackages(packageNames);
+            }
+
+            try (ScanResult scanResult = scan(classGraph, settings, log)) {
+                allFindings.add(
+                    extractFindings(
+                        scanResult, settings.getPersistenceAnnotations()
+                    )
+                );
+            }
+        }
+        final ScanFindings findings = ScanFindings.merge(allFindings);
 
-            scanResult = new ClassGraph()
-                .enableAllInfo()
-                .addClassLoader(classLoader)
-                .acceptPackages(packageName)
-                .scan();
+        if (scanCache != null) {
+            scanCache.write(fingerprint, findings);
         }
 
-        return new EntityFinder(
-            scanResult,
-            classLoader
+        return new EntityFinder(findings, classLoader);
+    }
+
+    /**
+     * Helper method for processing the JAR files to scan using the
+     * {@link JarScanCache}. JAR files which have been scanned before (by any
+     * module or build) are not scanned again. JAR files not scanned before are
+     * scanned completely and the findings are stored in the cache. The
+     * processed JAR files are removed from the list of the elements to scan.
+     *
+     * @param elementsToScan The classpath elements to scan.
+     * @param allFindings    The list to which the findings for the JAR files
+     *                       are added.
+     * @param packageNames   The packages to scan. If empty, all packages are
+     *                       scanned.
+     * @param settings       The settings for the scan.
+     * @param log            The Maven log.
+     */
+    private static void scanJarsWithCache(
+        final List<String> elementsToScan,
+        final List<ScanFindings> allFindings,
+        final String[] packageNames,
+        final ScanSettings settings,
+        final Log log
+    ) {
+        final JarScanCache jarScanCache = new JarScanCache(
+            settings.getJarScanCacheDirectory(),
+            settings.getPersistenceAnnotations(),
+            log
         );
+        final Iterator<String> iterator = elementsToScan.iterator();
+        while (iterator.hasNext()) {
+            final Path path = Paths.get(iterator.next());
+            if (Files.isRegularFile(path)) {
+                allFindings.add(
+                    readOrScanJar(jarScanCache, path, settings, log)
+                        .filterByPackages(packageNames)
+                );
+                iterator.remove();
+            }
+        }
     }
 
     /**
-     * Finds all entity classes and all converter classes in the package for
-     * which the instance of this class was created. The entity classes must be
-     * annotated with the {@link Entity} annotation, the converter classes must
-     * be annotated with the {@link Converter} annotation. The method uses the
-     * <a href="https://github.com/classgraph/classgraph">ClassGraph library</a>
-     * for finding the entity classes.
+     * Retrieves the findings for a JAR file from the {@link JarScanCache}. If
+     * the JAR file has not been scanned before the complete JAR file is
+     * scanned and the findings are stored in the cache.
+     *
+     * @param jarScanCache The cache.
+     * @param jarFile      The JAR file.
+     * @param settings     The settings for the scan.
+     * @param log          The Maven log.
      *
-     * @return An {@link Set} with all entity classes.
+     * @return The findings for the complete JAR file.
      */
-    @SuppressWarnings({"PMD.LongVariable"})
-    public Set<Class<?>> findEntities() {
-        final Set<Class<?>> entityClasses = new HashSet<>();
+    private static ScanFindings readOrScanJar(
+        final JarScanCache jarScanCache,
+        final Path jarFile,
+        final ScanSettings settings,
+        final Log log
+    ) {
+        final String hash = jarScanCache.hash(jarFile);
+        final ScanFindings cachedFindings = jarScanCache.read(hash);
+        if (cachedFindings != null) {
+            log.debug(
+                String.format(
+                    "Using cached scan result for JAR file '%s'.", jarFile
+                )
+            );
+            return cachedFindings;
+        }
 
-        entityClasses.addAll(
-            scanResult
-                .getClassesWithAnnotation(Entity.class)
-                .stream()
-                .map(ClassInfo::loadClass)
-                .collect(Collectors.toSet())
+        final ScanFindings jarFindings = scanElement(
+            jarFile.toString(), settings, log
         );
+        jarScanCache.write(hash, jarFindings);
+        return jarFindings;
+    }
 
-        entityClasses.addAll(
+    /**
+     * Helper method for processing the elements to scan using the
+     * {@link ReactorCache}. All elements except the output directories of the
+     * project itself are looked up in the cache. Elements not found in the
+     * cache are scanned completely (or retrieved from the
+     * {@link JarScanCache}) and stored in the cache, therefore the other
+     * modules of the reactor don't have to scan them again. The processed
+     * elements are removed from the list of the elements to scan.
+     *
+     * @param project        The Maven project.
+     * @param elementsToScan The classpath elements to scan.
+     * @param allFindings    The list to which the findings are added.
+     * @param packageNames   The packages to scan. If empty, all packages are
+     *                       scanned.
+     * @param settings       The settings for the scan.
+     * @param log            The Maven log.
+     */
+    private static void useReactorCache(
+        final MavenProject project,
+        final List<String> elementsToScan,
+        final List<ScanFindings> allFindings,
+        final String[] packageNames,
+        final ScanSettings settings,
+        final Log log
+    ) {
+        final ReactorCache reactorCache = settings.getReactorCache();
+        int reused = 0;
+        final Iterator<String> iterator = elementsToScan.iterator();
+        while (iterator.hasNext()) {
+            final String element = iterator.next();
+            if (isProjectOutputDirectory(project, element)) {
+                continue;
+            }
+            // Modules using generators for different Hibernate versions
+            // recognise different annotations.
+            final String key = ScanCache.fingerprint(
+                log,
+                Collections.singletonList(element),
+                settings.getPersistenceAnnotations().getKey()
+            );
+            ScanFindings elementFindings = reactorCache.getFindings(key);
+            if (elementFindings == null) {
+                final Path path = Paths.get(element);
+                if (settings.getJarScanCacheDirectory() != null
+                        && Files.isRegularFile(path)) {
+                    elementFindings = readOrScanJar(
+                        new JarScanCache(
+                            settings.getJarScanCacheDirectory(),
+                            settings.getPersistenceAnnotations(),
+                            log
+                        ),
+                        path,
+                        settings,
+                        log
+                    );
+                } else {
+                    elementFindings = scanElement(element, settings, log);
+                }
+                reactorCache.putFindings(key, elementFindings);
+            } else {
+                reused++;
+            }
+            allFindings.add(elementFindings.filterByPackages(packageNames));
+            iterator.remove();
+        }
+        if (reused > 0) {
+            log.info(
+                String.format(
+                    "Reused the scan results of %d classpath elements from "
+                        + "other modules of the reactor.",
+                    reused
+                )
+            );
+        }
+    }
+
+    /**
+     * Scans a single classpath element completely.
+     *
+     * @param element  The classpath element.
+     * @param settings The settings for the scan.
+     * @param log      The Maven log.
+     *
+     * @return The findings for the classpath element.
+     */
+    private static ScanFindings scanElement(
+        final String element, final ScanSettings settings, final Log log
+    ) {
+        try (ScanResult scanResult = scan(
+            createClassGraph().overrideClasspath(element), settings, log
+        )) {
+            return extractFindings(
+                scanResult, settings.getPersistenceAnnotations()
+            );
+        }
+    }
+
+    private static boolean isProjectOutputDirectory(
+        final MavenProject project, final String element
+    ) {
+        final Path path = Paths.get(element).toAbsolutePath();
+        return isSamePath(path, project.getBuild().getOutputDirectory())
+                   || isSamePath(
+                path, project.getBuild().getTestOutputDirectory()
+            );
+    }
+
+    /**
+     * Creates a {@link ClassGraph} instance which collects only the
+     * information needed for finding entities: Classes, including non-public
+     * ones, and their runtime visible annotations. Field, method and
+     * annotation parameter information is not needed.
+     *
+     * @return A new {@link ClassGraph} instance.
+     */
+    static ClassGraph createClassGraph() {
+        return new ClassGraph()
+            .enableClassInfo()
+            .ignoreClassVisibility()
+            .enableAnnotationInfo()
+            .disableRuntimeInvisibleAnnotations();
+    }
+
+    /**
+     * Runs the scan using the number of threads and the executor configured
+     * in the provided settings. The duration of the scan and the number of
+     * scanned classfiles and classpath elements are logged.
+     *
+     * @param classGraph The {@link ClassGraph} instance to use.
+     * @param settings   The settings for the scan.
+     * @param log        The Maven log.
+     *
+     * @return The result of the scan.
+     */
+    static ScanResult scan(
+        final ClassGraph classGraph,
+        final ScanSettings settings,
+        final Log log
+    ) {
+        final long start = System.nanoTime();
+
+        final ScanResult scanResult;
+        if (settings.isShareScanExecutor()) {
+            final int threads;
+            if (settings.getScanThreads() > 0) {
+                threads = settings.getScanThreads();
+            } else {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            final ExecutorService executor = SharedScanExecutor.getExecutor(
+                threads, log
+            );
+            scanResult = classGraph.scan(
+                executor, SharedScanExecutor.getPoolSize()
+            );
+        } else if (settings.getScanThreads() > 0) {
+            scanResult = classGraph.scan(settings.getScanThreads());
+        } else {
+            scanResult = classGraph.scan();
+        }
+
+        final long duration = TimeUnit.NANOSECONDS.toMillis(
+            System.nanoTime() - start
+        );
+        final List<File> classPathFiles = scanResult.getClasspathFiles();
+        final long jars = classPathFiles
+            .stream()
+            .filter(File::isFile)
+            .count();
+        log.info(
+            String.format(
+                "Scanned %d classfiles in %d JAR files and %d directories "
+                    + "in %d ms.",
+                scanResult.getAllClasses().size(),
+                jars,
+                classPathFiles.size() - jars,
+                duration
+            )
+        );
+
+        return scanResult;
+    }
+
+    /**
+     * Helper method for extracting the names of the entities, converters and
+     * annotated packages from a {@link ScanResult}.
+     *
+     * @param scanResult  The {@link ScanResult} to process.
+     * @param annotations The annotations of the {@link DdlGenerator}.
+     *
+     * @return The names of the classes and packages found.
+     */
+    static ScanFindings extractFindings(
+        final ScanResult scanResult, final PersistenceAnnotations annotations
+    ) {
+        return new ScanFindings(
             scanResult
-                .getClassesWithAnnotation(Converter.class)
-                .stream()
-                .map(ClassInfo::loadClass)
-                .collect(Collectors.toSet())
+                .getClassesWithAnnotation(annotations.getEntityAnnotation())
+                .getNames(),
+            scanResult
+                .getClassesWithAnnotation(annotations.getConverterAnnotation())
+                .getNames(),
+            scanResult
+                .getPackageInfo()
+                .filter(
+                    packageInfo -> hasPackageLevelAnnotation(
+                        packageInfo, annotations
+                    )
+                )
+                .getNames()
         );
+    }
 
-        return entityClasses;
+    /**
+     * Helper method for converting the entries of an {@link EntityIndex} to
+     * {@link ScanFindings}. Only the entries for the annotations of the
+     * {@link DdlGenerator} are used.
+     *
+     * @param entityIndex The index.
+     * @param annotations The annotations of the {@link DdlGenerator}.
+     *
+     * @return The names of the classes and packages in the index.
+     */
+    private static ScanFindings toFindings(
+        final EntityIndex entityIndex, final PersistenceAnnotations annotations
+    ) {
+        return new ScanFindings(
+            entityIndex.getNames(
+                Collections.singleton(annotations.getEntityAnnotation())
+            ),
+            entityIndex.getNames(
+                Collections.singleton(annotations.getConverterAnnotation())
+            ),
+            entityIndex.getNames(annotations.getPackageLevelAnnotations())
+        );
     }
 
     /**
-     * Finds all packages with Hibernate annotations on the package level.
+     * Reads the {@link EntityIndex} of a classpath element. The index of a JAR
+     * file is always used. The index in an output directory of the project is
+     * only used if it is not older than the sources of the project. The index
+     * is written by the annotation processor before the compiler writes the
+     * class files, therefore the modification times of the class files can't
+     * be used for this check. For other directories the index is not used
+     * because their sources are unknown.
+     *
+     * An index written by an older version of the annotation processor does
+     * not contain the annotations of the entries. It can't be used because
+     * the entries for the {@code javax.persistence} and the
+     * {@code jakarta.persistence} annotations can't be distinguished.
      *
-     * @return A {@link Set} with all packages annoated with package level
-     *         Hibernate annotations.
+     * @param project      The Maven project.
+     * @param scanElement  The classpath element.
+     * @param settings     The settings for the scan.
+     * @param log          The Maven log.
+     *
+     * @return The index or {@code null} if the classpath element has no usable
+     *         index.
      */
-    public Set<Package> findPackages() {
-        return scanResult
-            .getPackageInfo()
-            .filter(this::acceptPackagesWithPackageLevelAnnotations)
-            .stream()
-            .map(PackageInfo::getName)
-            .map(name -> classLoader.getDefinedPackage(name))
-            .collect(Collectors.toSet());
+    private static EntityIndex readEntityIndex(
+        final MavenProject project,
+        final String scanElement,
+        final ScanSettings settings,
+        final Log log
+    ) {
+        final EntityIndex entityIndex = readEntityIndex(
+            project, scanElement, log
+        );
+        if (entityIndex != null && entityIndex.isLegacyFormat()) {
+            log.info(
+                String.format(
+                    "Entity index of '%s' was created by an older version of "
+                        + "the annotation processor. Ignoring it.",
+                    scanElement
+                )
+            );
+            return null;
+        }
+        return entityIndex;
+    }
+
+    private static EntityIndex readEntityIndex(
+        final MavenProject project,
+        final String scanElement,
+        final Log log
+    ) {
+        final Path path = Paths.get(scanElement);
+        try {
+            if (Files.isDirectory(path)) {
+                final Path indexPath = path.resolve(EntityIndex.LOCATION);
+                if (!Files.isRegularFile(indexPath)) {
+                    return null;
+                }
+                final List<String> sourceRoots = getSourceRoots(
+                    project, scanElement
+                );
+                if (sourceRoots == null) {
+                    return null;
+                }
+                final long indexModified = Files
+                    .getLastModifiedTime(indexPath)
+                    .toMillis();
+                if (getNewestModificationTime(sourceRoots) > indexModified) {
+                    log.info(
+                        String.format(
+                            "Entity index of '%s' is older than the sources. "
+                                + "Ignoring it.",
+                            scanElement
+                        )
+                    );
+                    return null;
+                }
+                try (Reader reader = Files.newBufferedReader(
+                    indexPath, StandardCharsets.UTF_8
+                )) {
+                    return EntityIndex.read(reader);
+                }
+            } else if (Files.isRegularFile(path)) {
+                try (JarFile jarFile = new JarFile(path.toFile())) {
+                    final JarEntry entry = jarFile.getJarEntry(
+                        EntityIndex.LOCATION
+                    );
+                    if (entry == null) {
+                        return null;
+                    }
+                    try (Reader reader = new InputStreamReader(
+                        jarFile.getInputStream(entry), StandardCharsets.UTF_8
+                    )) {
+                        return EntityIndex.read(reader);
+                    }
+                }
+            } else {
+                return null;
+            }
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to read entity index of '%s'. Scanning it.",
+                    scanElement
+                ),
+                ex
+            );
+            return null;
+        }
+    }
+
+    private static List<String> getSourceRoots(
+        final MavenProject project, final String outputDirectory
+    ) {
+        final Path outputPath = Paths.get(outputDirectory).toAbsolutePath();
+        if (isSamePath(outputPath, project.getBuild().getOutputDirectory())) {
+            return project.getCompileSourceRoots();
+        } else if (isSamePath(
+            outputPath, project.getBuild().getTestOutputDirectory()
+        )) {
+            return project.getTestCompileSourceRoots();
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean isSamePath(final Path path, final String other) {
+        return other != null && path.equals(Paths.get(other).toAbsolutePath());
+    }
+
+    private static long getNewestModificationTime(
+        final List<String> directories
+    ) throws IOException {
+        long newest = 0;
+        for (final String directory : directories) {
+            final Path directoryPath = Paths.get(directory);
+            if (!Files.isDirectory(directoryPath)) {
+                continue;
+            }
+            try (Stream<Path> stream = Files.walk(directoryPath)) {
+                final List<Path> files = stream
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+                for (final Path file : files) {
+                    newest = Math.max(
+                        newest, Files.getLastModifiedTime(file).toMillis()
+                    );
+                }
+            }
+        }
+        return newest;
     }
 
     /**
@@ -302,35 +940,265 @@ final class EntityFinder {
         return url;
     }
 
+    /**
+     * Helper method for retrieving the classpath elements of the project.
+     *
+     * @param project            The Maven project.
+     * @param includeTestClasses Include the test classpath of the project?
+     *
+     * @return The classpath elements of the project.
+     *
+     * @throws MojoFailureException If the classpath can't be resolved.
+     */
+    private static List<String> getClassPathElements(
+        final MavenProject project,
+        final boolean includeTestClasses
+    ) throws MojoFailureException {
+        // The test classpath also contains the compile classpath, therefore
+        // duplicates are removed here.
+        final Set<String> classPathElements = new LinkedHashSet<>();
+        try {
+            classPathElements.addAll(project.getCompileClasspathElements());
+            if (includeTestClasses) {
+                classPathElements.addAll(project.getTestClasspathElements());
+            }
+        } catch (DependencyResolutionRequiredException ex) {
+            throw new MojoFailureException(
+                "Failed to resolve project classpath.", ex
+            );
+        }
+        return new ArrayList<>(classPathElements);
+    }
+
+    /**
+     * Helper method for determining the classpath elements to scan.
+     *
+     * @param project           The Maven project.
+     * @param log               The Maven log.
+     * @param classPathElements All classpath elements of the project.
+     * @param settings          The settings for the scan.
+     *
+     * @return The classpath elements to scan.
+     */
+    private static List<String> getScanElements(
+        final MavenProject project,
+        final Log log,
+        final List<String> classPathElements,
+        final ScanSettings settings
+    ) {
+        if (settings.getScanScope() == ScanScope.CLASSPATH) {
+            return classPathElements;
+        }
+
+        final Set<String> scanElements = new LinkedHashSet<>();
+        addIfExists(scanElements, project.getBuild().getOutputDirectory());
+        if (settings.isIncludeTestClasses()) {
+            addIfExists(
+                scanElements, project.getBuild().getTestOutputDirectory()
+            );
+        }
+
+        final String[] scanArtifacts = settings.getScanArtifacts();
+        if (scanArtifacts.length > 0) {
+            for (final Artifact artifact : project.getArtifacts()) {
+                if (artifact.getFile() != null
+                        && matchesAnyPattern(artifact, scanArtifacts)) {
+                    log.info(
+                        String.format(
+                            "Including artifact %s:%s into the scan.",
+                            artifact.getGroupId(),
+                            artifact.getArtifactId()
+                        )
+                    );
+                    scanElements.add(artifact.getFile().getAbsolutePath());
+                }
+            }
+        }
+
+        return new ArrayList<>(scanElements);
+    }
+
+    private static void addIfExists(
+        final Set<String> elements, final String directory
+    ) {
+        if (directory != null && new File(directory).exists()) {
+            elements.add(directory);
+        }
+    }
+
+    /**
+     * Checks if an artifact matches one of the provided patterns. A pattern
+     * has the form {@code groupId:artifactId}. Both parts may contain
+     * {@code *} as wildcard. If the pattern contains no colon, it is only
+     * matched against the group ID.
+     *
+     * @param artifact The artifact to check.
+     * @param patterns The patterns.
+     *
+     * @return {@code true} if the artifact matches at least one of the
+     *         patterns, {@code false} otherwise.
+     */
+    private static boolean matchesAnyPattern(
+        final Artifact artifact, final String[] patterns
+    ) {
+        for (final String pattern : patterns) {
+            final String trimmed = pattern.trim();
+            final int colon = trimmed.indexOf(':');
+            final String groupIdPattern;
+            final String artifactIdPattern;
+            if (colon < 0) {
+                groupIdPattern = trimmed;
+                artifactIdPattern = "*";
+            } else {
+                groupIdPattern = trimmed.substring(0, colon);
+                artifactIdPattern = trimmed.substring(colon + 1);
+            }
+
+            if (matchesWildcard(artifact.getGroupId(), groupIdPattern)
+                    && matchesWildcard(
+                    artifact.getArtifactId(), artifactIdPattern
+                )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a value matches a pattern in which {@code *} can be used as
+     * wildcard.
+     *
+     * @param value   The value to check.
+     * @param pattern The pattern.
+     *
+     * @return {@code true} if the value matches the pattern.
+     */
+    static boolean matchesWildcard(
+        final String value, final String pattern
+    ) {
+        final StringBuilder regex = new StringBuilder();
+        for (final String part : pattern.split("\\*", -1)) {
+            if (regex.length() > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(part));
+        }
+        return value != null && value.matches(regex.toString());
+    }
+
+    /**
+     * Helper method for creating the class loader which has access to the
+     * classes of the project.
+     *
+     * @param classPathElements The classpath elements of the project.
+     * @param parent            The parent class loader.
+     * @param log               The Maven log.
+     *
+     * @return A class loader for the classpath of the project.
+     *
+     * @throws MojoFailureException If a classpath element can't be converted
+     *                              to an URL.
+     */
+    private static ClassLoader createClassLoader(
+        final List<String> classPathElements,
+        final ClassLoader parent,
+        final Log log
+    ) throws MojoFailureException {
+        final List<URL> classPathUrls = new ArrayList<>();
+        for (final String classPathElem : classPathElements) {
+            log.info(
+                String.format(
+                    "Adding classpath elemement '%s'...", classPathElem
+                )
+            );
+            classPathUrls.add(classPathElemToUrl(classPathElem));
+        }
+
+        log.info("Classpath URLs:");
+        for (final URL url : classPathUrls) {
+            log.info(String.format("\t%s", url.toString()));
+        }
+
+        return AccessController.doPrivileged(
+            new ClassLoaderCreator(classPathUrls, parent)
+        );
+    }
+
+    /**
+     * Helper method for creating a class loader which uses a class loader
+     * from the {@link ReactorCache} for the dependencies of the project. The
+     * dependencies (all classpath elements except the output directories of
+     * the project) are loaded by a shared class loader which is reused by all
+     * modules with the same dependencies. Only the output directories of the
+     * project are loaded by a class loader specific for the project.
+     *
+     * @param project           The Maven project.
+     * @param classPathElements The classpath elements of the project.
+     * @param reactorCache      The reactor cache.
+     * @param log               The Maven log.
+     *
+     * @return A class loader for the classpath of the project.
+     *
+     * @throws MojoFailureException If a classpath element can't be converted
+     *                              to an URL.
+     */
+    private static ClassLoader createSharedClassLoader(
+        final MavenProject project,
+        final List<String> classPathElements,
+        final ReactorCache reactorCache,
+        final Log log
+    ) throws MojoFailureException {
+        final List<String> projectElements = new ArrayList<>();
+        final List<String> dependencyElements = new ArrayList<>();
+        for (final String element : classPathElements) {
+            if (isProjectOutputDirectory(project, element)) {
+                projectElements.add(element);
+            } else {
+                dependencyElements.add(element);
+            }
+        }
+
+        // The shared class loader must not depend on the context class loader
+        // of the thread which happens to create it.
+        final ClassLoader dependencyClassLoader = reactorCache.getClassLoader(
+            dependencyElements,
+            elements -> createClassLoader(
+                elements, EntityFinder.class.getClassLoader(), log
+            )
+        );
+        return createClassLoader(projectElements, dependencyClassLoader, log);
+    }
+
     private static class ClassLoaderCreator implements
         PrivilegedAction<ClassLoader> {
 
         private final transient List<URL> classPathUrls;
 
-        public ClassLoaderCreator(final List<URL> classPathUrls) {
+        private final transient ClassLoader parent;
+
+        public ClassLoaderCreator(
+            final List<URL> classPathUrls, final ClassLoader parent
+        ) {
             this.classPathUrls = classPathUrls;
+            this.parent = parent;
         }
 
         @Override
         public ClassLoader run() {
-
-            final URLClassLoader classLoader = new URLClassLoader(
-                classPathUrls.toArray(URL[]::new),
-                Thread.currentThread().getContextClassLoader()
+            return new URLClassLoader(
+                classPathUrls.toArray(URL[]::new), parent
             );
-            Thread.currentThread().setContextClassLoader(classLoader);
-
-            return classLoader;
         }
 
     }
 
-    private boolean acceptPackagesWithPackageLevelAnnotations(
-        final PackageInfo packageInfo
+    private static boolean hasPackageLevelAnnotation(
+        final PackageInfo packageInfo, final PersistenceAnnotations annotations
     ) {
         boolean hasPackageLevelAnnotation = false;
 
-        for (String packageLevelAnnotation : PACKAGE_LEVEL_ANNOTATIONS) {
+        for (String packageLevelAnnotation
+                 : annotations.getPackageLevelAnnotations()) {
             hasPackageLevelAnnotation = hasPackageLevelAnnotation || packageInfo
                 .hasAnnotation(packageLevelAnnotation);
         }
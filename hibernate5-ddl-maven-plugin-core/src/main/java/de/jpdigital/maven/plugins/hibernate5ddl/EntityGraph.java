@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The graph of the references between entity classes. An entity references
+ * another entity if one of its persistent attributes (including the
+ * attributes of its mapped superclasses and of the embeddables it uses) has
+ * the type of the other entity, either directly, as element of an array or as
+ * type argument, for example of a collection. Only fields and getters which
+ * are neither static nor transient (by modifier or by the {@code @Transient}
+ * annotation) are considered. An attribute with the type of a mapped
+ * superclass references all entities extending the mapped superclass. An
+ * entity also references its entity superclass and all of its entity
+ * subclasses, because a reference to an entity can point to an instance of a
+ * subclass.
+ *
+ * Only the types of the attributes are inspected. References declared using
+ * the {@code targetEntity} attribute of an association annotation on an
+ * attribute with an interface type are not found.
+ *
+ * The graph is built using reflection. The classes are not initialized.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class EntityGraph {
+
+    private final Set<Class<?>> entityClasses;
+
+    private final PersistenceAnnotations annotations;
+
+    private final Map<Class<?>, Set<Class<?>>> references;
+
+    /**
+     * Builds the graph for the provided entity classes.
+     *
+     * @param entityClasses The entity classes.
+     * @param annotations   The annotations of the {@link DdlGenerator}, used
+     *                      to recognise embeddables, mapped superclasses and
+     *                      transient attributes.
+     * @param log           The Maven log, used to report classes which can't
+     *                      be inspected.
+     */
+    EntityGraph(
+        final Collection<Class<?>> entityClasses,
+        final PersistenceAnnotations annotations,
+        final Log log
+    ) {
+        this.entityClasses = Collections.unmodifiableSet(
+            new LinkedHashSet<>(entityClasses)
+        );
+        this.annotations = annotations;
+        this.references = new HashMap<>();
+        for (final Class<?> entityClass : this.entityClasses) {
+            references.put(entityClass, findReferences(entityClass, log));
+        }
+    }
+
+    public Set<Class<?>> getEntityClasses() {
+        return entityClasses;
+    }
+
+    /**
+     * @param entityClass An entity class of the graph.
+     *
+     * @return The entity classes directly referenced by the provided entity
+     *         class.
+     */
+    public Set<Class<?>> getReferences(final Class<?> entityClass) {
+        return Collections.unmodifiableSet(
+            references.getOrDefault(entityClass, Collections.emptySet())
+        );
+    }
+
+    /**
+     * Determines the entity classes which are reachable from the provided
+     * root entities. The root entities are part of the result.
+     *
+     * @param roots The root entities.
+     *
+     * @return The reachable entity classes.
+     */
+    public Set<Class<?>> getReachableFrom(final Collection<Class<?>> roots) {
+        final Set<Class<?>> reachable = new LinkedHashSet<>();
+        final Deque<Class<?>> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            final Class<?> current = queue.poll();
+            if (reachable.add(current)) {
+                queue.addAll(getReferences(current));
+            }
+        }
+        return reachable;
+    }
+
+    private Set<Class<?>> findReferences(
+        final Class<?> entityClass, final Log log
+    ) {
+        final Set<Class<?>> found = new LinkedHashSet<>();
+        final Set<Class<?>> visited = new HashSet<>();
+        final Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(entityClass);
+        while (!queue.isEmpty()) {
+            final Class<?> current = queue.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+            try {
+                // The attributes of mapped superclasses belong to the
+                // entity. An entity superclass is a node of its own.
+                final Class<?> superclass = current.getSuperclass();
+                if (superclass != null && entityClasses.contains(superclass)) {
+                    found.add(superclass);
+                } else if (superclass != null && isAnnotated(
+                    superclass, annotations.getMappedSuperclassAnnotation()
+                )) {
+                    queue.add(superclass);
+                }
+                final List<Class<?>> targets = new ArrayList<>();
+                for (final Field field : current.getDeclaredFields()) {
+                    if (isPersistent(field, field.getModifiers())) {
+                        addRawTypes(field.getGenericType(), targets);
+                    }
+                }
+                for (final Method method : current.getDeclaredMethods()) {
+                    if (isGetter(method)
+                            && isPersistent(method, method.getModifiers())) {
+                        addRawTypes(method.getGenericReturnType(), targets);
+                    }
+                }
+                for (final Class<?> target : targets) {
+                    addTarget(entityClass, target, found, queue);
+                }
+            } catch (LinkageError ex) {
+                log.warn(
+                    String.format(
+                        "Failed to inspect class '%s' for references to "
+                            + "other entities: %s",
+                        current.getName(),
+                        ex.getMessage()
+                    )
+                );
+            }
+        }
+
+        // References to a superclass entity can point to instances of the
+        // entity subclasses.
+        for (final Class<?> candidate : entityClasses) {
+            if (candidate != entityClass
+                    && entityClass.isAssignableFrom(candidate)) {
+                found.add(candidate);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Processes the type of a persistent attribute: Entities are added to
+     * the references, embeddables are inspected like the entity itself. For
+     * the type of a mapped superclass all entities extending it are added to
+     * the references. Other types are ignored.
+     */
+    private void addTarget(
+        final Class<?> entityClass,
+        final Class<?> target,
+        final Set<Class<?>> found,
+        final Deque<Class<?>> queue
+    ) {
+        if (target == entityClass || isJdkType(target)) {
+            return;
+        }
+        if (entityClasses.contains(target)) {
+            found.add(target);
+        } else if (isAnnotated(target, annotations.getEmbeddableAnnotation())) {
+            queue.add(target);
+        } else if (isAnnotated(
+            target, annotations.getMappedSuperclassAnnotation()
+        )) {
+            for (final Class<?> candidate : entityClasses) {
+                if (candidate != entityClass
+                        && target.isAssignableFrom(candidate)) {
+                    found.add(candidate);
+                }
+            }
+        }
+    }
+
+    private boolean isPersistent(
+        final AnnotatedElement member, final int modifiers
+    ) {
+        return !Modifier.isStatic(modifiers)
+                   && !Modifier.isTransient(modifiers)
+                   && !isAnnotated(
+                member, annotations.getTransientAnnotation()
+            );
+    }
+
+    private static boolean isGetter(final Method method) {
+        if (method.getParameterCount() != 0
+                || method.isSynthetic()
+                || method.isBridge()) {
+            return false;
+        }
+        final String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return method.getReturnType() != void.class;
+        }
+        return name.startsWith("is")
+                   && name.length() > 2
+                   && (method.getReturnType() == boolean.class
+                           || method.getReturnType() == Boolean.class);
+    }
+
+    private static boolean isAnnotated(
+        final AnnotatedElement element, final String annotation
+    ) {
+        for (final Annotation present : element.getDeclaredAnnotations()) {
+            if (present.annotationType().getName().equals(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addRawTypes(
+        final Type type, final Collection<Class<?>> types
+    ) {
+        if (type instanceof Class) {
+            final Class<?> clazz = (Class<?>) type;
+            if (clazz.isArray()) {
+                addRawTypes(clazz.getComponentType(), types);
+            } else if (!clazz.isPrimitive()) {
+                types.add(clazz);
+            }
+        } else if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterizedType
+                = (ParameterizedType) type;
+            addRawTypes(parameterizedType.getRawType(), types);
+            for (final Type argument
+                     : parameterizedType.getActualTypeArguments()) {
+                addRawTypes(argument, types);
+            }
+        } else if (type instanceof GenericArrayType) {
+            addRawTypes(
+                ((GenericArrayType) type).getGenericComponentType(), types
+            );
+        } else if (type instanceof WildcardType) {
+            for (final Type bound : ((WildcardType) type).getUpperBounds()) {
+                addRawTypes(bound, types);
+            }
+        } else if (type instanceof TypeVariable) {
+            // Only the raw types of the bounds are used, bounds like
+            // T extends Comparable<T> would cause an endless recursion
+            // otherwise.
+            for (final Type bound : ((TypeVariable<?>) type).getBounds()) {
+                if (bound instanceof ParameterizedType) {
+                    addRawTypes(
+                        ((ParameterizedType) bound).getRawType(), types
+                    );
+                } else if (bound instanceof Class) {
+                    addRawTypes(bound, types);
+                }
+            }
+        }
+    }
+
+    private static boolean isJdkType(final Class<?> clazz) {
+        final String name = clazz.getName();
+        return name.startsWith("java.") || name.startsWith("javax.")
+                   || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A partition of the entities created by the {@link EntityPartitioner}. The
+ * tables of the entities owned by the partition are created by the export
+ * of the partition. The metadata of the partition also contains the
+ * entities referenced by the owned entities, otherwise Hibernate could not
+ * bind the associations. Their tables are created by the partitions owning
+ * them.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class EntityPartition {
+
+    private final String name;
+
+    private final Set<String> ownedClassNames;
+
+    private final Set<String> classNames;
+
+    EntityPartition(
+        final String name,
+        final Set<String> ownedClassNames,
+        final Set<String> classNames
+    ) {
+        this.name = name;
+        this.ownedClassNames = Collections.unmodifiableSet(
+            new LinkedHashSet<>(ownedClassNames)
+        );
+        final Set<String> allClassNames = new LinkedHashSet<>(
+            ownedClassNames
+        );
+        allClassNames.addAll(classNames);
+        this.classNames = Collections.unmodifiableSet(allClassNames);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The names of the entity classes owned by this partition.
+     */
+    public Set<String> getOwnedClassNames() {
+        return ownedClassNames;
+    }
+
+    /**
+     * @return The names of all entity classes in the metadata of this
+     *         partition: The owned entities and the entities referenced by
+     *         them.
+     */
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s (%d entities, %d with referenced entities)",
+            name,
+            ownedClassNames.size(),
+            classNames.size()
+        );
+    }
+
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the entities into {@link EntityPartition}s as configured by
+ * {@link GenerateDdlMojo#getPartitioning()}. A {@link DdlGenerator} builds
+ * and exports the metadata of each partition separately, therefore the
+ * memory needed depends on the size of the largest partition instead of the
+ * size of the complete model.
+ *
+ * Each partition is closed: Its metadata contains the entities referenced by
+ * the owned entities (see {@link EntityGraph#getReachableFrom(java.util.Collection)}).
+ * With {@link Partitioning#GRAPH} the partitions are the groups of connected
+ * entities, therefore the metadata of a partition contains only the owned
+ * entities. With the other modes entities may be part of the metadata of
+ * several partitions, but they are owned by exactly one partition.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class EntityPartitioner {
+
+    private EntityPartitioner() {
+        // Only static methods
+    }
+
+    /**
+     * Creates the partitions for the provided entity sources.
+     *
+     * @param entitySources The entity sources.
+     * @param annotations   The annotations bound by the {@link DdlGenerator},
+     *                      used to build the {@link EntityGraph}.
+     * @param mojo          The {@link GenerateDdlMojo} providing the
+     *                      configuration of the partitioning.
+     *
+     * @return The partitions. An empty list if partitioning is disabled or
+     *         if all entities are in one partition. In that case the
+     *         metadata for all entities should be built at once.
+     *
+     * @throws MojoFailureException If the configuration is invalid or the
+     *                              entity classes can't be loaded.
+     */
+    public static List<EntityPartition> partition(
+        final EntitySources entitySources,
+        final PersistenceAnnotations annotations,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        final Partitioning partitioning = convertPartitioning(
+            mojo.getPartitioning()
+        );
+        if (partitioning == Partitioning.NONE) {
+            return Collections.emptyList();
+        }
+        final Log log = mojo.getLog();
+        if (!entitySources.getMappingFiles().isEmpty()) {
+            log.warn(
+                "Partitioned metadata building is not supported together "
+                    + "with mapping files. The metadata for all entities is "
+                    + "built at once."
+            );
+            return Collections.emptyList();
+        }
+
+        final Set<String> entityClassNames = entitySources
+            .getEntityClassNames();
+        final List<Class<?>> entityClasses = new ArrayList<>();
+        for (final Class<?> clazz : entitySources.getAnnotatedClasses()) {
+            if (entityClassNames.contains(clazz.getName())) {
+                entityClasses.add(clazz);
+            }
+        }
+        final EntityGraph graph = new EntityGraph(
+            entityClasses, annotations, log
+        );
+
+        final List<EntityPartition> partitions;
+        switch (partitioning) {
+            case GRAPH:
+                partitions = combine(
+                    groupByReferences(graph), graph, mojo.getMaxPartitionSize()
+                );
+                break;
+            case PACKAGE:
+                partitions = combine(
+                    groupByPackage(graph), graph, mojo.getMaxPartitionSize()
+                );
+                break;
+            case EXPLICIT:
+                partitions = combine(
+                    groupByPatterns(graph, mojo.getPartitions(), log), graph, 0
+                );
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    String.format("Unsupported partitioning %s.", partitioning)
+                );
+        }
+
+        if (partitions.size() <= 1) {
+            log.info(
+                "All entities are in one partition. The metadata for all "
+                    + "entities is built at once."
+            );
+            return Collections.emptyList();
+        }
+        log.info(
+            String.format(
+                "Split %d entities into %d partitions by %s. The largest "
+                    + "partition contains %d entities.",
+                entityClasses.size(),
+                partitions.size(),
+                partitioning.toString().toLowerCase(Locale.ROOT),
+                partitions
+                    .stream()
+                    .mapToInt(partition -> partition.getClassNames().size())
+                    .max()
+                    .orElse(0)
+            )
+        );
+        for (final EntityPartition partition : partitions) {
+            log.debug(String.format("Partition %s", partition));
+        }
+        return partitions;
+    }
+
+    private static Partitioning convertPartitioning(final String partitioning)
+        throws MojoFailureException {
+        if (partitioning == null || partitioning.isEmpty()) {
+            return Partitioning.NONE;
+        }
+
+        try {
+            return Partitioning.valueOf(
+                partitioning.toUpperCase(Locale.ENGLISH)
+            );
+        } catch (IllegalArgumentException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Invalid partitioning '%s'. Available partitionings are: "
+                        + "%s",
+                    partitioning,
+                    Arrays.toString(Partitioning.values())
+                ),
+                ex
+            );
+        }
+    }
+
+    /**
+     * Groups the entities by the connected components of the entity graph.
+     * The direction of the references is ignored.
+     */
+    private static Map<String, List<Class<?>>> groupByReferences(
+        final EntityGraph graph
+    ) {
+        final Map<Class<?>, Set<Class<?>>> neighbours = new HashMap<>();
+        for (final Class<?> entityClass : graph.getEntityClasses()) {
+            for (final Class<?> reference : graph.getReferences(entityClass)) {
+                neighbours
+                    .computeIfAbsent(entityClass, key -> new LinkedHashSet<>())
+                    .add(reference);
+                neighbours
+                    .computeIfAbsent(reference, key -> new LinkedHashSet<>())
+                    .add(entityClass);
+            }
+        }
+
+        final Map<String, List<Class<?>>> groups = new LinkedHashMap<>();
+        final Set<Class<?>> visited = new HashSet<>();
+        for (final Class<?> entityClass : graph.getEntityClasses()) {
+            if (visited.contains(entityClass)) {
+                continue;
+            }
+            final List<Class<?>> group = new ArrayList<>();
+            final Deque<Class<?>> queue = new ArrayDeque<>();
+            queue.add(entityClass);
+            while (!queue.isEmpty()) {
+                final Class<?> current = queue.poll();
+                if (visited.add(current)) {
+                    group.add(current);
+                    queue.addAll(
+                        neighbours.getOrDefault(
+                            current, Collections.emptySet()
+                        )
+                    );
+                }
+            }
+            groups.put(
+                String.format("references-%d", groups.size() + 1), group
+            );
+        }
+        return groups;
+    }
+
+    private static Map<String, List<Class<?>>> groupByPackage(
+        final EntityGraph graph
+    ) {
+        final Map<String, List<Class<?>>> groups = new TreeMap<>();
+        for (final Class<?> entityClass : graph.getEntityClasses()) {
+            groups
+                .computeIfAbsent(
+                    entityClass.getPackageName(), key -> new ArrayList<>()
+                )
+                .add(entityClass);
+        }
+        return groups;
+    }
+
+    /**
+     * Groups the entities using the configured partitions. Each partition is
+     * a comma separated list of patterns for the class names, {@code *} can
+     * be used as wildcard. An entity belongs to the first partition matching
+     * it.
+     */
+    private static Map<String, List<Class<?>>> groupByPatterns(
+        final EntityGraph graph, final String[] partitions, final Log log
+    ) throws MojoFailureException {
+        if (partitions.length == 0) {
+            throw new MojoFailureException(
+                "The partitioning 'explicit' requires at least one partition "
+                    + "in the partitions parameter."
+            );
+        }
+
+        final Map<String, List<Class<?>>> groups = new LinkedHashMap<>();
+        final Set<Class<?>> unmatched = new LinkedHashSet<>(
+            graph.getEntityClasses()
+        );
+        for (int i = 0; i < partitions.length; i++) {
+            final List<String> patterns = Arrays
+                .stream(partitions[i].split(","))
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .collect(Collectors.toList());
+            final List<Class<?>> group = new ArrayList<>();
+            for (final Class<?> entityClass : new ArrayList<>(unmatched)) {
+                if (matchesAny(entityClass.getName(), patterns)) {
+                    group.add(entityClass);
+                    unmatched.remove(entityClass);
+                }
+            }
+            if (group.isEmpty()) {
+                log.warn(
+                    String.format(
+                        "The partition '%s' does not match any entity.",
+                        partitions[i]
+                    )
+                );
+            } else {
+                groups.put(String.format("partition-%d", i + 1), group);
+            }
+        }
+        if (!unmatched.isEmpty()) {
+            groups.put("unmatched", new ArrayList<>(unmatched));
+        }
+        return groups;
+    }
+
+    private static boolean matchesAny(
+        final String className, final Collection<String> patterns
+    ) {
+        for (final String pattern : patterns) {
+            if (EntityFinder.matchesWildcard(className, pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the partitions from the groups. Consecutive groups are
+     * combined as long as the metadata of the combined partition contains
+     * at most {@code maxPartitionSize} entities, otherwise a graph with many
+     * small groups would result in many small metadata builds.
+     *
+     * @param groups           The groups of owned entities.
+     * @param graph            The entity graph.
+     * @param maxPartitionSize The maximum number of entities in a combined
+     *                         partition. If {@code 0} or less groups are not
+     *                         combined. A single group larger than this
+     *                         size is not split.
+     *
+     * @return The partitions.
+     */
+    private static List<EntityPartition> combine(
+        final Map<String, List<Class<?>>> groups,
+        final EntityGraph graph,
+        final int maxPartitionSize
+    ) {
+        final List<EntityPartition> partitions = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final Set<Class<?>> owned = new LinkedHashSet<>();
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        for (final Map.Entry<String, List<Class<?>>> group
+                 : groups.entrySet()) {
+            final Set<Class<?>> groupClasses = graph.getReachableFrom(
+                group.getValue()
+            );
+            if (!owned.isEmpty()) {
+                final Set<Class<?>> combined = new HashSet<>(classes);
+                combined.addAll(groupClasses);
+                if (combined.size() > maxPartitionSize) {
+                    partitions.add(createPartition(names, owned, classes));
+                    names.clear();
+                    owned.clear();
+                    classes.clear();
+                }
+            }
+            names.add(group.getKey());
+            owned.addAll(group.getValue());
+            classes.addAll(groupClasses);
+        }
+        if (!owned.isEmpty()) {
+            partitions.add(createPartition(names, owned, classes));
+        }
+        return partitions;
+    }
+
+    private static EntityPartition createPartition(
+        final List<String> names,
+        final Set<Class<?>> owned,
+        final Set<Class<?>> classes
+    ) {
+        final String name;
+        if (names.size() == 1) {
+            name = names.get(0);
+        } else {
+            name = String.format(
+                "%s..%s", names.get(0), names.get(names.size() - 1)
+            );
+        }
+        return new EntityPartition(name, toNames(owned), toNames(classes));
+    }
+
+    private static Set<String> toNames(final Set<Class<?>> classes) {
+        return classes
+            .stream()
+            .map(Class::getName)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The sources from which a {@link DdlGenerator} builds the Hibernate metadata:
+ * The names of the entity classes, the converter classes and the packages with
+ * package level Hibernate annotations, together with the class loader which
+ * is able to load them.
+ *
+ * The classes are not loaded before they are requested using
+ * {@link #getAnnotatedClasses()}. They are loaded without being initialized,
+ * therefore static initializers of the entity classes are not executed by the
+ * plugin.
+ *
+ * The class loader is created for one execution of the plugin. It is closed
+ * by {@link #close()}, which must be invoked after the DDL files have been
+ * generated. Otherwise the class loader, the loaded classes and everything
+ * referenced by them stay in memory as long as the JVM runs, which matters in
+ * long running JVMs like the Maven daemon or IDEs. The filtered copies created
+ * by the {@link EntityFilter} share the class loader, therefore closing one of
+ * them is sufficient.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class EntitySources implements Closeable {
+
+    private final ScanFindings findings;
+
+    private final ClassLoader classLoader;
+
+    private final String persistenceUnitName;
+
+    private final Set<String> mappingFiles;
+
+    private Set<Class<?>> annotatedClasses;
+
+    EntitySources(final ScanFindings findings, final ClassLoader classLoader) {
+        this(findings, classLoader, null, Collections.emptyList());
+    }
+
+    EntitySources(
+        final ScanFindings findings,
+        final ClassLoader classLoader,
+        final String persistenceUnitName,
+        final Collection<String> mappingFiles
+    ) {
+        this.findings = Objects.requireNonNull(findings);
+        this.classLoader = Objects.requireNonNull(classLoader);
+        this.persistenceUnitName = persistenceUnitName;
+        this.mappingFiles = Collections.unmodifiableSet(
+            new LinkedHashSet<>(mappingFiles)
+        );
+    }
+
+    /**
+     * @return The class loader which has access to the entity classes. A
+     *         {@link DdlGenerator} should make this class loader available to
+     *         Hibernate.
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * @return The names of all classes annotated with {@code @Entity}.
+     */
+    public Set<String> getEntityClassNames() {
+        return findings.getEntityClassNames();
+    }
+
+    /**
+     * @return The names of all classes annotated with {@code @Converter}.
+     */
+    public Set<String> getConverterClassNames() {
+        return findings.getConverterClassNames();
+    }
+
+    /**
+     * @return The names of all packages with package level Hibernate
+     *         annotations.
+     */
+    public Set<String> getPackageNames() {
+        return findings.getPackageNames();
+    }
+
+    /**
+     * @return The name of the persistence unit from which the entities were
+     *         taken, or {@code null} if the entities were found by scanning
+     *         the classpath. If set, a {@link DdlGenerator} should only use
+     *         the properties of this persistence unit.
+     */
+    public String getPersistenceUnitName() {
+        return persistenceUnitName;
+    }
+
+    /**
+     * @return The mapping files (for example {@code META-INF/orm.xml}) which
+     *         have to be added to the metadata. The mapping files are
+     *         resources of the class loader.
+     */
+    public Set<String> getMappingFiles() {
+        return mappingFiles;
+    }
+
+    /**
+     * Loads the entity classes and the converter classes. The classes are
+     * loaded on the first invocation of this method and are not initialized.
+     *
+     * @return The entity classes and the converter classes.
+     *
+     * @throws MojoFailureException If one of the classes can't be loaded.
+     */
+    public synchronized Set<Class<?>> getAnnotatedClasses()
+        throws MojoFailureException {
+        if (annotatedClasses == null) {
+            final Set<Class<?>> classes = new LinkedHashSet<>();
+            for (final String className : findings.getEntityClassNames()) {
+                classes.add(loadClass(className));
+            }
+            for (final String className : findings.getConverterClassNames()) {
+                classes.add(loadClass(className));
+            }
+            annotatedClasses = Collections.unmodifiableSet(classes);
+        }
+        return annotatedClasses;
+    }
+
+    ScanFindings getFindings() {
+        return findings;
+    }
+
+    /**
+     * Creates a copy of this instance with other findings.
+     *
+     * @param otherFindings The findings to use.
+     *
+     * @return A new {@code EntitySources} instance with the same class loader,
+     *         persistence unit and mapping files.
+     */
+    EntitySources withFindings(final ScanFindings otherFindings) {
+        return new EntitySources(
+            otherFindings, classLoader, persistenceUnitName, mappingFiles
+        );
+    }
+
+    /**
+     * Closes the class loader and releases the loaded classes. Class loaders
+     * shared by several executions (see {@link ReactorCache}) are only parents
+     * of the class loader of this instance and are not closed.
+     *
+     * @throws IOException If the class loader can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        annotatedClasses = null;
+        if (classLoader instanceof URLClassLoader) {
+            ((URLClassLoader) classLoader).close();
+        }
+    }
+
+    private Class<?> loadClass(final String className)
+        throws MojoFailureException {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            throw new MojoFailureException(
+                String.format("Failed to load class '%s'.", className), ex
+            );
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * The main class of a forked JVM started by the {@link ForkedWorkers}. The
+ * worker reads a single request from {@code System.in}, generates the DDL
+ * files for the dialects in the request and streams the log entries and the
+ * generated DDL back using {@code System.out} (see {@link DaemonProtocol}).
+ * The DDL files are written by the Maven JVM. Everything else written to
+ * {@code System.out}, for example by Hibernate, is redirected to
+ * {@code System.err}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ForkedWorker {
+
+    private final OutputStream output;
+
+    private ForkedWorker(final OutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Runs the worker. Exits with status {@code 0} if the DDL files have been
+     * generated.
+     *
+     * @param args Not used.
+     *
+     * @throws IOException If the request can't be read or the response can't
+     *                     be written.
+     */
+    public static void main(final String[] args) throws IOException {
+        final OutputStream output = new BufferedOutputStream(
+            new FileOutputStream(FileDescriptor.out)
+        );
+        System.setOut(System.err);
+
+        final Properties request = DaemonProtocol.read(System.in);
+        final boolean success = new ForkedWorker(output).generate(request);
+        output.flush();
+        System.exit(success ? 0 : 1);
+    }
+
+    private boolean generate(final Properties request) throws IOException {
+        final StreamingLog log = new StreamingLog(
+            Boolean.parseBoolean(request.getProperty(DaemonProtocol.DEBUG))
+        );
+        final Properties status = new Properties();
+        try {
+            final EntitySources entitySources = RemoteGeneration
+                .createEntitySources(
+                    request,
+                    DaemonProtocol.split(
+                        request.getProperty(DaemonProtocol.CLASSPATH)
+                    ),
+                    ForkedWorker.class.getClassLoader()
+                );
+            try {
+                final GenerateDdlMojo mojo = new StreamingMojo();
+                RemoteGeneration.configure(mojo, request, log);
+                mojo.generateDdlInProcess(entitySources);
+            } finally {
+                entitySources.close();
+            }
+            status.setProperty(DaemonProtocol.STATUS, DaemonProtocol.STATUS_OK);
+        } catch (MojoFailureException | IOException | RuntimeException
+                     | LinkageError ex) {
+            log.error("Failed to generate the DDL files.", ex);
+            status.setProperty(
+                DaemonProtocol.STATUS, DaemonProtocol.STATUS_ERROR
+            );
+            status.setProperty(
+                DaemonProtocol.MESSAGE, String.valueOf(ex.getMessage())
+            );
+        }
+        send(status);
+        return DaemonProtocol.STATUS_OK.equals(
+            status.getProperty(DaemonProtocol.STATUS)
+        );
+    }
+
+    /**
+     * Sends a message to the Maven JVM. Synchronized because the DDL files of
+     * several dialects may be generated in parallel.
+     *
+     * @param message The message to send.
+     *
+     * @throws IOException If the message can't be written.
+     */
+    private synchronized void send(final Properties message)
+        throws IOException {
+        DaemonProtocol.write(output, message);
+    }
+
+    /**
+     * Streams the log entries to the Maven JVM.
+     */
+    private class StreamingLog extends RemoteLog {
+
+        StreamingLog(final boolean debugEnabled) {
+            super(debugEnabled);
+        }
+
+        @Override
+        protected void add(final String level, final String message) {
+            final Properties entry = new Properties();
+            entry.setProperty(DaemonProtocol.TYPE, DaemonProtocol.TYPE_LOG);
+            entry.setProperty(DaemonProtocol.LEVEL, level);
+            entry.setProperty(DaemonProtocol.MESSAGE, message);
+            try {
+                send(entry);
+            } catch (IOException ex) {
+                System.err.printf("[%s] %s%n", level, message);
+            }
+        }
+
+    }
+
+    /**
+     * Streams the generated DDL to the Maven JVM instead of writing the
+     * files.
+     */
+    private class StreamingMojo extends GenerateDdlMojo {
+
+        @Override
+        protected void writeOutputFile(
+            final String dialectClassName,
+            final String ddl,
+            final EntitySources entitySources
+        ) throws MojoFailureException {
+            final Properties result = new Properties();
+            result.setProperty(DaemonProtocol.TYPE, DaemonProtocol.TYPE_RESULT);
+            result.setProperty(DaemonProtocol.DIALECT, dialectClassName);
+            result.setProperty(DaemonProtocol.DDL, ddl);
+            try {
+                send(result);
+            } catch (IOException ex) {
+                throw new MojoFailureException(
+                    String.format(
+                        "Failed to send the DDL for dialect '%s' to the Maven "
+                            + "JVM.",
+                        dialectClassName
+                    ),
+                    ex
+                );
+            }
+        }
+
+    }
+
+}
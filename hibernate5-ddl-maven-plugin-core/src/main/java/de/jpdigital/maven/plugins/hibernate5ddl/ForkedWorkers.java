@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the DDL files in forked JVMs (see {@link ForkedWorker}). The
+ * dialects are distributed round-robin over the workers, each worker
+ * generates the DDL files for its dialects. The log entries and the
+ * generated DDL are streamed back to the Maven JVM while the workers are
+ * running. A worker which fails or terminates unexpectedly, for example
+ * because of an {@link OutOfMemoryError}, fails the build but does not
+ * affect the Maven JVM.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ForkedWorkers {
+
+    private final List<String> classPath;
+
+    private final List<String> jvmArgs;
+
+    private final Log log;
+
+    private ClassDataSharing classDataSharing;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param classPath The classpath of the forked JVMs.
+     * @param jvmArgs   Additional arguments for the forked JVMs, for example
+     *                  {@code -Xmx2g}.
+     * @param log       The Maven log.
+     */
+    ForkedWorkers(
+        final List<String> classPath,
+        final List<String> jvmArgs,
+        final Log log
+    ) {
+        this.classPath = new ArrayList<>(classPath);
+        this.jvmArgs = new ArrayList<>(jvmArgs);
+        this.log = log;
+    }
+
+    public ClassDataSharing getClassDataSharing() {
+        return classDataSharing;
+    }
+
+    /**
+     * Sets the {@link ClassDataSharing} used for starting the forked JVMs.
+     * The first forked JVM creates the archive if it does not exist yet.
+     *
+     * @param classDataSharing The class data sharing settings, {@code null}
+     *                         to start the JVMs without an archive.
+     */
+    public void setClassDataSharing(
+        final ClassDataSharing classDataSharing
+    ) {
+        this.classDataSharing = classDataSharing;
+    }
+
+    /**
+     * Generates the DDL files for the provided dialects.
+     *
+     * @param request           The request, created like a request for the
+     *                          {@link GeneratorDaemon}. The dialects are
+     *                          replaced by the dialects of each worker.
+     * @param dialectClassNames The class names of the dialects.
+     * @param forkCount         The maximum number of forked JVMs.
+     * @param handler           Handles the DDL generated by the workers.
+     *
+     * @throws MojoFailureException If at least one worker failed. The
+     *                              failures of the other workers are added
+     *                              as suppressed exceptions.
+     */
+    public void generate(
+        final Properties request,
+        final List<String> dialectClassNames,
+        final int forkCount,
+        final ResultHandler handler
+    ) throws MojoFailureException {
+        final List<List<String>> partitions = partition(
+            dialectClassNames, forkCount
+        );
+        if (partitions.isEmpty()) {
+            return;
+        }
+        log.info(
+            String.format(
+                "Generating DDL files for %d dialects in %d forked JVMs.",
+                dialectClassNames.size(),
+                partitions.size()
+            )
+        );
+
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            partitions.size(),
+            runnable -> {
+                final Thread thread = new Thread(
+                    runnable,
+                    String.format(
+                        "hibernate5-ddl-fork-%d",
+                        threadCounter.incrementAndGet()
+                    )
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        final List<Throwable> failures = new ArrayList<>();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < partitions.size(); i++) {
+                final int number = i + 1;
+                final Properties workerRequest = new Properties();
+                workerRequest.putAll(request);
+                workerRequest.setProperty(DaemonProtocol.DIALECTS, "");
+                workerRequest.setProperty(
+                    DaemonProtocol.CUSTOM_DIALECTS,
+                    DaemonProtocol.join(partitions.get(i))
+                );
+                futures.add(
+                    executor.submit(
+                        () -> {
+                            runWorker(number, workerRequest, handler);
+                            return null;
+                        }
+                    )
+                );
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    failures.add(ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(
+                "Interrupted while waiting for the forked JVMs.", ex
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+
+        throwFailures(failures);
+    }
+
+    private static List<List<String>> partition(
+        final List<String> dialectClassNames, final int forkCount
+    ) {
+        final int workers = Math.min(
+            Math.max(1, forkCount), dialectClassNames.size()
+        );
+        final List<List<String>> partitions = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < dialectClassNames.size(); i++) {
+            partitions.get(i % workers).add(dialectClassNames.get(i));
+        }
+        return partitions;
+    }
+
+    private void runWorker(
+        final int number,
+        final Properties request,
+        final ResultHandler handler
+    ) throws MojoFailureException {
+        final List<String> command = new ArrayList<>();
+        command.add(
+            Paths
+                .get(System.getProperty("java.home"), "bin", "java")
+                .toString()
+        );
+        // JVM warnings are written to stdout by default, which is used for
+        // the responses of the worker.
+        command.add("-Xlog:disable");
+        command.add("-Xlog:all=warning:stderr");
+        final ClassDataSharing.Usage cdsUsage;
+        if (classDataSharing == null) {
+            cdsUsage = null;
+        } else {
+            cdsUsage = classDataSharing.prepare(number == 1);
+            command.addAll(cdsUsage.getJvmArgs());
+        }
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(String.join(File.pathSeparator, classPath));
+        command.add(ForkedWorker.class.getName());
+        log.debug(
+            String.format("Forked JVM %d command: %s", number, command)
+        );
+
+        final long start = System.nanoTime();
+        final Process process;
+        try {
+            process = new ProcessBuilder(command).start();
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format("Failed to start forked JVM %d.", number), ex
+            );
+        }
+        final String prefix = String.format("[fork %d] ", number);
+        final Thread errorPump = new Thread(
+            () -> pumpErrorStream(process.getErrorStream(), prefix),
+            String.format("hibernate5-ddl-fork-%d-stderr", number)
+        );
+        errorPump.setDaemon(true);
+        errorPump.start();
+
+        boolean finished = false;
+        try {
+            try (OutputStream input = process.getOutputStream()) {
+                DaemonProtocol.write(input, request);
+            }
+
+            Properties status = null;
+            try (InputStream output = process.getInputStream()) {
+                while (status == null) {
+                    final Properties message = DaemonProtocol.read(output);
+                    final String type = message.getProperty(
+                        DaemonProtocol.TYPE, ""
+                    );
+                    if (DaemonProtocol.TYPE_LOG.equals(type)) {
+                        RemoteLog.replay(
+                            log,
+                            message.getProperty(DaemonProtocol.LEVEL, "info"),
+                            prefix + message.getProperty(
+                                DaemonProtocol.MESSAGE, ""
+                            )
+                        );
+                    } else if (DaemonProtocol.TYPE_RESULT.equals(type)) {
+                        handler.handle(
+                            message.getProperty(DaemonProtocol.DIALECT),
+                            message.getProperty(DaemonProtocol.DDL, "")
+                        );
+                    } else {
+                        status = message;
+                    }
+                }
+            }
+
+            if (!DaemonProtocol.STATUS_OK.equals(
+                status.getProperty(DaemonProtocol.STATUS)
+            )) {
+                throw new MojoFailureException(
+                    String.format(
+                        "Forked JVM %d failed to generate the DDL files: %s",
+                        number,
+                        status.getProperty(DaemonProtocol.MESSAGE)
+                    )
+                );
+            }
+            process.waitFor();
+            finished = true;
+            if (cdsUsage != null) {
+                final List<String> model = new ArrayList<>(
+                    DaemonProtocol.split(
+                        request.getProperty(DaemonProtocol.ENTITIES)
+                    )
+                );
+                model.addAll(
+                    DaemonProtocol.split(
+                        request.getProperty(DaemonProtocol.CUSTOM_DIALECTS)
+                    )
+                );
+                classDataSharing.finish(
+                    cdsUsage,
+                    String.format("Forked JVM %d", number),
+                    model,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                );
+            }
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Forked JVM %d terminated unexpectedly%s. Increase the "
+                        + "heap of the forked JVMs using forkJvmArgs if it "
+                        + "ran out of memory.",
+                    number,
+                    exitCode(process)
+                ),
+                ex
+            );
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MojoFailureException(
+                String.format("Interrupted while waiting for forked JVM %d.",
+                              number),
+                ex
+            );
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+            if (cdsUsage != null && !finished) {
+                // Wait until the JVM has exited, it may still write the
+                // archive.
+                process.onExit().join();
+                classDataSharing.discard(cdsUsage);
+            }
+        }
+    }
+
+    private static String exitCode(final Process process) {
+        try {
+            process.waitFor();
+            return String.format(" with exit code %d", process.exitValue());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    private void pumpErrorStream(
+        final InputStream errorStream, final String prefix
+    ) {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(errorStream, Charset.defaultCharset())
+        )) {
+            String line = reader.readLine();
+            while (line != null) {
+                log.debug(prefix + line);
+                line = reader.readLine();
+            }
+        } catch (IOException ex) {
+            // The forked JVM has terminated.
+        }
+    }
+
+    private static void throwFailures(final List<Throwable> failures)
+        throws MojoFailureException {
+        if (failures.isEmpty()) {
+            return;
+        }
+        final Throwable first = failures.get(0);
+        final MojoFailureException exception;
+        if (failures.size() == 1 && first instanceof MojoFailureException) {
+            exception = (MojoFailureException) first;
+        } else {
+            final StringBuilder message = new StringBuilder(
+                String.format("%d forked JVMs failed:", failures.size())
+            );
+            for (final Throwable failure : failures) {
+                message.append(String.format("%n\t%s", failure.getMessage()));
+            }
+            exception = new MojoFailureException(message.toString(), first);
+            for (final Throwable failure
+                     : failures.subList(1, failures.size())) {
+                exception.addSuppressed(failure);
+            }
+        }
+        throw exception;
+    }
+
+    /**
+     * Handles the DDL generated by a worker for a dialect. Called from the
+     * threads waiting for the workers.
+     */
+    @FunctionalInterface
+    interface ResultHandler {
+
+        void handle(String dialectClassName, String ddl)
+            throws MojoFailureException;
+
+    }
+
+}
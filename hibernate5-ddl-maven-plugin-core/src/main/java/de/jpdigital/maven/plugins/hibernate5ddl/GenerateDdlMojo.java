@@ -16,24 +16,43 @@
  */
 package de.jpdigital.maven.plugins.hibernate5ddl;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.SessionData;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Base class the the Mojo class providing the {@code gen-ddl} goal. In the
@@ -100,6 +119,158 @@ public class GenerateDdlMojo extends AbstractMojo {
     @Parameter(required = false)
     private boolean includeTestClasses;
 
+    /**
+     * If set to {@code true} (the default) the result of the classpath scan
+     * is stored in the {@link #scanCacheFile}. If neither the JAR files nor
+     * the class files on the classpath have changed since the last build the
+     * stored result is used and the classpath is not scanned again.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    private boolean useScanCache = true;
+
+    /**
+     * The file in which the result of the classpath scan is cached.
+     */
+    @Parameter(
+        defaultValue
+            = "${project.build.directory}/hibernate5-ddl-maven-plugin/scan-cache.properties",
+        required = false
+    )
+    private File scanCacheFile;
+
+    /**
+     * If set to {@code true} (the default) the output directories of the
+     * project are scanned incrementally: The classfiles and their hashes are
+     * recorded in the {@link #incrementalStateDirectory} and on the next run
+     * only changed and added classfiles are inspected again.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    private boolean incrementalScan = true;
+
+    /**
+     * The directory in which the state of the incremental scan is stored.
+     */
+    @Parameter(
+        defaultValue
+            = "${project.build.directory}/hibernate5-ddl-maven-plugin/incremental",
+        required = false
+    )
+    private File incrementalStateDirectory;
+
+    /**
+     * If set to {@code true} (the default) the findings for each scanned JAR
+     * file are stored in the {@link #jarScanCacheDirectory}, keyed by the
+     * SHA-256 hash of the JAR file. JAR files already scanned by another
+     * module or build are not scanned again.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    private boolean useJarScanCache = true;
+
+    /**
+     * The directory in which the findings for JAR files are cached. The
+     * directory can be shared by all projects on a machine.
+     */
+    @Parameter(
+        defaultValue = "${user.home}/.m2/hibernate5-ddl-cache",
+        required = false
+    )
+    private File jarScanCacheDirectory;
+
+    /**
+     * The part of the classpath which is scanned for entities. Possible values
+     * are {@code project} (the default) and {@code classpath}. With
+     * {@code project} only the output directories of the project (and the
+     * artifacts configured using {@link #scanArtifacts}) are scanned. With
+     * {@code classpath} all dependencies are scanned too. In both cases the
+     * entities are loaded using the complete classpath of the project.
+     */
+    @Parameter(required = false, defaultValue = "project")
+    private String scanScope = "project";
+
+    /**
+     * Dependencies which are scanned for entities in addition to the output
+     * directories of the project if {@link #scanScope} is {@code project}.
+     * The dependencies are identified by patterns in the form
+     * {@code groupId:artifactId}, {@code *} can be used as wildcard, for
+     * example {@code org.example:*-entities}.
+     */
+    @Parameter(required = false)
+    private String[] scanArtifacts;
+
+    /**
+     * The number of threads used for scanning the classpath. If not set (or
+     * set to {@code 0}) the number of threads is determined by ClassGraph.
+     */
+    @Parameter(required = false, defaultValue = "0")
+    private int scanThreads;
+
+    /**
+     * If set to {@code true} all executions of the plugin (for example in a
+     * parallel reactor build using {@code -T}) share one thread pool for
+     * scanning the classpath. The size of the pool is set by
+     * {@link #scanThreads} (if not set the number of available processors is
+     * used). The first execution which uses the shared pool determines its
+     * size.
+     */
+    @Parameter(required = false)
+    private boolean shareScanExecutor;
+
+    /**
+     * If set to {@code true} (the default) the entity index created by the
+     * annotation processor from the {@code hibernate5-ddl-maven-plugin-processor}
+     * module is used instead of scanning the classes of a project or a JAR
+     * file, if the index is available and up to date.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    private boolean useEntityIndex = true;
+
+    /**
+     * If set to {@code true} (the default) the scan results for JAR files and
+     * for the output directories of upstream modules as well as the class
+     * loaders for the dependencies are shared by all modules of a reactor
+     * build. The shared class loaders are closed when the last execution of
+     * the plugin in the reactor has finished.
+     */
+    @Parameter(required = false, defaultValue = "true")
+    private boolean useReactorCache = true;
+
+    /**
+     * Patterns for the names of the entity and converter classes to include.
+     * {@code *} can be used as wildcard, for example
+     * {@code org.example.model.*}. If not set all classes are included.
+     */
+    @Parameter(required = false)
+    private String[] includeEntities;
+
+    /**
+     * Patterns for the names of the entity and converter classes to exclude.
+     * {@code *} can be used as wildcard, for example {@code *.fixtures.*}.
+     */
+    @Parameter(required = false)
+    private String[] excludeEntities;
+
+    /**
+     * Fully qualified names of marker annotations. If set only entities and
+     * converters annotated with one of these annotations are included.
+     */
+    @Parameter(required = false)
+    private String[] includeAnnotations;
+
+    /**
+     * Fully qualified names of marker annotations. Entities and converters
+     * annotated with one of these annotations are excluded.
+     */
+    @Parameter(required = false)
+    private String[] excludeAnnotations;
+
+    /**
+     * Patterns for the names of root entities. If set only the entities
+     * reachable from the root entities through associations, embeddables,
+     * mapped superclasses and inheritance are included.
+     */
+    @Parameter(required = false)
+    private String[] rootEntities;
+
     /**
      * Database dialects for which create scripts shall be generated. For
      * available dialects refer to the documentation the {@link Dialect}
@@ -111,6 +282,114 @@ public class GenerateDdlMojo extends AbstractMojo {
     @Parameter(required = false)
     private String[] customDialects;
 
+    /**
+     * The number of threads used for generating the DDL files of the
+     * configured dialects. With the default value of {@code 1} the dialects
+     * are processed one after another. With more threads the build takes
+     * about as long as the slowest dialect, but needs more memory because the
+     * Hibernate metadata of several dialects is held at the same time. If
+     * the generation fails for some dialects, all failed dialects are
+     * reported.
+     */
+    @Parameter(required = false, defaultValue = "1")
+    private int generationThreads = 1;
+
+    /**
+     * If set to {@code true} (the default) the Hibernate service registry is
+     * started with an offline boot profile, which skips the work not needed
+     * for generating DDL scripts: The JDBC metadata defaults are not looked
+     * up, no connection provider is initialized and integrators found on the
+     * classpath are not used, except for Envers and the integrators listed in
+     * {@link #offlineBootIntegrators}. Settings in the
+     * {@link #persistenceXml} or in the {@link #persistenceProperties}
+     * override the settings of the profile.
+     */
+    @Parameter(
+        required = false,
+        defaultValue = "true",
+        property = "hibernate5ddl.offlineBoot"
+    )
+    private boolean offlineBoot = true;
+
+    /**
+     * Class names of integrators found on the classpath which are used even
+     * if the {@link #offlineBoot} profile is active, for example integrators
+     * contributing tables.
+     */
+    @Parameter(required = false)
+    private String[] offlineBootIntegrators;
+
+    /**
+     * Splits the entities into partitions whose metadata is built and
+     * exported separately, so that the memory needed depends on the largest
+     * partition instead of the complete model. Each partition also contains
+     * the entities referenced by its entities. The foreign keys are added at
+     * the end of the DDL files, after the tables of all partitions. Possible
+     * values are {@code none} (the default), {@code graph} (groups of
+     * entities connected by references), {@code package} and
+     * {@code explicit} (see {@link #partitions}). Not supported together with
+     * mapping files.
+     */
+    @Parameter(
+        required = false,
+        defaultValue = "none",
+        property = "hibernate5ddl.partitioning"
+    )
+    private String partitioning = "none";
+
+    /**
+     * The partitions for the partitioning {@code explicit}. Each partition is
+     * a comma separated list of patterns for the class names of its
+     * entities, {@code *} can be used as wildcard. Entities not matched by
+     * any partition are put into an additional partition.
+     */
+    @Parameter(required = false)
+    private String[] partitions;
+
+    /**
+     * The maximum number of entities in a partition created by the
+     * partitionings {@code graph} and {@code package}. Small groups are
+     * combined up to this size. Larger groups are not split.
+     */
+    @Parameter(required = false, defaultValue = "1000")
+    private int maxPartitionSize = 1000;
+
+    /**
+     * If set to {@code true} (the default) a Jandex index of the entities,
+     * their superclasses and the annotated packages is created from the
+     * class files and passed to Hibernate, which does not have to index the
+     * classes itself. The index is stored in the
+     * {@link #jandexIndexDirectory} and reused as long as the classpath does
+     * not change.
+     */
+    @Parameter(
+        required = false,
+        defaultValue = "true",
+        property = "hibernate5ddl.useJandexIndex"
+    )
+    private boolean useJandexIndex = true;
+
+    /**
+     * The directory in which the Jandex indexes are stored.
+     */
+    @Parameter(
+        defaultValue
+            = "${project.build.directory}/hibernate5-ddl-maven-plugin/jandex",
+        required = false
+    )
+    private File jandexIndexDirectory;
+
+    /**
+     * If set to {@code true} the Hibernate services started for each dialect
+     * and the time their startup took are logged. Otherwise they are only
+     * logged at debug level.
+     */
+    @Parameter(
+        required = false,
+        property = "hibernate5ddl.logHibernateServices"
+    )
+    private boolean logHibernateServices;
+
     /**
      * Set this to {@code true} to include drop statements into the generated
      * DDL file.
@@ -131,15 +410,176 @@ public class GenerateDdlMojo extends AbstractMojo {
     )
     private File persistenceXml;
 
+    /**
+     * If set to {@code true} the entities, converters and annotated packages
+     * are taken from the {@code <class>} elements of the persistence units in
+     * the {@link #persistenceXml} instead of scanning the classpath. JAR
+     * files listed using {@code <jar-file>} are scanned and mapping files
+     * listed using {@code <mapping-file>} are added. The output directories
+     * of the project are only scanned if {@code <exclude-unlisted-classes>}
+     * is set to {@code false}. If more than one persistence unit is used the
+     * DDL files for each persistence unit are written into a subdirectory of
+     * the {@link #outputDirectory} named after the persistence unit.
+     */
+    @Parameter(required = false)
+    private boolean usePersistenceUnitClasses;
+
+    /**
+     * The names of the persistence units to use if
+     * {@link #usePersistenceUnitClasses} is set. If not set all persistence
+     * units in the {@link #persistenceXml} are used.
+     */
+    @Parameter(required = false)
+    private String[] persistenceUnits;
+
     @Parameter(required = false)
     private String[] persistencePropertiesToUse;
 
     @Parameter(required = false)
     private Map<String, String> persistenceProperties;
 
+    /**
+     * The directory in which {@link DdlGenerator} implementations writing
+     * files generate the DDL files before they are copied to the
+     * {@link #outputDirectory}. Each execution uses its own subdirectory,
+     * therefore executions of the plugin running in parallel (for example in
+     * a reactor build using {@code -T}) don't share files. The generator for
+     * Hibernate 5.6 collects the DDL in memory and does not use this
+     * directory.
+     */
+    @Parameter(
+        defaultValue = "${project.build.directory}/hibernate5-ddl-maven-plugin/work",
+        required = false
+    )
+    private File workDirectory;
+
+    /**
+     * If set to {@code true} the DDL files are generated by a generator
+     * daemon, a background JVM which is started by the first execution and
+     * reused by later executions from any module or build. The daemon keeps
+     * Hibernate loaded and warmed up and caches the class loaders for the
+     * dependencies of the projects. If the daemon can't be started the DDL
+     * files are generated in the Maven JVM.
+     */
+    @Parameter(required = false, property = "hibernate5ddl.useDaemon")
+    private boolean useDaemon;
+
+    /**
+     * The directory in which the generator daemon stores its port, token and
+     * log file. Each combination of plugin artifacts and Java installation
+     * uses its own daemon.
+     */
+    @Parameter(
+        defaultValue = "${user.home}/.m2/hibernate5-ddl-daemon",
+        required = false
+    )
+    private File daemonDirectory;
+
+    /**
+     * The number of minutes after which an idle generator daemon shuts down.
+     */
+    @Parameter(required = false, defaultValue = "30")
+    private int daemonIdleTimeout = 30;
+
+    /**
+     * The maximum heap size of the generator daemon, passed to the daemon
+     * JVM as {@code -Xmx}.
+     */
+    @Parameter(required = false, defaultValue = "1g")
+    private String daemonMaxHeap = "1g";
+
+    /**
+     * The maximum metaspace size of the generator daemon, passed to the
+     * daemon JVM as {@code -XX:MaxMetaspaceSize}.
+     */
+    @Parameter(required = false, defaultValue = "512m")
+    private String daemonMaxMetaspace = "512m";
+
+    /**
+     * The maximum number of dependency class loaders cached by the generator
+     * daemon. The least recently used class loader is closed if the limit is
+     * reached.
+     */
+    @Parameter(required = false, defaultValue = "4")
+    private int daemonCachedClassLoaders = 4;
+
+    /**
+     * The number of forked JVMs used for generating the DDL files. With the
+     * default value of {@code 0} the DDL files are generated in the Maven
+     * JVM. Otherwise the dialects are distributed over up to this number of
+     * JVMs, which run in parallel. The log output and the generated DDL are
+     * streamed back to the Maven JVM. A forked JVM running out of heap or
+     * metaspace fails the build, but does not affect the Maven JVM. If set,
+     * {@link #useDaemon} is ignored.
+     */
+    @Parameter(required = false, property = "hibernate5ddl.forkCount")
+    private int forkCount;
+
+    /**
+     * Additional arguments for the forked JVMs (see {@link #forkCount}), for
+     * example {@code -Xmx2g} or {@code -XX:MaxMetaspaceSize=512m}.
+     */
+    @Parameter(required = false)
+    private String[] forkJvmArgs;
+
+    /**
+     * If set to {@code true} (the default) the forked JVMs (see
+     * {@link #forkCount}) and the generator daemon use an application class
+     * data sharing (AppCDS) archive for the classes of the plugin and of
+     * Hibernate, which reduces their startup time. The archive is created by
+     * the first forked JVM and reused by later executions. Requires Java 13
+     * or newer, with older versions this parameter has no effect.
+     */
+    @Parameter(
+        required = false,
+        defaultValue = "true",
+        property = "hibernate5ddl.useClassDataSharing"
+    )
+    private boolean useClassDataSharing = true;
+
+    /**
+     * The directory for the class data sharing archives. The name of an
+     * archive contains the versions of the plugin, Hibernate and Java.
+     */
+    @Parameter(
+        defaultValue = "${settings.localRepository}/.cache/"
+                           + "hibernate5-ddl-maven-plugin/cds",
+        required = false
+    )
+    private File classDataSharingDirectory;
+
+    @Parameter(defaultValue = "${plugin.artifactId}", readonly = true)
+    private String pluginArtifactId;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Parameter(defaultValue = "${plugin.artifacts}", readonly = true)
+    private transient List<Artifact> pluginArtifacts;
+
     @Parameter(defaultValue = "${project}", readonly = true)
     private transient MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private transient MavenSession session;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private transient MojoExecution mojoExecution;
+
+    /**
+     * The {@link ReactorCache} used by this execution, {@code null} if
+     * {@link #useReactorCache} is {@code false}.
+     */
+    private transient ReactorCache reactorCache;
+
+    @Component
+    private transient BuildContext buildContext;
+
+    /**
+     * Set if DDL files for more than one persistence unit are generated.
+     */
+    private transient boolean separateUnitDirectories;
+
     public GenerateDdlMojo() {
         this.persistenceProperties = new HashMap<>();
     }
@@ -152,8 +592,38 @@ public class GenerateDdlMojo extends AbstractMojo {
      *                                executed.
      */
     @Override
-    @SuppressWarnings({"PMD.CyclomaticComplexity"})
     public void execute() throws MojoExecutionException, MojoFailureException {
+        if (useReactorCache && session != null && mojoExecution != null) {
+            reactorCache = ReactorCache.acquire(session, mojoExecution);
+        }
+        try {
+            generateDdlFiles();
+        } finally {
+            if (reactorCache != null) {
+                final int closed = reactorCache.release();
+                reactorCache = null;
+                if (closed > 0) {
+                    getLog().info(
+                        String.format(
+                            "Last execution of the plugin in the reactor, "
+                                + "closed %d class loaders of the reactor "
+                                + "cache.",
+                            closed
+                        )
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method for generating the DDL files of the project, called by
+     * {@link #execute()}.
+     *
+     * @throws MojoFailureException If the DDL files can't be generated.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity"})
+    private void generateDdlFiles() throws MojoFailureException {
         final File outputDir = outputDirectory;
 
         getLog().info(
@@ -172,40 +642,149 @@ public class GenerateDdlMojo extends AbstractMojo {
             }
         }
 
-        final Set<Class<?>> entityClasses;
-        final Set<Package> annotatedPackages;
-        if (packages == null || packages.length == 0) {
-            final EntityFinder entityFinder = EntityFinder.forClassPath(
-                project, getLog(), includeTestClasses
-            );
-            entityClasses = entityFinder.findEntities();
-            annotatedPackages = entityFinder.findPackages();
+        logDialectGroups();
+
+        MetaspaceUsage.report(getLog(), "before generating the DDL files");
+
+        if (usePersistenceUnitClasses) {
+            final List<PersistenceUnit> units = selectPersistenceUnits();
+            separateUnitDirectories = units.size() > 1;
+            for (final PersistenceUnit unit : units) {
+                final EntitySources unitSources = PersistenceUnitSources
+                    .create(
+                        unit,
+                        persistenceXml,
+                        project,
+                        getLog(),
+                        createScanSettings()
+                    );
+                try {
+                    generateDdl(
+                        createEntityFilter().apply(unitSources, getLog())
+                    );
+                } finally {
+                    closeEntitySources(unitSources);
+                }
+            }
         } else {
-            // Find the entity classes in the packages.
-            entityClasses = new HashSet<>();
-            annotatedPackages = new HashSet<>();
-            for (final String packageName : packages) {
-                final EntityFinder entityFinder = EntityFinder.forPackage(
-                    project, getLog(), packageName, includeTestClasses
+            final EntitySources foundSources;
+            if (packages == null || packages.length == 0) {
+                final EntityFinder entityFinder = EntityFinder.forClassPath(
+                    project, getLog(), createScanSettings()
+                );
+                foundSources = entityFinder.findEntitySources();
+            } else {
+                // Find the entity classes in the packages. All packages are
+                // scanned at once.
+                final EntityFinder entityFinder = EntityFinder.forPackages(
+                    project, getLog(), packages, createScanSettings()
                 );
-                final Set<Class<?>> packageEntities = entityFinder
-                    .findEntities();
-                final Set<Package> packagesWithAnnotations = entityFinder
-                    .findPackages();
-                entityClasses.addAll(packageEntities);
-                annotatedPackages.addAll(packagesWithAnnotations);
+                foundSources = entityFinder.findEntitySources();
             }
+            warnIfNoEntitiesFound(foundSources);
+            try {
+                generateDdl(createEntityFilter().apply(foundSources, getLog()));
+            } finally {
+                closeEntitySources(foundSources);
+            }
+        }
+        MetaspaceUsage.report(getLog(), "after generating the DDL files");
+    }
+
+    /**
+     * Helper method for warning about a scan which found no entities. With
+     * the {@code project} scan scope (the default) entities in dependencies
+     * are only found if the dependency is listed in {@link #scanArtifacts}.
+     * Projects which keep their entities in a separate module would otherwise
+     * get DDL files without any tables.
+     *
+     * @param entitySources The entity sources found by the scan.
+     *
+     * @throws MojoFailureException If the {@link #scanScope} is invalid.
+     */
+    private void warnIfNoEntitiesFound(final EntitySources entitySources)
+        throws MojoFailureException {
+        if (!entitySources.getEntityClassNames().isEmpty()
+                || convertScanScope() != ScanScope.PROJECT) {
+            return;
+        }
+        getLog().warn(
+            String.format(
+                "No entities found. With the scan scope 'project' only the "
+                    + "output directories of the project and the "
+                    + "dependencies listed in scanArtifacts (%s) are "
+                    + "scanned. If the entities are part of a dependency, "
+                    + "add the dependency to scanArtifacts or set scanScope "
+                    + "to 'classpath'.",
+                scanArtifacts == null || scanArtifacts.length == 0
+                    ? "none"
+                    : String.join(", ", scanArtifacts)
+            )
+        );
+    }
+
+    /**
+     * Helper method for releasing the class loader of the
+     * {@link EntitySources} after the DDL files have been generated. A failure
+     * while closing the class loader does not fail the build.
+     *
+     * @param entitySources The entity sources to close.
+     */
+    private void closeEntitySources(final EntitySources entitySources) {
+        try {
+            entitySources.close();
+        } catch (IOException ex) {
+            getLog().warn(
+                String.format(
+                    "Failed to close the class loader of the project: %s",
+                    ex.getMessage()
+                )
+            );
+        }
+    }
+
+    /**
+     * Helper method for generating the DDL files for all configured dialects.
+     *
+     * @param entitySources The entity sources to use.
+     *
+     * @throws MojoFailureException If the DDL files can't be generated.
+     */
+    private void generateDdl(final EntitySources entitySources)
+        throws MojoFailureException {
+
+        final String unitPrefix;
+        if (entitySources.getPersistenceUnitName() == null) {
+            unitPrefix = "";
+        } else {
+            unitPrefix = String.format(
+                "Persistence unit '%s': ",
+                entitySources.getPersistenceUnitName()
+            );
         }
 
         getLog().info(
             String.format(
-                "Found %d entities.", entityClasses.size()
+                "%sFound %d entities.",
+                unitPrefix,
+                entitySources.getEntityClassNames().size()
             )
         );
-        if (annotatedPackages != null && !annotatedPackages.isEmpty()) {
+        if (!entitySources.getConverterClassNames().isEmpty()) {
+            getLog().info(
+                String.format(
+                    "%sFound %d converters.",
+                    unitPrefix,
+                    entitySources.getConverterClassNames().size()
+                )
+            );
+        }
+        if (!entitySources.getPackageNames().isEmpty()) {
             getLog().info(
                 String.format(
-                    "Found %d annotated packages.", annotatedPackages.size()
+                    "%sFound %d annotated packages.",
+                    unitPrefix,
+                    entitySources.getPackageNames().size()
                 )
             );
         }
@@ -228,12 +807,39 @@ public class GenerateDdlMojo extends AbstractMojo {
                 );
         }
 
-        // Find the DDL generator implementation to use.
+        // The time is logged in the same format by all generators, which
+        // allows comparing the generators, for example Hibernate 5.6 and 6.
+        final long start = System.nanoTime();
+        if (forkCount > 0) {
+            generateDdlInForkedJvms(entitySources);
+        } else if (!useDaemon || !generateDdlWithDaemon(entitySources)) {
+            generateDdlInProcess(entitySources);
+        }
+        getLog().info(
+            String.format(
+                "%sGenerated the DDL files for %d dialects in %d ms.",
+                unitPrefix,
+                getDialectClassNames().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            )
+        );
+    }
+
+    /**
+     * Helper method for finding the {@link DdlGenerator} implementation
+     * provided by the plugin. The class loader of the plugin is used
+     * explicitly, the context class loader of the thread may be changed by
+     * other executions in a parallel build.
+     *
+     * @return The DDL generator.
+     *
+     * @throws MojoFailureException If no implementation is available.
+     */
+    private DdlGenerator getDdlGenerator() throws MojoFailureException {
         final ServiceLoader<DdlGenerator> serviceLoader = ServiceLoader
-            .load(DdlGenerator.class);
-        final DdlGenerator ddlGenerator;
+            .load(DdlGenerator.class, getClass().getClassLoader());
         if (serviceLoader.iterator().hasNext()) {
-            ddlGenerator = serviceLoader.iterator().next();
+            return serviceLoader.iterator().next();
         } else {
             throw new MojoFailureException(
                 String.format(
@@ -242,94 +848,771 @@ public class GenerateDdlMojo extends AbstractMojo {
                 )
             );
         }
+    }
+
+    /**
+     * Generates the DDL files for all configured dialects in the current JVM.
+     * Also used by the {@link GeneratorDaemon} and the {@link ForkedWorker}.
+     *
+     * @param entitySources The entity sources to use.
+     *
+     * @throws MojoFailureException If the DDL files can't be generated.
+     */
+    void generateDdlInProcess(final EntitySources entitySources)
+        throws MojoFailureException {
+
+        final DdlGenerator ddlGenerator = getDdlGenerator();
+
+        // Hibernate and libraries used by the entities may use the context
+        // class loader. It is set to the class loader of the project only
+        // while the DDL files are generated, afterwards the previous context
+        // class loader is restored. Otherwise the thread would keep the class
+        // loader of the project after the execution.
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader previousClassLoader = currentThread
+            .getContextClassLoader();
+        currentThread.setContextClassLoader(entitySources.getClassLoader());
+        try {
+            // All dialects are passed at once, the generator can share the
+            // work which does not depend on the dialect.
+            ddlGenerator.generateDdl(
+                getDialectClassNames(), entitySources, this
+            );
+        } finally {
+            currentThread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    /**
+     * Helper method for generating the DDL files in forked JVMs (see
+     * {@link #forkCount}). The DDL generated by the forked JVMs is written by
+     * this mojo.
+     *
+     * @param entitySources The entity sources to use.
+     *
+     * @throws MojoFailureException If a forked JVM failed.
+     */
+    private void generateDdlInForkedJvms(final EntitySources entitySources)
+        throws MojoFailureException {
+
+        final Properties request = createGenerationRequest(
+            entitySources, getOutputDirectory(entitySources)
+        );
+        final List<String> classPath = getGeneratorClassPath();
+        final ForkedWorkers workers = new ForkedWorkers(
+            classPath, Arrays.asList(copyOrEmpty(forkJvmArgs)), getLog()
+        );
+        workers.setClassDataSharing(createClassDataSharing(classPath));
+        workers.generate(
+            request,
+            getDialectClassNames(),
+            forkCount,
+            (dialectClassName, ddl) -> writeOutputFile(
+                dialectClassName, ddl, entitySources
+            )
+        );
+    }
+
+    /**
+     * Helper method for generating the DDL files using the
+     * {@link GeneratorDaemon}. If the daemon can't be started or reached the
+     * DDL files are generated in the current JVM.
+     *
+     * @param entitySources The entity sources to use.
+     *
+     * @return {@code true} if the DDL files have been generated by the
+     *         daemon, {@code false} if they have to be generated in the
+     *         current JVM.
+     *
+     * @throws MojoFailureException If the daemon reported an error while
+     *                              generating the DDL files.
+     */
+    private boolean generateDdlWithDaemon(final EntitySources entitySources)
+        throws MojoFailureException {
+
+        final File targetDirectory = getOutputDirectory(entitySources);
+        final Properties request = createGenerationRequest(
+            entitySources, targetDirectory
+        );
+        final List<String> classPath = getGeneratorClassPath();
+        final DaemonClient client = new DaemonClient(
+            daemonDirectory, classPath, getLog()
+        );
+        client.setClassDataSharing(createClassDataSharing(classPath));
+        client.setIdleTimeout(daemonIdleTimeout);
+        client.setMaxHeap(daemonMaxHeap);
+        client.setMaxMetaspace(daemonMaxMetaspace);
+        client.setCachedClassLoaders(daemonCachedClassLoaders);
+
+        if (!client.generate(request)) {
+            getLog().warn(
+                "Generator daemon not available, generating the DDL files in "
+                    + "the current JVM."
+            );
+            return false;
+        }
+
+        if (buildContext != null) {
+            buildContext.refresh(targetDirectory);
+        }
+        return true;
+    }
+
+    /**
+     * Helper method for creating the request sent to the
+     * {@link GeneratorDaemon} or to the {@link ForkedWorker}s.
+     *
+     * @param entitySources   The entity sources.
+     * @param targetDirectory The directory for the DDL files.
+     *
+     * @return The request.
+     */
+    private Properties createGenerationRequest(
+        final EntitySources entitySources, final File targetDirectory
+    ) {
+        final Properties request = new Properties();
+        request.setProperty(
+            DaemonProtocol.TYPE, DaemonProtocol.TYPE_GENERATE
+        );
+        request.setProperty(
+            DaemonProtocol.CLASSPATH,
+            DaemonProtocol.join(
+                DaemonClient.getClassPath(
+                    entitySources.getClassLoader(),
+                    EntityFinder.class.getClassLoader()
+                )
+            )
+        );
+        request.setProperty(
+            DaemonProtocol.ENTITIES,
+            DaemonProtocol.join(entitySources.getEntityClassNames())
+        );
+        request.setProperty(
+            DaemonProtocol.CONVERTERS,
+            DaemonProtocol.join(entitySources.getConverterClassNames())
+        );
+        request.setProperty(
+            DaemonProtocol.PACKAGES,
+            DaemonProtocol.join(entitySources.getPackageNames())
+        );
+        request.setProperty(
+            DaemonProtocol.MAPPING_FILES,
+            DaemonProtocol.join(entitySources.getMappingFiles())
+        );
+        if (entitySources.getPersistenceUnitName() != null) {
+            request.setProperty(
+                DaemonProtocol.PERSISTENCE_UNIT,
+                entitySources.getPersistenceUnitName()
+            );
+        }
+        request.setProperty(
+            DaemonProtocol.DIALECTS,
+            DaemonProtocol.join(Arrays.asList(copyOrEmpty(dialects)))
+        );
+        request.setProperty(
+            DaemonProtocol.CUSTOM_DIALECTS,
+            DaemonProtocol.join(Arrays.asList(copyOrEmpty(customDialects)))
+        );
+        request.setProperty(
+            DaemonProtocol.OUTPUT_DIRECTORY, targetDirectory.getAbsolutePath()
+        );
+        request.setProperty(
+            DaemonProtocol.OUTPUT_FILE_NAME_PREFIX,
+            Objects.toString(outputFileNamePrefix, "")
+        );
+        request.setProperty(
+            DaemonProtocol.OUTPUT_FILE_NAME_SUFFIX,
+            Objects.toString(outputFileNameSuffix, "")
+        );
+        request.setProperty(
+            DaemonProtocol.OMIT_DIALECT_FROM_FILE_NAME,
+            Boolean.toString(omitDialectFromFileName)
+        );
+        request.setProperty(
+            DaemonProtocol.CREATE_DROP_STATEMENTS,
+            Boolean.toString(createDropStatements)
+        );
+        if (persistenceXml != null) {
+            request.setProperty(
+                DaemonProtocol.PERSISTENCE_XML,
+                persistenceXml.getAbsolutePath()
+            );
+        }
+        request.setProperty(
+            DaemonProtocol.PERSISTENCE_PROPERTIES_TO_USE,
+            DaemonProtocol.join(Arrays.asList(getPersistencePropertiesToUse()))
+        );
+        for (final Map.Entry<String, String> property
+                 : getPersistenceProperties().entrySet()) {
+            request.setProperty(
+                DaemonProtocol.PERSISTENCE_PROPERTY_PREFIX + property.getKey(),
+                Objects.toString(property.getValue(), "")
+            );
+        }
+        request.setProperty(
+            DaemonProtocol.GENERATION_THREADS,
+            Integer.toString(generationThreads)
+        );
+        request.setProperty(
+            DaemonProtocol.OFFLINE_BOOT, Boolean.toString(offlineBoot)
+        );
+        request.setProperty(
+            DaemonProtocol.OFFLINE_BOOT_INTEGRATORS,
+            DaemonProtocol.join(Arrays.asList(getOfflineBootIntegrators()))
+        );
+        request.setProperty(DaemonProtocol.PARTITIONING, partitioning);
+        request.setProperty(
+            DaemonProtocol.PARTITIONS,
+            DaemonProtocol.join(Arrays.asList(getPartitions()))
+        );
+        request.setProperty(
+            DaemonProtocol.MAX_PARTITION_SIZE,
+            Integer.toString(maxPartitionSize)
+        );
+        request.setProperty(
+            DaemonProtocol.USE_JANDEX_INDEX, Boolean.toString(useJandexIndex)
+        );
+        if (jandexIndexDirectory != null) {
+            request.setProperty(
+                DaemonProtocol.JANDEX_INDEX_DIRECTORY,
+                jandexIndexDirectory.getAbsolutePath()
+            );
+        }
+        request.setProperty(
+            DaemonProtocol.LOG_HIBERNATE_SERVICES,
+            Boolean.toString(logHibernateServices)
+        );
+        request.setProperty(
+            DaemonProtocol.DEBUG, Boolean.toString(getLog().isDebugEnabled())
+        );
+        return request;
+    }
+
+    /**
+     * Helper method for determining the classpath of the
+     * {@link GeneratorDaemon} and the {@link ForkedWorker}s: The artifacts
+     * of the plugin and the JAR files of the Maven API classes used by the
+     * plugin, which are provided by Maven and are not part of the plugin
+     * artifacts.
+     *
+     * @return The classpath of the daemon and the forked JVMs.
+     */
+    private List<String> getGeneratorClassPath() {
+        final Set<String> classPath = new LinkedHashSet<>();
+        addCodeSource(getClass(), classPath);
+        addCodeSource(GenerateDdlMojo.class, classPath);
+        if (pluginArtifacts != null) {
+            for (final Artifact artifact : pluginArtifacts) {
+                if (artifact.getFile() != null) {
+                    classPath.add(artifact.getFile().getAbsolutePath());
+                }
+            }
+        }
+        addCodeSource(AbstractMojo.class, classPath);
+        addCodeSource(Artifact.class, classPath);
+        addCodeSource(MavenProject.class, classPath);
+        addCodeSource(SessionData.class, classPath);
+        addCodeSource(BuildContext.class, classPath);
+        return new ArrayList<>(classPath);
+    }
+
+    /**
+     * Helper method for creating the {@link ClassDataSharing} for the JVMs
+     * started by the plugin.
+     *
+     * @param classPath The classpath of the JVMs.
+     *
+     * @return The class data sharing settings, {@code null} if
+     *         {@link #useClassDataSharing} is not set or not supported.
+     */
+    private ClassDataSharing createClassDataSharing(
+        final List<String> classPath
+    ) {
+        if (!useClassDataSharing) {
+            return null;
+        }
+        String hibernateVersion = "unknown";
+        if (pluginArtifacts != null) {
+            for (final Artifact artifact : pluginArtifacts) {
+                // Hibernate 6 uses the group ID org.hibernate.orm.
+                if (("org.hibernate".equals(artifact.getGroupId())
+                         || "org.hibernate.orm".equals(artifact.getGroupId()))
+                        && "hibernate-core".equals(artifact.getArtifactId())) {
+                    hibernateVersion = artifact.getVersion();
+                }
+            }
+        }
+        final ClassDataSharing classDataSharing = new ClassDataSharing(
+            classDataSharingDirectory,
+            String.format("%s-%s", pluginArtifactId, pluginVersion),
+            hibernateVersion,
+            classPath,
+            getLog()
+        );
+        if (!classDataSharing.isSupported()) {
+            getLog().debug(
+                "Class data sharing requires Java 13 or newer, starting the "
+                    + "JVMs without an archive."
+            );
+            return null;
+        }
+        return classDataSharing;
+    }
+
+    private static void addCodeSource(
+        final Class<?> clazz, final Set<String> classPath
+    ) {
+        final CodeSource codeSource = clazz
+            .getProtectionDomain()
+            .getCodeSource();
+        if (codeSource == null || codeSource.getLocation() == null) {
+            return;
+        }
+        try {
+            classPath.add(
+                new File(codeSource.getLocation().toURI()).getAbsolutePath()
+            );
+        } catch (URISyntaxException | IllegalArgumentException ex) {
+            // Not a file, can't be added to the classpath of the daemon
+            // or the forked JVMs.
+        }
+    }
+
+    /**
+     * Helper method for reading the persistence units from the
+     * {@link #persistenceXml} and selecting the units configured using
+     * {@link #persistenceUnits}.
+     *
+     * @return The selected persistence units.
+     *
+     * @throws MojoFailureException If the {@code persistence.xml} does not
+     *                              exist, contains no persistence units or if
+     *                              a configured persistence unit does not
+     *                              exist.
+     */
+    private List<PersistenceUnit> selectPersistenceUnits()
+        throws MojoFailureException {
+
+        if (persistenceXml == null || !persistenceXml.isFile()) {
+            throw new MojoFailureException(
+                String.format(
+                    "usePersistenceUnitClasses is set but the persistence.xml "
+                        + "file '%s' does not exist.",
+                    persistenceXml
+                )
+            );
+        }
+
+        final List<PersistenceUnit> units = PersistenceXmlParser.parse(
+            persistenceXml
+        );
+        if (units.isEmpty()) {
+            throw new MojoFailureException(
+                String.format(
+                    "The persistence.xml file '%s' contains no persistence "
+                        + "units.",
+                    persistenceXml.getPath()
+                )
+            );
+        }
+        if (persistenceUnits == null || persistenceUnits.length == 0) {
+            return units;
+        }
+
+        final List<PersistenceUnit> selected = new ArrayList<>();
+        for (final String unitName : persistenceUnits) {
+            final PersistenceUnit unit = units
+                .stream()
+                .filter(candidate -> candidate.getName().equals(unitName))
+                .findAny()
+                .orElseThrow(
+                    () -> new MojoFailureException(
+                        String.format(
+                            "Persistence unit '%s' not found in %s. Available "
+                                + "persistence units are: %s",
+                            unitName,
+                            persistenceXml.getPath(),
+                            units
+                                .stream()
+                                .map(PersistenceUnit::getName)
+                                .collect(Collectors.joining(", "))
+                        )
+                    )
+                );
+            selected.add(unit);
+        }
+        return selected;
+    }
+
+    /**
+     * Reads the properties listed in the
+     * {@link #getPersistencePropertiesToUse()} from a persistence unit in the
+     * {@link #persistenceXml}. The file is parsed only once and the result is
+     * cached until the file changes (see {@link PersistenceXmlParser}),
+     * therefore the {@link DdlGenerator} implementations should call this
+     * method once per execution and use the result for all dialects. Only
+     * the properties of one persistence unit are used.
+     *
+     * @param persistenceUnitName The name of the persistence unit. If
+     *                            {@code null} and the file contains several
+     *                            persistence units, the first one is used.
+     *
+     * @return The properties to use. Empty if the file does not exist, can't
+     *         be parsed or does not contain the persistence unit.
+     */
+    public Map<String, String> getPersistenceXmlProperties(
+        final String persistenceUnitName
+    ) {
+        if (persistenceXml == null) {
+            return Collections.emptyMap();
+        }
+        if (!persistenceXml.isFile()) {
+            getLog().warn(
+                String.format(
+                    "persistence.xml file '%s' does not exist. Ignoring.",
+                    persistenceXml.getPath()
+                )
+            );
+            return Collections.emptyMap();
+        }
+
+        final List<PersistenceUnit> units;
+        try {
+            units = PersistenceXmlParser.parse(persistenceXml);
+        } catch (MojoFailureException ex) {
+            getLog().error(
+                "Error parsing persistence.xml. Not processing properties.", ex
+            );
+            return Collections.emptyMap();
+        }
+
+        final PersistenceUnit unit = selectPropertiesUnit(
+            units, persistenceUnitName
+        );
+        if (unit == null) {
+            return Collections.emptyMap();
+        }
+
+        getLog().info(
+            String.format(
+                "persistence.xml found, using the properties of persistence "
+                    + "unit '%s'.",
+                unit.getName()
+            )
+        );
+        final Set<String> propertiesToUse = new HashSet<>(
+            Arrays.asList(getPersistencePropertiesToUse())
+        );
+        final Map<String, String> properties = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> property
+                 : unit.getProperties().entrySet()) {
+            if (propertiesToUse.contains(property.getKey())) {
+                getLog().info(
+                    String.format(
+                        "Found property %s = %s in persistence.xml",
+                        property.getKey(),
+                        property.getValue()
+                    )
+                );
+                properties.put(property.getKey(), property.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
+    private PersistenceUnit selectPropertiesUnit(
+        final List<PersistenceUnit> units, final String persistenceUnitName
+    ) {
+        if (units.isEmpty()) {
+            return null;
+        }
+        if (persistenceUnitName == null) {
+            if (units.size() > 1) {
+                getLog().warn(
+                    String.format(
+                        "persistence.xml contains %d persistence units, using "
+                            + "the properties of the first one ('%s'). Set "
+                            + "usePersistenceUnitClasses to generate the DDL "
+                            + "for each persistence unit.",
+                        units.size(),
+                        units.get(0).getName()
+                    )
+                );
+            }
+            return units.get(0);
+        }
+        for (final PersistenceUnit unit : units) {
+            if (unit.getName().equals(persistenceUnitName)) {
+                return unit;
+            }
+        }
+        getLog().warn(
+            String.format(
+                "Persistence unit '%s' not found in %s. Not processing "
+                    + "properties.",
+                persistenceUnitName,
+                persistenceXml.getPath()
+            )
+        );
+        return null;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String getOutputFileNamePrefix() {
+        return outputFileNamePrefix;
+    }
+
+    public void setOutputFileNamePrefix(final String outputFileNamePrefix) {
+        this.outputFileNamePrefix = outputFileNamePrefix;
+    }
+
+    public String getOutputFileNameSuffix() {
+        return outputFileNameSuffix;
+    }
+
+    public void setOutputFileNameSuffix(final String outputFileNameSuffix) {
+        this.outputFileNameSuffix = outputFileNameSuffix;
+    }
+
+    public boolean isOmitDialectFromFileName() {
+        return omitDialectFromFileName;
+    }
+
+    public void setOmitDialectFromFileName(final boolean omitDialectFromFileName) {
+        this.omitDialectFromFileName = omitDialectFromFileName;
+    }
+
+    public String[] getPackages() {
+        return Arrays.copyOf(packages, packages.length);
+    }
+
+    public void setPackages(final String... packages) {
+        this.packages = Arrays.copyOf(packages, packages.length);
+    }
+
+    public String[] getDialects() {
+        return Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public void setDialects(final String... dialects) {
+        this.dialects = Arrays.copyOf(dialects, dialects.length);
+    }
+
+    public String[] getCustomDialects() {
+        return Arrays.copyOf(customDialects, customDialects.length);
+    }
+
+    public void setCustomDialects(final String... customDialects) {
+        this.customDialects = Arrays.copyOf(customDialects,
+                                            customDialects.length);
+    }
+
+    public int getGenerationThreads() {
+        return generationThreads;
+    }
+
+    public void setGenerationThreads(final int generationThreads) {
+        this.generationThreads = generationThreads;
+    }
+
+    public boolean isOfflineBoot() {
+        return offlineBoot;
+    }
+
+    public void setOfflineBoot(final boolean offlineBoot) {
+        this.offlineBoot = offlineBoot;
+    }
+
+    public String[] getOfflineBootIntegrators() {
+        return copyOrEmpty(offlineBootIntegrators);
+    }
+
+    public void setOfflineBootIntegrators(
+        final String... offlineBootIntegrators
+    ) {
+        this.offlineBootIntegrators = copyOrEmpty(offlineBootIntegrators);
+    }
+
+    public String getPartitioning() {
+        return partitioning;
+    }
+
+    public void setPartitioning(final String partitioning) {
+        this.partitioning = partitioning;
+    }
+
+    public String[] getPartitions() {
+        return copyOrEmpty(partitions);
+    }
+
+    public void setPartitions(final String... partitions) {
+        this.partitions = copyOrEmpty(partitions);
+    }
+
+    public int getMaxPartitionSize() {
+        return maxPartitionSize;
+    }
+
+    public void setMaxPartitionSize(final int maxPartitionSize) {
+        this.maxPartitionSize = maxPartitionSize;
+    }
+
+    public boolean isUseJandexIndex() {
+        return useJandexIndex;
+    }
+
+    public void setUseJandexIndex(final boolean useJandexIndex) {
+        this.useJandexIndex = useJandexIndex;
+    }
+
+    public File getJandexIndexDirectory() {
+        return jandexIndexDirectory;
+    }
+
+    public void setJandexIndexDirectory(final File jandexIndexDirectory) {
+        this.jandexIndexDirectory = jandexIndexDirectory;
+    }
+
+    public boolean isLogHibernateServices() {
+        return logHibernateServices;
+    }
+
+    public void setLogHibernateServices(final boolean logHibernateServices) {
+        this.logHibernateServices = logHibernateServices;
+    }
+
+    public boolean isCreateDropStatements() {
+        return createDropStatements;
+    }
+
+    @SuppressWarnings("PMD.LongVariable")
+    public void setCreateDropStatements(final boolean createDropStatments) {
+        this.createDropStatements = createDropStatments;
+    }
+
+    public File getPersistenceXml() {
+        return persistenceXml;
+    }
+
+    public void setPersistenceXml(final File persistenceXml) {
+        this.persistenceXml = persistenceXml;
+    }
+
+    public File getWorkDirectory() {
+        return workDirectory;
+    }
 
-        for (final Dialect dialect : convertDialects()) {
-            ddlGenerator.generateDdl(
-                dialect, annotatedPackages, entityClasses, this
-            );
-        }
+    public void setWorkDirectory(final File workDirectory) {
+        this.workDirectory = workDirectory;
+    }
 
-        if (customDialects != null) {
-            for (final String customDialect : customDialects) {
-                ddlGenerator.generateDdl(
-                    customDialect, annotatedPackages, entityClasses, this
-                );
-            }
-        }
+    public boolean isUseDaemon() {
+        return useDaemon;
     }
 
-    public File getOutputDirectory() {
-        return outputDirectory;
+    public void setUseDaemon(final boolean useDaemon) {
+        this.useDaemon = useDaemon;
     }
 
-    public void setOutputDirectory(final File outputDirectory) {
-        this.outputDirectory = outputDirectory;
+    public File getDaemonDirectory() {
+        return daemonDirectory;
     }
 
-    public String getOutputFileNamePrefix() {
-        return outputFileNamePrefix;
+    public void setDaemonDirectory(final File daemonDirectory) {
+        this.daemonDirectory = daemonDirectory;
     }
 
-    public void setOutputFileNamePrefix(final String outputFileNamePrefix) {
-        this.outputFileNamePrefix = outputFileNamePrefix;
+    public int getDaemonIdleTimeout() {
+        return daemonIdleTimeout;
     }
 
-    public String getOutputFileNameSuffix() {
-        return outputFileNameSuffix;
+    public void setDaemonIdleTimeout(final int daemonIdleTimeout) {
+        this.daemonIdleTimeout = daemonIdleTimeout;
     }
 
-    public void setOutputFileNameSuffix(final String outputFileNameSuffix) {
-        this.outputFileNameSuffix = outputFileNameSuffix;
+    public String getDaemonMaxHeap() {
+        return daemonMaxHeap;
     }
 
-    public boolean isOmitDialectFromFileName() {
-        return omitDialectFromFileName;
+    public void setDaemonMaxHeap(final String daemonMaxHeap) {
+        this.daemonMaxHeap = daemonMaxHeap;
     }
 
-    public void setOmitDialectFromFileName(final boolean omitDialectFromFileName) {
-        this.omitDialectFromFileName = omitDialectFromFileName;
+    public String getDaemonMaxMetaspace() {
+        return daemonMaxMetaspace;
     }
 
-    public String[] getPackages() {
-        return Arrays.copyOf(packages, packages.length);
+    public void setDaemonMaxMetaspace(final String daemonMaxMetaspace) {
+        this.daemonMaxMetaspace = daemonMaxMetaspace;
     }
 
-    public void setPackages(final String... packages) {
-        this.packages = Arrays.copyOf(packages, packages.length);
+    public int getDaemonCachedClassLoaders() {
+        return daemonCachedClassLoaders;
     }
 
-    public String[] getDialects() {
-        return Arrays.copyOf(dialects, dialects.length);
+    public void setDaemonCachedClassLoaders(
+        final int daemonCachedClassLoaders
+    ) {
+        this.daemonCachedClassLoaders = daemonCachedClassLoaders;
     }
 
-    public void setDialects(final String... dialects) {
-        this.dialects = Arrays.copyOf(dialects, dialects.length);
+    public int getForkCount() {
+        return forkCount;
     }
 
-    public String[] getCustomDialects() {
-        return Arrays.copyOf(customDialects, customDialects.length);
+    public void setForkCount(final int forkCount) {
+        this.forkCount = forkCount;
     }
 
-    public void setCustomDialects(final String... customDialects) {
-        this.customDialects = Arrays.copyOf(customDialects,
-                                            customDialects.length);
+    public String[] getForkJvmArgs() {
+        return copyOrEmpty(forkJvmArgs);
     }
 
-    public boolean isCreateDropStatements() {
-        return createDropStatements;
+    public void setForkJvmArgs(final String... forkJvmArgs) {
+        this.forkJvmArgs = copyOrEmpty(forkJvmArgs);
     }
 
-    @SuppressWarnings("PMD.LongVariable")
-    public void setCreateDropStatements(final boolean createDropStatments) {
-        this.createDropStatements = createDropStatments;
+    public boolean isUseClassDataSharing() {
+        return useClassDataSharing;
     }
 
-    public File getPersistenceXml() {
-        return persistenceXml;
+    public void setUseClassDataSharing(final boolean useClassDataSharing) {
+        this.useClassDataSharing = useClassDataSharing;
     }
 
-    public void setPersistenceXml(final File persistenceXml) {
-        this.persistenceXml = persistenceXml;
+    public File getClassDataSharingDirectory() {
+        return classDataSharingDirectory;
+    }
+
+    public void setClassDataSharingDirectory(
+        final File classDataSharingDirectory
+    ) {
+        this.classDataSharingDirectory = classDataSharingDirectory;
+    }
+
+    public boolean isUsePersistenceUnitClasses() {
+        return usePersistenceUnitClasses;
+    }
+
+    public void setUsePersistenceUnitClasses(
+        final boolean usePersistenceUnitClasses
+    ) {
+        this.usePersistenceUnitClasses = usePersistenceUnitClasses;
+    }
+
+    public String[] getPersistenceUnits() {
+        return copyOrEmpty(persistenceUnits);
+    }
+
+    public void setPersistenceUnits(final String... persistenceUnits) {
+        this.persistenceUnits = copyOrEmpty(persistenceUnits);
     }
 
     public String[] getPersistencePropertiesToUse() {
@@ -374,6 +1657,22 @@ public class GenerateDdlMojo extends AbstractMojo {
         this.project = project;
     }
 
+    protected BuildContext getBuildContext() {
+        return buildContext;
+    }
+
+    protected void setBuildContext(final BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+
+    protected MavenSession getSession() {
+        return session;
+    }
+
+    protected void setSession(final MavenSession session) {
+        this.session = session;
+    }
+
     public boolean isIncludeTestClasses() {
         return includeTestClasses;
     }
@@ -382,6 +1681,313 @@ public class GenerateDdlMojo extends AbstractMojo {
         this.includeTestClasses = includeTestClasses;
     }
 
+    public boolean isUseScanCache() {
+        return useScanCache;
+    }
+
+    public void setUseScanCache(final boolean useScanCache) {
+        this.useScanCache = useScanCache;
+    }
+
+    public File getScanCacheFile() {
+        return scanCacheFile;
+    }
+
+    public void setScanCacheFile(final File scanCacheFile) {
+        this.scanCacheFile = scanCacheFile;
+    }
+
+    public boolean isIncrementalScan() {
+        return incrementalScan;
+    }
+
+    public void setIncrementalScan(final boolean incrementalScan) {
+        this.incrementalScan = incrementalScan;
+    }
+
+    public File getIncrementalStateDirectory() {
+        return incrementalStateDirectory;
+    }
+
+    public void setIncrementalStateDirectory(
+        final File incrementalStateDirectory
+    ) {
+        this.incrementalStateDirectory = incrementalStateDirectory;
+    }
+
+    public boolean isUseJarScanCache() {
+        return useJarScanCache;
+    }
+
+    public void setUseJarScanCache(final boolean useJarScanCache) {
+        this.useJarScanCache = useJarScanCache;
+    }
+
+    public File getJarScanCacheDirectory() {
+        return jarScanCacheDirectory;
+    }
+
+    public void setJarScanCacheDirectory(final File jarScanCacheDirectory) {
+        this.jarScanCacheDirectory = jarScanCacheDirectory;
+    }
+
+    public String getScanScope() {
+        return scanScope;
+    }
+
+    public void setScanScope(final String scanScope) {
+        this.scanScope = scanScope;
+    }
+
+    public String[] getScanArtifacts() {
+        if (scanArtifacts == null) {
+            return new String[]{};
+        } else {
+            return Arrays.copyOf(scanArtifacts, scanArtifacts.length);
+        }
+    }
+
+    public void setScanArtifacts(final String... scanArtifacts) {
+        this.scanArtifacts = Arrays.copyOf(scanArtifacts, scanArtifacts.length);
+    }
+
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(final int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    public boolean isShareScanExecutor() {
+        return shareScanExecutor;
+    }
+
+    public void setShareScanExecutor(final boolean shareScanExecutor) {
+        this.shareScanExecutor = shareScanExecutor;
+    }
+
+    public boolean isUseReactorCache() {
+        return useReactorCache;
+    }
+
+    public void setUseReactorCache(final boolean useReactorCache) {
+        this.useReactorCache = useReactorCache;
+    }
+
+    public boolean isUseEntityIndex() {
+        return useEntityIndex;
+    }
+
+    public void setUseEntityIndex(final boolean useEntityIndex) {
+        this.useEntityIndex = useEntityIndex;
+    }
+
+    public String[] getIncludeEntities() {
+        return copyOrEmpty(includeEntities);
+    }
+
+    public void setIncludeEntities(final String... includeEntities) {
+        this.includeEntities = copyOrEmpty(includeEntities);
+    }
+
+    public String[] getExcludeEntities() {
+        return copyOrEmpty(excludeEntities);
+    }
+
+    public void setExcludeEntities(final String... excludeEntities) {
+        this.excludeEntities = copyOrEmpty(excludeEntities);
+    }
+
+    public String[] getIncludeAnnotations() {
+        return copyOrEmpty(includeAnnotations);
+    }
+
+    public void setIncludeAnnotations(final String... includeAnnotations) {
+        this.includeAnnotations = copyOrEmpty(includeAnnotations);
+    }
+
+    public String[] getExcludeAnnotations() {
+        return copyOrEmpty(excludeAnnotations);
+    }
+
+    public void setExcludeAnnotations(final String... excludeAnnotations) {
+        this.excludeAnnotations = copyOrEmpty(excludeAnnotations);
+    }
+
+    public String[] getRootEntities() {
+        return copyOrEmpty(rootEntities);
+    }
+
+    public void setRootEntities(final String... rootEntities) {
+        this.rootEntities = copyOrEmpty(rootEntities);
+    }
+
+    private static String[] copyOrEmpty(final String[] values) {
+        if (values == null) {
+            return new String[]{};
+        } else {
+            return Arrays.copyOf(values, values.length);
+        }
+    }
+
+    /**
+     * Helper method for creating the {@link EntityFilter} applied to the
+     * entities found by the {@link EntityFinder}.
+     *
+     * @return The entity filter.
+     *
+     * @throws MojoFailureException If no {@link DdlGenerator} is available.
+     */
+    private EntityFilter createEntityFilter() throws MojoFailureException {
+        final EntityFilter filter = new EntityFilter();
+        filter.setIncludes(getIncludeEntities());
+        filter.setExcludes(getExcludeEntities());
+        filter.setIncludeAnnotations(getIncludeAnnotations());
+        filter.setExcludeAnnotations(getExcludeAnnotations());
+        filter.setRootEntities(getRootEntities());
+        filter.setPersistenceAnnotations(
+            getDdlGenerator().getPersistenceAnnotations()
+        );
+        return filter;
+    }
+
+    /**
+     * Helper method for creating the {@link ScanSettings} passed to the
+     * {@link EntityFinder}.
+     *
+     * @return The settings for the classpath scan.
+     *
+     * @throws MojoFailureException If the {@link #scanScope} is invalid or
+     *                              if no {@link DdlGenerator} is available.
+     */
+    private ScanSettings createScanSettings() throws MojoFailureException {
+        final ScanSettings settings = new ScanSettings();
+        // Only the annotations bound by the generator are recognised, the
+        // Hibernate 5 generator ignores jakarta.persistence entities and the
+        // Hibernate 6 generator ignores javax.persistence entities.
+        settings.setPersistenceAnnotations(
+            getDdlGenerator().getPersistenceAnnotations()
+        );
+        settings.setIncludeTestClasses(includeTestClasses);
+        if (useScanCache) {
+            settings.setScanCacheFile(scanCacheFile);
+        }
+        if (incrementalScan) {
+            settings.setIncrementalStateDirectory(incrementalStateDirectory);
+        }
+        settings.setBuildContext(buildContext);
+        if (useJarScanCache) {
+            settings.setJarScanCacheDirectory(jarScanCacheDirectory);
+        }
+        settings.setScanScope(convertScanScope());
+        settings.setScanArtifacts(getScanArtifacts());
+        settings.setScanThreads(scanThreads);
+        settings.setShareScanExecutor(shareScanExecutor);
+        settings.setUseEntityIndex(useEntityIndex);
+        settings.setReactorCache(reactorCache);
+        return settings;
+    }
+
+    /**
+     * Helper method for converting the {@link #scanScope} parameter to an
+     * instance of the {@link ScanScope} enumeration.
+     *
+     * @return The scan scope.
+     *
+     * @throws MojoFailureException If the value of the parameter does not
+     *                              match any of the available scopes.
+     */
+    private ScanScope convertScanScope() throws MojoFailureException {
+        if (scanScope == null || scanScope.isEmpty()) {
+            return ScanScope.PROJECT;
+        }
+
+        try {
+            return ScanScope.valueOf(scanScope.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Invalid scan scope '%s'. Available scan scopes are: %s",
+                    scanScope,
+                    Arrays.toString(ScanScope.values())
+                ),
+                ex
+            );
+        }
+    }
+
+    /**
+     * Helper method for collecting the class names of the configured dialects
+     * and custom dialects. Each class name is only returned once, see
+     * {@link #groupDialects()}.
+     *
+     * @return The class names of all dialects to use.
+     *
+     * @throws MojoFailureException If a dialect can't be converted.
+     */
+    private List<String> getDialectClassNames() throws MojoFailureException {
+        return new ArrayList<>(groupDialects().keySet());
+    }
+
+    /**
+     * Helper method for grouping the configured dialects and custom dialects
+     * by the dialect class they resolve to. Some values of the
+     * {@link Dialect} enumeration are aliases for the same class, for example
+     * {@link Dialect#DB2400} and {@link Dialect#DB2_AS400}, and custom
+     * dialects may repeat the class of a configured dialect. The DDL file is
+     * named after the dialect class, therefore generating the DDL once per
+     * class creates the file for all dialects of the group.
+     *
+     * @return The names of the configured dialects keyed by the class name
+     *         they resolve to, in the order of the configuration.
+     *
+     * @throws MojoFailureException If a dialect can't be converted.
+     */
+    private Map<String, List<String>> groupDialects()
+        throws MojoFailureException {
+        final Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (final Dialect dialect : convertDialects()) {
+            groups
+                .computeIfAbsent(
+                    dialect.getDialectClassName(), key -> new ArrayList<>()
+                )
+                .add(dialect.name());
+        }
+        if (customDialects != null) {
+            for (final String customDialect : customDialects) {
+                groups
+                    .computeIfAbsent(
+                        customDialect.trim(), key -> new ArrayList<>()
+                    )
+                    .add(String.format("%s (custom)", customDialect.trim()));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Helper method for logging the dialects which resolve to the same
+     * dialect class. The DDL for these dialects is only generated once.
+     *
+     * @throws MojoFailureException If a dialect can't be converted.
+     */
+    private void logDialectGroups() throws MojoFailureException {
+        for (final Map.Entry<String, List<String>> group
+                 : groupDialects().entrySet()) {
+            if (group.getValue().size() > 1) {
+                getLog().info(
+                    String.format(
+                        "Dialects %s resolve to %s, generating the DDL once "
+                            + "for them.",
+                        String.join(", ", group.getValue()),
+                        group.getKey()
+                    )
+                );
+            }
+        }
+    }
+
     /**
      * Helper method which reads the dialects from the parameter and converts
      * them into instances of the {@link Dialect} enumeration.
@@ -392,7 +1998,9 @@ public class GenerateDdlMojo extends AbstractMojo {
      */
     private Set<Dialect> convertDialects() throws MojoFailureException {
 
-        final Set<Dialect> dialectsList = new HashSet<>();
+        // Keeps the order of the configuration, the DDL files are generated
+        // in this order.
+        final Set<Dialect> dialectsList = new LinkedHashSet<>();
         if (dialects != null) {
             for (final String dialect : dialects) {
                 convertDialect(dialect, dialectsList);
@@ -437,18 +2045,137 @@ public class GenerateDdlMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Creates a new, empty directory for the files generated by a
+     * {@link DdlGenerator}. The directory is created in the
+     * {@link #workDirectory} and its name is unique, therefore no other
+     * execution uses the same directory. The {@link DdlGenerator} is
+     * responsible for deleting the directory.
+     *
+     * @return The path of the new directory.
+     *
+     * @throws MojoFailureException If the directory can't be created.
+     */
+    protected Path createWorkDirectory() throws MojoFailureException {
+        try {
+            if (workDirectory == null) {
+                return Files.createTempDirectory("hibernate5-ddl-maven-plugin");
+            } else {
+                Files.createDirectories(workDirectory.toPath());
+                return Files.createTempDirectory(
+                    workDirectory.toPath(), "gen-ddl"
+                );
+            }
+        } catch (IOException ex) {
+            throw new MojoFailureException("Failed to create work dir.", ex);
+        }
+    }
+
     protected void writeOutputFile(final String dialectClassName,
                                    final Path tmpDir)
         throws MojoFailureException {
 
-        final OutputFileWriter writer = new OutputFileWriter(outputDirectory);
+        writeOutputFile(dialectClassName, tmpDir, null);
+    }
+
+    /**
+     * Writes the DDL file generated for a dialect to the output directory.
+     * If DDL files for more than one persistence unit are generated the file
+     * is written into a subdirectory named after the persistence unit of the
+     * provided {@link EntitySources}. Synchronized because the files of
+     * several dialects may be generated in parallel (see
+     * {@link #generationThreads}).
+     *
+     * @param dialectClassName The dialect of the DDL file.
+     * @param tmpDir           The temporary directory containing the
+     *                         generated DDL file.
+     * @param entitySources    The entity sources for which the DDL file was
+     *                         generated. May be {@code null}.
+     *
+     * @throws MojoFailureException If the file can't be written.
+     */
+    protected synchronized void writeOutputFile(
+        final String dialectClassName,
+        final Path tmpDir,
+        final EntitySources entitySources
+    )
+        throws MojoFailureException {
+
+        final OutputFileWriter writer = createOutputFileWriter(entitySources);
+        writer.writeOutputFile(dialectClassName, tmpDir);
+
+        if (buildContext != null) {
+            buildContext.refresh(writer.getOutputDirectory());
+        }
+    }
+
+    /**
+     * Writes the DDL generated for a dialect to the output directory. Used by
+     * {@link DdlGenerator} implementations which collect the generated DDL in
+     * memory. The same rules as for
+     * {@link #writeOutputFile(String, Path, EntitySources)} apply.
+     *
+     * @param dialectClassName The dialect of the DDL file.
+     * @param ddl              The generated DDL.
+     * @param entitySources    The entity sources for which the DDL was
+     *                         generated. May be {@code null}.
+     *
+     * @throws MojoFailureException If the file can't be written.
+     */
+    protected synchronized void writeOutputFile(
+        final String dialectClassName,
+        final String ddl,
+        final EntitySources entitySources
+    ) throws MojoFailureException {
+
+        final OutputFileWriter writer = createOutputFileWriter(entitySources);
+        writer.writeOutputFile(dialectClassName, ddl);
+
+        if (buildContext != null) {
+            buildContext.refresh(writer.getOutputDirectory());
+        }
+    }
+
+    /**
+     * Helper method for determining the directory for the DDL files. If DDL
+     * files for more than one persistence unit are generated the files are
+     * written into a subdirectory named after the persistence unit.
+     *
+     * @param entitySources The entity sources. May be {@code null}.
+     *
+     * @return The directory for the DDL files.
+     */
+    private File getOutputDirectory(final EntitySources entitySources) {
+        if (separateUnitDirectories
+                && entitySources != null
+                && entitySources.getPersistenceUnitName() != null) {
+            return new File(
+                outputDirectory, entitySources.getPersistenceUnitName()
+            );
+        } else {
+            return outputDirectory;
+        }
+    }
+
+    /**
+     * Helper method for creating the {@link OutputFileWriter} for the
+     * provided entity sources.
+     *
+     * @param entitySources The entity sources. May be {@code null}.
+     *
+     * @return The {@link OutputFileWriter}.
+     */
+    private OutputFileWriter createOutputFileWriter(
+        final EntitySources entitySources
+    ) {
+        final OutputFileWriter writer = new OutputFileWriter(
+            getOutputDirectory(entitySources)
+        );
         writer.setOmitDialectFromFileName(omitDialectFromFileName
                                               && dialects.length == 1);
         writer.setOutputFileNamePrefix(outputFileNamePrefix);
         writer.setOutputFileNameSuffix(outputFileNameSuffix);
-
-        writer.writeOutputFile(dialectClassName, tmpDir);
-
+        return writer;
     }
 
     public String getDialectNameFromClassName(final String dialectClassName) {
@@ -0,0 +1,505 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A background JVM which generates DDL files on behalf of the
+ * {@link GenerateDdlMojo}. Started by the {@link DaemonClient} if the
+ * {@code useDaemon} parameter is set. Hibernate stays loaded and warmed up
+ * between the requests, and the class loaders for the dependencies of the
+ * projects are cached, keyed by the fingerprint of the JAR files. The output
+ * directories of a project are always loaded by a new class loader.
+ *
+ * The daemon listens on a port of the loopback interface. The port and a
+ * random token, which has to be sent with every request, are written into
+ * the state file, which is only readable by the owner (if supported by the
+ * file system). The daemon shuts down if it has not received a request
+ * within the idle timeout. If the heap or the metaspace is nearly exhausted
+ * the cached class loaders are released. After an {@link OutOfMemoryError}
+ * the daemon shuts down, the next execution starts a new daemon.
+ *
+ * The output of the daemon is written to a log file next to the state file.
+ * The log entries for a request are also sent back to the client, which
+ * writes them to the Maven log.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class GeneratorDaemon {
+
+    private static final double MEMORY_THRESHOLD = 0.8;
+
+    private final Path stateFile;
+
+    private final long idleTimeoutMillis;
+
+    private final int cachedClassLoaders;
+
+    private final String token;
+
+    private final Map<String, CachedClassLoader> classLoaders;
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    private GeneratorDaemon(
+        final Path stateFile,
+        final long idleTimeoutMillis,
+        final int cachedClassLoaders
+    ) {
+        this.stateFile = stateFile;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.cachedClassLoaders = Math.max(1, cachedClassLoaders);
+        final byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = ScanCache.toHex(tokenBytes);
+        // Access ordered, the least recently used class loader is the first
+        // one.
+        this.classLoaders = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Starts the daemon.
+     *
+     * @param args The path of the state file, the idle timeout in minutes and
+     *             the maximum number of cached class loaders.
+     *
+     * @throws IOException If the daemon can't be started.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException(
+                "Usage: GeneratorDaemon <state file> <idle timeout in minutes> "
+                    + "<cached class loaders>"
+            );
+        }
+        final GeneratorDaemon daemon = new GeneratorDaemon(
+            Paths.get(args[0]),
+            TimeUnit.MINUTES.toMillis(Integer.parseInt(args[1])),
+            Integer.parseInt(args[2])
+        );
+        daemon.run();
+        System.exit(0);
+    }
+
+    private void run() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        try (ServerSocket serverSocket = new ServerSocket(
+            0, 50, InetAddress.getLoopbackAddress()
+        )) {
+            writeState(serverSocket.getLocalPort());
+            log(
+                "Generator daemon started on port %d, idle timeout %d "
+                    + "minutes.",
+                serverSocket.getLocalPort(),
+                TimeUnit.MILLISECONDS.toMinutes(idleTimeoutMillis)
+            );
+            serverSocket.setSoTimeout((int) Math.min(
+                idleTimeoutMillis, Integer.MAX_VALUE
+            ));
+            while (running) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketTimeoutException ex) {
+                    if (activeRequests.get() == 0) {
+                        log("Idle timeout reached, shutting down.");
+                        break;
+                    }
+                    continue;
+                }
+                activeRequests.incrementAndGet();
+                executor.execute(() -> handle(socket));
+            }
+        } finally {
+            executor.shutdownNow();
+            deleteState();
+            synchronized (classLoaders) {
+                for (final CachedClassLoader cached : classLoaders.values()) {
+                    cached.evict();
+                }
+                classLoaders.clear();
+            }
+        }
+    }
+
+    private void handle(final Socket socket) {
+        try (Socket connection = socket) {
+            final Properties request = DaemonProtocol.read(
+                connection.getInputStream()
+            );
+            final Properties response = process(request);
+            DaemonProtocol.write(connection.getOutputStream(), response);
+        } catch (IOException ex) {
+            log("Failed to process request: %s", ex.getMessage());
+        } catch (OutOfMemoryError ex) {
+            // The state of the JVM is unknown, the next execution starts a
+            // new daemon.
+            running = false;
+            log("Out of memory, shutting down.");
+            deleteState();
+            Runtime.getRuntime().halt(1);
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    private Properties process(final Properties request) {
+        final Properties response = new Properties();
+        final byte[] expected = token.getBytes(StandardCharsets.UTF_8);
+        final byte[] actual = request
+            .getProperty(DaemonProtocol.TOKEN, "")
+            .getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            response.setProperty(
+                DaemonProtocol.STATUS, DaemonProtocol.STATUS_ERROR
+            );
+            response.setProperty(DaemonProtocol.MESSAGE, "Invalid token.");
+            return response;
+        }
+
+        final String type = request.getProperty(DaemonProtocol.TYPE, "");
+        if (DaemonProtocol.TYPE_PING.equals(type)) {
+            response.setProperty(DaemonProtocol.STATUS, DaemonProtocol.STATUS_OK);
+        } else if (DaemonProtocol.TYPE_SHUTDOWN.equals(type)) {
+            running = false;
+            response.setProperty(DaemonProtocol.STATUS, DaemonProtocol.STATUS_OK);
+        } else if (DaemonProtocol.TYPE_GENERATE.equals(type)) {
+            generate(request, response);
+        } else {
+            response.setProperty(
+                DaemonProtocol.STATUS, DaemonProtocol.STATUS_ERROR
+            );
+            response.setProperty(
+                DaemonProtocol.MESSAGE,
+                String.format("Unknown request type '%s'.", type)
+            );
+        }
+        return response;
+    }
+
+    private void generate(final Properties request, final Properties response) {
+        final long start = System.nanoTime();
+        final CollectingLog log = new CollectingLog(
+            Boolean.parseBoolean(request.getProperty(DaemonProtocol.DEBUG))
+        );
+
+        final List<String> jars = new ArrayList<>();
+        final List<String> directories = new ArrayList<>();
+        for (final String element : DaemonProtocol.split(
+            request.getProperty(DaemonProtocol.CLASSPATH)
+        )) {
+            if (new File(element).isDirectory()) {
+                directories.add(element);
+            } else {
+                jars.add(element);
+            }
+        }
+
+        CachedClassLoader dependencies = null;
+        try {
+            dependencies = acquireClassLoader(jars, log);
+            final EntitySources entitySources = RemoteGeneration
+                .createEntitySources(
+                    request, directories, dependencies.getClassLoader()
+                );
+            try {
+                final GenerateDdlMojo mojo = new GenerateDdlMojo();
+                RemoteGeneration.configure(mojo, request, log);
+                mojo.generateDdlInProcess(entitySources);
+            } finally {
+                entitySources.close();
+            }
+            response.setProperty(DaemonProtocol.STATUS, DaemonProtocol.STATUS_OK);
+        } catch (MojoFailureException | IOException | RuntimeException
+                     | LinkageError ex) {
+            log.error("Failed to generate the DDL files.", ex);
+            response.setProperty(
+                DaemonProtocol.STATUS, DaemonProtocol.STATUS_ERROR
+            );
+            response.setProperty(
+                DaemonProtocol.MESSAGE, String.valueOf(ex.getMessage())
+            );
+        } finally {
+            if (dependencies != null) {
+                releaseClassLoader(dependencies);
+            }
+        }
+
+        log.info(
+            String.format(
+                "Generated the DDL files in %d ms.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            )
+        );
+        log.writeTo(response);
+        checkMemory();
+    }
+
+    private CachedClassLoader acquireClassLoader(
+        final List<String> jars, final Log log
+    ) throws MojoFailureException {
+        final String key = ScanCache.fingerprint(log, jars);
+        synchronized (classLoaders) {
+            CachedClassLoader cached = key == null
+                                           ? null
+                                           : classLoaders.get(key);
+            if (cached == null) {
+                cached = new CachedClassLoader(
+                    new URLClassLoader(
+                        RemoteGeneration.toUrls(jars), GeneratorDaemon.class.getClassLoader()
+                    )
+                );
+                if (key != null) {
+                    classLoaders.put(key, cached);
+                    evictClassLoaders(cachedClassLoaders);
+                }
+                log.debug("Created a new class loader for the dependencies.");
+            } else {
+                log.debug("Reusing the cached class loader for the dependencies.");
+            }
+            cached.acquire();
+            return cached;
+        }
+    }
+
+    private void releaseClassLoader(final CachedClassLoader cached) {
+        synchronized (classLoaders) {
+            cached.release();
+            if (!classLoaders.containsValue(cached)) {
+                // Not cached (no fingerprint) or already evicted.
+                cached.evict();
+            }
+        }
+    }
+
+    private void evictClassLoaders(final int limit) {
+        final Iterator<CachedClassLoader> iterator = classLoaders
+            .values()
+            .iterator();
+        while (classLoaders.size() > limit && iterator.hasNext()) {
+            final CachedClassLoader cached = iterator.next();
+            iterator.remove();
+            cached.evict();
+        }
+    }
+
+    /**
+     * Releases the cached class loaders if the heap or the metaspace is
+     * nearly exhausted.
+     */
+    private void checkMemory() {
+        final MemoryUsage heap = ManagementFactory
+            .getMemoryMXBean()
+            .getHeapMemoryUsage();
+        boolean exhausted = isNearlyExhausted(heap);
+        for (final MemoryPoolMXBean pool
+                 : ManagementFactory.getMemoryPoolMXBeans()) {
+            if ("Metaspace".equals(pool.getName())) {
+                exhausted = exhausted || isNearlyExhausted(pool.getUsage());
+            }
+        }
+        if (exhausted) {
+            log("Memory nearly exhausted, releasing the cached class loaders.");
+            synchronized (classLoaders) {
+                evictClassLoaders(0);
+            }
+        }
+    }
+
+    private static boolean isNearlyExhausted(final MemoryUsage usage) {
+        return usage.getMax() > 0
+                   && usage.getUsed() > usage.getMax() * MEMORY_THRESHOLD;
+    }
+
+    private void writeState(final int port) throws IOException {
+        final Properties state = new Properties();
+        state.setProperty("port", Integer.toString(port));
+        state.setProperty(DaemonProtocol.TOKEN, token);
+        state.setProperty("pid", Long.toString(ProcessHandle.current().pid()));
+
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        final Path tmpPath = Files.createTempFile(
+            stateFile.toAbsolutePath().getParent(),
+            stateFile.getFileName().toString(),
+            ".tmp"
+        );
+        try {
+            Files.setPosixFilePermissions(
+                tmpPath, PosixFilePermissions.fromString("rw-------")
+            );
+        } catch (UnsupportedOperationException ex) {
+            // Not a POSIX file system.
+        }
+        try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+            state.store(outputStream, "hibernate5-ddl-maven-plugin daemon");
+        }
+        Files.move(
+            tmpPath,
+            stateFile,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+    private void deleteState() {
+        // Only delete the state file if it still belongs to this daemon.
+        final Properties state = new Properties();
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            state.load(inputStream);
+            if (token.equals(state.getProperty(DaemonProtocol.TOKEN))) {
+                Files.deleteIfExists(stateFile);
+            }
+        } catch (IOException ex) {
+            // Already deleted or replaced.
+        }
+    }
+
+    private static void log(final String format, final Object... args) {
+        System.out.printf(
+            "%s %s%n", LocalDateTime.now(), String.format(format, args)
+        );
+    }
+
+    /**
+     * A class loader for the dependencies of a project, shared by all
+     * requests with the same dependencies. The class loader is closed when
+     * it has been evicted from the cache and is no longer used by a request.
+     */
+    private static class CachedClassLoader {
+
+        private final URLClassLoader classLoader;
+
+        private int users;
+
+        private boolean evicted;
+
+        CachedClassLoader(final URLClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+
+        public URLClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        public void acquire() {
+            users++;
+        }
+
+        public void release() {
+            users--;
+            closeIfUnused();
+        }
+
+        public void evict() {
+            evicted = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (evicted && users <= 0) {
+                try {
+                    classLoader.close();
+                } catch (IOException ex) {
+                    log("Failed to close class loader: %s", ex.getMessage());
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A {@link Log} which collects the entries for a request. The entries are
+     * sent back to the client and are also written to the log of the daemon.
+     */
+    private static class CollectingLog extends RemoteLog {
+
+        private final List<String[]> entries = new ArrayList<>();
+
+        CollectingLog(final boolean debugEnabled) {
+            super(debugEnabled);
+        }
+
+        public synchronized void writeTo(final Properties response) {
+            response.setProperty(
+                DaemonProtocol.LOG_COUNT, Integer.toString(entries.size())
+            );
+            for (int i = 0; i < entries.size(); i++) {
+                response.setProperty(
+                    String.format("log.%d.level", i), entries.get(i)[0]
+                );
+                response.setProperty(
+                    String.format("log.%d.message", i), entries.get(i)[1]
+                );
+            }
+        }
+
+        @Override
+        protected synchronized void add(
+            final String level, final String message
+        ) {
+            entries.add(new String[]{level, message});
+            if (!"debug".equals(level)) {
+                log("[%s] %s", level, message);
+            }
+        }
+
+    }
+
+}
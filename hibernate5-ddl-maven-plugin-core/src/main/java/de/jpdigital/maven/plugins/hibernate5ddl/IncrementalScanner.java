@@ -0,0 +1,492 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import org.apache.maven.plugin.logging.Log;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scans an output directory of the project incrementally. The classfiles of
+ * the directory, their hashes and the result of the inspection of each
+ * classfile are stored in a state file. On the next run only the classfiles
+ * which were changed or added since the last run are inspected again, the
+ * results for the other classfiles are taken from the state file.
+ *
+ * If the {@link BuildContext} of the build (for example the build context of
+ * m2e) reports that the directory has not changed at all the directory is not
+ * even walked.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class IncrementalScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final String PACKAGE_INFO = "package-info";
+
+    private static final String KIND_NONE = "";
+
+    private static final String KIND_ENTITY = "entity";
+
+    private static final String KIND_CONVERTER = "converter";
+
+    private static final String KIND_PACKAGE = "package";
+
+    private final ScanSettings settings;
+
+    private final Log log;
+
+    IncrementalScanner(final ScanSettings settings, final Log log) {
+        this.settings = settings;
+        this.log = log;
+    }
+
+    /**
+     * Scans the provided directory, inspecting only the classfiles changed
+     * since the last run.
+     *
+     * @param directory The directory to scan.
+     *
+     * @return The findings for the complete directory.
+     */
+    public ScanFindings scan(final String directory) {
+        final Path directoryPath = new File(directory).toPath().toAbsolutePath();
+        final Path stateFile = getStateFile(directoryPath);
+        final Map<String, ClassFileState> previousState = readState(stateFile);
+
+        final BuildContext buildContext = settings.getBuildContext();
+        if (previousState != null
+                && buildContext != null
+                && buildContext.isIncremental()
+                && !buildContext.hasDelta(directoryPath.toFile())) {
+            log.info(
+                String.format(
+                    "No changes in '%s' reported by the build context, using "
+                        + "the result of the last scan.",
+                    directory
+                )
+            );
+            return toFindings(previousState);
+        }
+
+        final Map<String, ClassFileState> currentState = new HashMap<>();
+        final List<String> changedClassFiles = new ArrayList<>();
+        int added = 0;
+        try {
+            for (final Path classFile : listClassFiles(directoryPath)) {
+                final String relativePath = directoryPath
+                    .relativize(classFile)
+                    .toString()
+                    .replace(File.separatorChar, '/');
+                final long size = Files.size(classFile);
+                final long modified = Files
+                    .getLastModifiedTime(classFile)
+                    .toMillis();
+                final ClassFileState previous = previousState == null
+                                                    ? null
+                                                    : previousState.get(
+                        relativePath
+                    );
+                if (previous != null
+                        && previous.size == size
+                        && previous.modified == modified) {
+                    currentState.put(relativePath, previous);
+                    continue;
+                }
+
+                final String hash = hash(classFile);
+                if (previous != null && previous.hash.equals(hash)) {
+                    currentState.put(
+                        relativePath,
+                        new ClassFileState(size, modified, hash, previous.kind)
+                    );
+                } else {
+                    if (previous == null) {
+                        added++;
+                    }
+                    changedClassFiles.add(relativePath);
+                    currentState.put(
+                        relativePath,
+                        new ClassFileState(size, modified, hash, KIND_NONE)
+                    );
+                }
+            }
+        } catch (IOException | NoSuchAlgorithmException ex) {
+            log.warn(
+                String.format(
+                    "Failed to check the classfiles in '%s' for changes. "
+                        + "Scanning the complete directory.",
+                    directory
+                ),
+                ex
+            );
+            return scanCompletely(directory);
+        }
+
+        final int removed;
+        if (previousState == null) {
+            removed = 0;
+        } else {
+            removed = (int) previousState
+                .keySet()
+                .stream()
+                .filter(path -> !currentState.containsKey(path))
+                .count();
+        }
+
+        if (previousState == null
+                || changedClassFiles.stream().anyMatch(this::isPackageInfo)) {
+            // No previous state or a package-info was changed: Inspect all
+            // classfiles. Changes of package-info files are rare, inspecting
+            // them separately is not worth the effort.
+            inspect(directory, null, currentState);
+        } else if (!changedClassFiles.isEmpty()) {
+            inspect(directory, changedClassFiles, currentState);
+        }
+
+        log.info(
+            String.format(
+                "Incremental scan of '%s': %d classfiles changed, %d added, "
+                    + "%d removed.",
+                directory,
+                changedClassFiles.size() - added,
+                added,
+                removed
+            )
+        );
+
+        writeState(stateFile, currentState);
+        return toFindings(currentState);
+    }
+
+    /**
+     * Inspects the provided classfiles (or all classfiles) of the directory
+     * and stores the result in the state.
+     *
+     * @param directory   The directory.
+     * @param classFiles  The paths of the classfiles to inspect, relative to
+     *                    the directory. {@code null} to inspect all classfiles.
+     * @param state       The state to update.
+     */
+    private void inspect(
+        final String directory,
+        final List<String> classFiles,
+        final Map<String, ClassFileState> state
+    ) {
+        final ClassGraph classGraph = EntityFinder
+            .createClassGraph()
+            .overrideClasspath(directory);
+        if (classFiles != null) {
+            classGraph.acceptClasses(
+                classFiles
+                    .stream()
+                    .map(IncrementalScanner::toClassName)
+                    .toArray(String[]::new)
+            );
+        }
+
+        final ScanFindings findings;
+        try (ScanResult scanResult = EntityFinder.scan(
+            classGraph, settings, log
+        )) {
+            findings = EntityFinder.extractFindings(
+                scanResult, settings.getPersistenceAnnotations()
+            );
+        }
+
+        final Set<String> inspected = new HashSet<>(
+            classFiles == null ? state.keySet() : classFiles
+        );
+        for (final String classFile : inspected) {
+            final ClassFileState current = state.get(classFile);
+            final String className = toClassName(classFile);
+            final String kind;
+            if (findings.getEntityClassNames().contains(className)) {
+                kind = KIND_ENTITY;
+            } else if (findings.getConverterClassNames().contains(className)) {
+                kind = KIND_CONVERTER;
+            } else if (isPackageInfo(classFile)
+                           && findings.getPackageNames().contains(
+                    getPackageName(className)
+                )) {
+                kind = KIND_PACKAGE;
+            } else {
+                kind = KIND_NONE;
+            }
+            state.put(
+                classFile,
+                new ClassFileState(
+                    current.size, current.modified, current.hash, kind
+                )
+            );
+        }
+    }
+
+    private ScanFindings scanCompletely(final String directory) {
+        try (ScanResult scanResult = EntityFinder.scan(
+            EntityFinder.createClassGraph().overrideClasspath(directory),
+            settings,
+            log
+        )) {
+            return EntityFinder.extractFindings(
+                scanResult, settings.getPersistenceAnnotations()
+            );
+        }
+    }
+
+    private boolean isPackageInfo(final String classFile) {
+        return classFile.endsWith(PACKAGE_INFO + CLASS_SUFFIX);
+    }
+
+    private static ScanFindings toFindings(
+        final Map<String, ClassFileState> state
+    ) {
+        final List<String> entities = new ArrayList<>();
+        final List<String> converters = new ArrayList<>();
+        final List<String> packages = new ArrayList<>();
+        for (final Map.Entry<String, ClassFileState> entry : state.entrySet()) {
+            final String className = toClassName(entry.getKey());
+            switch (entry.getValue().kind) {
+                case KIND_ENTITY:
+                    entities.add(className);
+                    break;
+                case KIND_CONVERTER:
+                    converters.add(className);
+                    break;
+                case KIND_PACKAGE:
+                    packages.add(getPackageName(className));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return new ScanFindings(entities, converters, packages);
+    }
+
+    private static String toClassName(final String classFile) {
+        return classFile
+            .substring(0, classFile.length() - CLASS_SUFFIX.length())
+            .replace('/', '.');
+    }
+
+    private static String getPackageName(final String className) {
+        final int lastDot = className.lastIndexOf('.');
+        if (lastDot < 0) {
+            return "";
+        }
+        return className.substring(0, lastDot);
+    }
+
+    private static List<Path> listClassFiles(final Path directory)
+        throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> stream = Files.walk(directory)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(path -> path.toString().endsWith(CLASS_SUFFIX))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static String hash(final Path file)
+        throws IOException, NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return ScanCache.toHex(digest.digest(Files.readAllBytes(file)));
+    }
+
+    private Path getStateFile(final Path directory) {
+        final String name;
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // The format and the annotations of the generator are part of
+            // the name, a state written by a version of the plugin or a
+            // generator recognising other annotations is not used.
+            digest.update(ScanCache.FORMAT.getBytes(StandardCharsets.UTF_8));
+            digest.update(
+                settings
+                    .getPersistenceAnnotations()
+                    .getKey()
+                    .getBytes(StandardCharsets.UTF_8)
+            );
+            name = ScanCache.toHex(
+                digest.digest(
+                    directory.toString().getBytes(StandardCharsets.UTF_8)
+                )
+            ).substring(0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return settings
+            .getIncrementalStateDirectory()
+            .toPath()
+            .resolve(String.format("%s.properties", name));
+    }
+
+    private Map<String, ClassFileState> readState(final Path stateFile) {
+        if (!Files.isRegularFile(stateFile)) {
+            return null;
+        }
+
+        final Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            properties.load(inputStream);
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to read incremental scan state '%s'. Ignoring.",
+                    stateFile
+                ),
+                ex
+            );
+            return null;
+        }
+
+        final Map<String, ClassFileState> state = new HashMap<>();
+        for (final String classFile : properties.stringPropertyNames()) {
+            final String[] values = properties
+                .getProperty(classFile)
+                .split(",", -1);
+            if (values.length != 4) {
+                log.warn(
+                    String.format(
+                        "Invalid incremental scan state '%s'. Ignoring.",
+                        stateFile
+                    )
+                );
+                return null;
+            }
+            try {
+                state.put(
+                    classFile,
+                    new ClassFileState(
+                        Long.parseLong(values[0]),
+                        Long.parseLong(values[1]),
+                        values[2],
+                        values[3]
+                    )
+                );
+            } catch (NumberFormatException ex) {
+                log.warn(
+                    String.format(
+                        "Invalid incremental scan state '%s'. Ignoring.",
+                        stateFile
+                    ),
+                    ex
+                );
+                return null;
+            }
+        }
+        return state;
+    }
+
+    private void writeState(
+        final Path stateFile, final Map<String, ClassFileState> state
+    ) {
+        final Properties properties = new Properties();
+        for (final Map.Entry<String, ClassFileState> entry : state.entrySet()) {
+            final ClassFileState classFileState = entry.getValue();
+            properties.setProperty(
+                entry.getKey(),
+                String.format(
+                    "%d,%d,%s,%s",
+                    classFileState.size,
+                    classFileState.modified,
+                    classFileState.hash,
+                    classFileState.kind
+                )
+            );
+        }
+
+        try {
+            Files.createDirectories(stateFile.getParent());
+            final Path tmpPath = Files.createTempFile(
+                stateFile.getParent(), stateFile.getFileName().toString(), ".tmp"
+            );
+            try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+                properties.store(
+                    outputStream,
+                    "hibernate5-ddl-maven-plugin incremental scan state"
+                );
+            }
+            Files.move(
+                tmpPath,
+                stateFile,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to write incremental scan state '%s'.", stateFile
+                ),
+                ex
+            );
+        }
+    }
+
+    /**
+     * The recorded state of a single classfile.
+     */
+    private static final class ClassFileState {
+
+        private final long size;
+
+        private final long modified;
+
+        private final String hash;
+
+        private final String kind;
+
+        ClassFileState(
+            final long size,
+            final long modified,
+            final String hash,
+            final String kind
+        ) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.kind = kind;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filters the integrators discovered by Hibernate, used by the offline boot
+ * profile (see {@link GenerateDdlMojo#isOfflineBoot()}). Integrators are
+ * discovered using the {@link java.util.ServiceLoader}, and many of them
+ * (for example for caching, monitoring or search) only integrate with the
+ * session factory and are not needed for generating DDL. The integrators
+ * built into Hibernate, for example for Bean Validation, are not discovered
+ * and are therefore not affected. The generator modules apply the filter in
+ * the class loader service of their Hibernate version.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class IntegratorFilter {
+
+    private final Set<String> allowedIntegrators;
+
+    private final Log log;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param allowedIntegrators The class names of the integrators to keep.
+     * @param log                The Maven log, used to report the skipped
+     *                           integrators.
+     */
+    IntegratorFilter(final Set<String> allowedIntegrators, final Log log) {
+        this.allowedIntegrators = allowedIntegrators;
+        this.log = log;
+    }
+
+    /**
+     * Removes the integrators which are not allowed.
+     *
+     * @param <S>         The type of the integrators.
+     * @param integrators The integrators discovered.
+     *
+     * @return The allowed integrators.
+     */
+    public <S> List<S> filter(final Collection<S> integrators) {
+        final List<S> allowed = new ArrayList<>();
+        for (final S integrator : integrators) {
+            final String className = integrator.getClass().getName();
+            if (allowedIntegrators.contains(className)) {
+                allowed.add(integrator);
+            } else {
+                log.debug(
+                    String.format(
+                        "Offline boot profile: Skipping integrator %s.",
+                        className
+                    )
+                );
+            }
+        }
+        return allowed;
+    }
+
+}
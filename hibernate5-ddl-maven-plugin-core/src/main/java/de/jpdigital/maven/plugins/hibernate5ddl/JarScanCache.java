@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A content addressed cache for the {@link ScanFindings} of JAR files. The
+ * findings of a JAR file are stored in a file named after the SHA-256 hash of
+ * the content of the JAR file (usually in
+ * {@code ~/.m2/hibernate5-ddl-cache}). Because the hash only depends on the
+ * content of the JAR file the cache can be shared by all modules and all
+ * builds on a machine. The findings are stored for the complete JAR file,
+ * filtering by packages is done by the caller.
+ *
+ * The cache files have the same format as the files of the {@link ScanCache},
+ * the hash of the JAR file is used as fingerprint. The findings depend on the
+ * {@link PersistenceAnnotations} of the {@link DdlGenerator}, therefore the
+ * key of the annotations is part of the name of the cache file.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class JarScanCache {
+
+    /**
+     * The hashes of the JAR files already hashed in this JVM, keyed by path,
+     * size and modification time. Avoids hashing the same JAR file again for
+     * each module of a reactor build.
+     */
+    private static final Map<String, String> HASHES
+        = new ConcurrentHashMap<>();
+
+    private static final int BUFFER_SIZE = 65_536;
+
+    private final File directory;
+
+    private final PersistenceAnnotations annotations;
+
+    private final Log log;
+
+    JarScanCache(
+        final File directory,
+        final PersistenceAnnotations annotations,
+        final Log log
+    ) {
+        this.directory = directory;
+        this.annotations = annotations;
+        this.log = log;
+    }
+
+    /**
+     * Computes the SHA-256 hash of the content of a JAR file.
+     *
+     * @param jarFile The JAR file.
+     *
+     * @return The hash or {@code null} if the hash could not be computed. In
+     *         that case the cache should not be used for the JAR file.
+     */
+    public String hash(final Path jarFile) {
+        final String key;
+        try {
+            key = String.format(
+                "%s|%d|%d",
+                jarFile.toAbsolutePath().toString(),
+                Files.size(jarFile),
+                Files.getLastModifiedTime(jarFile).toMillis()
+            );
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to read attributes of JAR file '%s'.", jarFile
+                ),
+                ex
+            );
+            return null;
+        }
+
+        final String cachedHash = HASHES.get(key);
+        if (cachedHash != null) {
+            return cachedHash;
+        }
+
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            log.warn("SHA-256 is not available. JAR scan cache disabled.", ex);
+            return null;
+        }
+
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(jarFile)) {
+            int read = inputStream.read(buffer);
+            while (read >= 0) {
+                digest.update(buffer, 0, read);
+                read = inputStream.read(buffer);
+            }
+        } catch (IOException ex) {
+            log.warn(
+                String.format("Failed to hash JAR file '%s'.", jarFile), ex
+            );
+            return null;
+        }
+
+        final String hash = ScanCache.toHex(digest.digest());
+        HASHES.put(key, hash);
+        return hash;
+    }
+
+    /**
+     * Reads the cached findings for a JAR file.
+     *
+     * @param hash The hash of the JAR file.
+     *
+     * @return The cached findings or {@code null} if the JAR file has not been
+     *         scanned before.
+     */
+    public ScanFindings read(final String hash) {
+        if (hash == null) {
+            return null;
+        }
+        return getCacheFor(hash).read(hash);
+    }
+
+    /**
+     * Stores the findings for a JAR file.
+     *
+     * @param hash     The hash of the JAR file.
+     * @param findings The findings of the scan of the complete JAR file.
+     */
+    public void write(final String hash, final ScanFindings findings) {
+        if (hash == null) {
+            return;
+        }
+        getCacheFor(hash).write(hash, findings);
+    }
+
+    private ScanCache getCacheFor(final String hash) {
+        // Use the first two characters of the hash as subdirectory to
+        // keep the number of files per directory small.
+        final File cacheFile = new File(
+            new File(directory, hash.substring(0, 2)),
+            String.format("%s-%s.properties", hash, annotations.getKey())
+        );
+        return new ScanCache(cacheFile, log);
+    }
+
+}
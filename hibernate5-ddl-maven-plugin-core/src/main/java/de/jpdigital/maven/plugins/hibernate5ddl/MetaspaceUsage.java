@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Reports the usage of the metaspace and the number of loaded classes in the
+ * debug output. Used to check that the classes loaded for an execution of the
+ * plugin are released, for example when the plugin is executed in the Maven
+ * daemon ({@code mvnd}) or in the embedded Maven of an IDE.
+ *
+ * Classes are only unloaded by the garbage collector, therefore the values
+ * reported directly after an execution may still contain the classes of the
+ * execution. Released class loaders show up as unloaded classes in the report
+ * for one of the following executions.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class MetaspaceUsage {
+
+    private static final String METASPACE_POOL = "Metaspace";
+
+    private MetaspaceUsage() {
+        // Only static methods
+    }
+
+    /**
+     * Writes the current metaspace usage to the debug output of the provided
+     * log. Does nothing if debug output is not enabled.
+     *
+     * @param log  The Maven log.
+     * @param when Describes the point of the execution, for example
+     *             {@code "before generating DDL files"}.
+     */
+    public static void report(final Log log, final String when) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+
+        final ClassLoadingMXBean classLoading = ManagementFactory
+            .getClassLoadingMXBean();
+        final MemoryUsage metaspace = getMetaspaceUsage();
+        if (metaspace == null) {
+            log.debug(
+                String.format(
+                    "Classes %s: %d loaded, %d unloaded since JVM start. "
+                        + "Metaspace usage not available.",
+                    when,
+                    classLoading.getLoadedClassCount(),
+                    classLoading.getUnloadedClassCount()
+                )
+            );
+        } else {
+            log.debug(
+                String.format(
+                    "Metaspace %s: %d KiB used, %d KiB committed. Classes: "
+                        + "%d loaded, %d unloaded since JVM start.",
+                    when,
+                    metaspace.getUsed() / 1024,
+                    metaspace.getCommitted() / 1024,
+                    classLoading.getLoadedClassCount(),
+                    classLoading.getUnloadedClassCount()
+                )
+            );
+        }
+    }
+
+    private static MemoryUsage getMetaspaceUsage() {
+        for (final MemoryPoolMXBean pool
+                 : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (METASPACE_POOL.equals(pool.getName())) {
+                return pool.getUsage();
+            }
+        }
+        return null;
+    }
+
+}
@@ -20,10 +20,11 @@ import org.apache.maven.plugin.MojoFailureException;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Locale;
 
 /**
@@ -86,25 +87,49 @@ class OutputFileWriter {
                                    final Path tmpDir)
         throws MojoFailureException {
 
-        createOutputDir();
-
-        final Path outputFilePath = createOutputFilePath(dialectClassName);
         final Path tmpFilePath = Paths.get(String.format(
             "%s/%s.sql",
             tmpDir.toString(),
             getDialectNameFromClassName(dialectClassName)));
 
+        final String tmpFileData;
+        try {
+            tmpFileData = new String(
+                Files.readAllBytes(tmpFilePath), StandardCharsets.UTF_8
+            );
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format("Failed to read tmp file: %s", ex.getMessage()),
+                ex);
+        }
+
+        writeOutputFile(dialectClassName, tmpFileData);
+    }
+
+    /**
+     * Writes the DDL for a dialect to the output file. If the output file
+     * already exists and has the same content it is not written again,
+     * therefore its modification time only changes if the DDL has changed.
+     *
+     * @param dialectClassName The dialect of the output file.
+     * @param ddl              The generated DDL.
+     *
+     * @throws MojoFailureException If the output file can't be written.
+     */
+    protected void writeOutputFile(final String dialectClassName,
+                                   final String ddl)
+        throws MojoFailureException {
+
+        createOutputDir();
+
+        final Path outputFilePath = createOutputFilePath(dialectClassName);
+        final byte[] ddlData = ddl.getBytes(StandardCharsets.UTF_8);
+
         if (Files.exists(outputFilePath)) {
 
-            final String outputFileData;
-            final String tmpFileData;
+            final byte[] outputFileData;
             try {
-                outputFileData = new String(
-                    Files.readAllBytes(outputFilePath),
-                    Charset.forName("UTF-8"));
-                tmpFileData = new String(
-                    Files.readAllBytes(tmpFilePath),
-                    Charset.forName("UTF-8"));
+                outputFileData = Files.readAllBytes(outputFilePath);
             } catch (IOException ex) {
                 throw new MojoFailureException(
                     String.format("Failed to check if DDL file content has "
@@ -113,28 +138,19 @@ class OutputFileWriter {
                     ex);
             }
 
-            try {
-                if (!tmpFileData.equals(outputFileData)) {
-                    Files.deleteIfExists(outputFilePath);
-                    Files.copy(tmpFilePath, outputFilePath);
-                }
-            } catch (IOException ex) {
-                throw new MojoFailureException(
-                    String.format("Failed to copy DDL file content from tmp "
-                                      + "file to output file: %s",
-                                  ex.getMessage()),
-                    ex);
-            }
-        } else {
-            try {
-                Files.copy(tmpFilePath, outputFilePath);
-            } catch (IOException ex) {
-                throw new MojoFailureException(
-                    String.format("Failed to copy tmp file to output file: %s",
-                                  ex.getMessage()),
-                    ex);
+            if (Arrays.equals(ddlData, outputFileData)) {
+                return;
             }
         }
+
+        try {
+            Files.write(outputFilePath, ddlData);
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format("Failed to write output file: %s",
+                              ex.getMessage()),
+                ex);
+        }
     }
 
     /**
@@ -154,7 +170,9 @@ class OutputFileWriter {
             }
         } else {
             try {
-                Files.createDirectory(outputDir);
+                // Several dialects may be written in parallel, therefore an
+                // already existing directory is not an error.
+                Files.createDirectories(outputDir);
             } catch (IOException ex) {
                 throw new MojoFailureException(
                     String.format("Failed to create the output directory: %s",
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Determines the tables to exclude while exporting the metadata of an
+ * {@link EntityPartition}. The tables of the entities which are only part of
+ * the metadata because they are referenced by the entities of the partition
+ * are excluded. Their tables are created by the partitions owning them.
+ * Tables not belonging to an entity of the partition, for example the tables
+ * of Envers, are included. The duplicates are removed by the
+ * {@link PartitionedScript}.
+ *
+ * The tables are not inspected, therefore the class can be used with the
+ * table type of any Hibernate version. The generator modules add the tables
+ * of the metadata and use the result in their schema filter.
+ *
+ * @param <T> The type of the tables.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class PartitionTables<T> {
+
+    private final EntityPartition partition;
+
+    private final Set<T> ownedTables = new HashSet<>();
+
+    private final Set<T> referencedTables = new HashSet<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param partition The partition to export.
+     */
+    PartitionTables(final EntityPartition partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Adds a table of the metadata.
+     *
+     * @param ownerClassName The name of the entity class using the table. May
+     *                       be {@code null}, for example for dynamic entities.
+     * @param table          The table.
+     */
+    public void addTable(final String ownerClassName, final T table) {
+        if (isReferencedOnly(ownerClassName)) {
+            referencedTables.add(table);
+        } else {
+            ownedTables.add(table);
+        }
+    }
+
+    /**
+     * @return The tables to exclude from the export.
+     */
+    public Set<T> getExcludedTables() {
+        // Entities of a hierarchy may share a table, for example with
+        // single table inheritance. A table used by an owned entity is
+        // always included.
+        final Set<T> excluded = new HashSet<>(referencedTables);
+        excluded.removeAll(ownedTables);
+        return excluded;
+    }
+
+    private boolean isReferencedOnly(final String className) {
+        return className != null
+                   && partition.getClassNames().contains(className)
+                   && !partition.getOwnedClassNames().contains(className);
+    }
+
+}
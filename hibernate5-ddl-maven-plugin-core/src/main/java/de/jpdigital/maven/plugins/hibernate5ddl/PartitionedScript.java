@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Combines the DDL exported for the {@link EntityPartition}s into one
+ * script. The script has the same structure as the script exported for all
+ * entities at once:
+ *
+ * <ol>
+ * <li>The statements dropping the foreign keys (only if drop statements are
+ * generated).</li>
+ * <li>The other drop statements of all partitions.</li>
+ * <li>The create statements of all partitions.</li>
+ * <li>The statements adding the foreign keys. They are executed after the
+ * tables of all partitions have been created, therefore foreign keys
+ * referencing a table of another partition work.</li>
+ * </ol>
+ *
+ * Statements exported by several partitions, for example for shared
+ * sequences, are only added once.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class PartitionedScript {
+
+    private final Set<String> foreignKeyDrops = new LinkedHashSet<>();
+
+    private final Set<String> drops = new LinkedHashSet<>();
+
+    private final Set<String> creates = new LinkedHashSet<>();
+
+    private final Set<String> foreignKeyCreates = new LinkedHashSet<>();
+
+    /**
+     * Adds the drop statements exported for a partition. Hibernate only uses
+     * {@code alter table} statements for dropping foreign keys while
+     * dropping the schema.
+     *
+     * @param commands The drop statements.
+     */
+    public void addDropCommands(final List<String> commands) {
+        for (final String command : commands) {
+            if (isAlterTable(command)) {
+                foreignKeyDrops.add(command);
+            } else {
+                drops.add(command);
+            }
+        }
+    }
+
+    /**
+     * Adds the create statements exported for a partition.
+     *
+     * @param commands The create statements.
+     */
+    public void addCreateCommands(final List<String> commands) {
+        for (final String command : commands) {
+            if (isAlterTable(command)
+                    && normalize(command).contains("foreign key")) {
+                foreignKeyCreates.add(command);
+            } else {
+                creates.add(command);
+            }
+        }
+    }
+
+    /**
+     * @return The combined script. Each command is followed by a line
+     *         separator, like in the files written by Hibernate.
+     */
+    public String getScript() {
+        final List<String> commands = new ArrayList<>(
+            foreignKeyDrops.size() + drops.size() + creates.size()
+                + foreignKeyCreates.size()
+        );
+        commands.addAll(foreignKeyDrops);
+        commands.addAll(drops);
+        commands.addAll(creates);
+        commands.addAll(foreignKeyCreates);
+        final StringBuilder script = new StringBuilder();
+        for (final String command : commands) {
+            script.append(command).append(System.lineSeparator());
+        }
+        return script.toString();
+    }
+
+    private static boolean isAlterTable(final String command) {
+        return normalize(command).startsWith("alter table");
+    }
+
+    /**
+     * The formatted commands start with a line break and contain line breaks
+     * and indentation between the keywords.
+     */
+    private static String normalize(final String command) {
+        return command
+            .trim()
+            .replaceAll("\\s+", " ")
+            .toLowerCase(Locale.ROOT);
+    }
+
+}
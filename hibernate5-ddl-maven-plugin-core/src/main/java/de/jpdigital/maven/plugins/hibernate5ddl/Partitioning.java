@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+/**
+ * How the entities are split into partitions whose metadata is built and
+ * exported separately, see {@link EntityPartitioner}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public enum Partitioning {
+
+    /**
+     * The metadata for all entities is built at once.
+     */
+    NONE,
+    /**
+     * The entities are split into the groups of entities connected by
+     * references (see {@link EntityGraph}). Small groups are combined.
+     */
+    GRAPH,
+    /**
+     * The entities are split by their package. Small packages are combined.
+     */
+    PACKAGE,
+    /**
+     * The entities are split using the configured partitions, each a list of
+     * patterns for the class names. Entities not matched by any partition
+     * are put into an additional partition.
+     */
+    EXPLICIT
+
+}
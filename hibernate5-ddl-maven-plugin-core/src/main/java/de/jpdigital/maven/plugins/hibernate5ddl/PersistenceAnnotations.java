@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The annotations a {@link DdlGenerator} binds: The JPA annotations of the
+ * persistence API used by the Hibernate version of the generator
+ * ({@code javax.persistence} or {@code jakarta.persistence}) and the package
+ * level Hibernate annotations of that version. The {@link EntityFinder} only
+ * reports classes and packages with these annotations, therefore a generator
+ * for Hibernate 5 does not see the {@code jakarta.persistence} entities of a
+ * project and vice versa.
+ *
+ * The {@link #getKey()} is part of the keys of all caches for scan results,
+ * results found with other annotations are not reused.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class PersistenceAnnotations {
+
+    /**
+     * The package of the persistence API used by Hibernate 5.
+     */
+    public static final String JAVAX_PERSISTENCE = "javax.persistence";
+
+    /**
+     * The package of the persistence API used by Hibernate 6 and newer.
+     */
+    public static final String JAKARTA_PERSISTENCE = "jakarta.persistence";
+
+    private final String persistencePackage;
+
+    private final Set<String> packageLevelAnnotations;
+
+    private final String key;
+
+    /**
+     * Creates a new {@code PersistenceAnnotations} instance.
+     *
+     * @param persistencePackage      The package of the persistence API, for
+     *                                example {@link #JAVAX_PERSISTENCE}.
+     * @param packageLevelAnnotations The Hibernate annotations that can only
+     *                                be applied on package level (in a
+     *                                {@code package-info.java} file).
+     */
+    public PersistenceAnnotations(
+        final String persistencePackage,
+        final Collection<String> packageLevelAnnotations
+    ) {
+        this.persistencePackage = Objects.requireNonNull(persistencePackage);
+        this.packageLevelAnnotations = Collections.unmodifiableSet(
+            new TreeSet<>(packageLevelAnnotations)
+        );
+        this.key = createKey();
+    }
+
+    public String getPersistencePackage() {
+        return persistencePackage;
+    }
+
+    /**
+     * @return The annotation marking an entity.
+     */
+    public String getEntityAnnotation() {
+        return persistencePackage + ".Entity";
+    }
+
+    /**
+     * @return The annotation marking an attribute converter.
+     */
+    public String getConverterAnnotation() {
+        return persistencePackage + ".Converter";
+    }
+
+    /**
+     * @return The annotation marking an embeddable.
+     */
+    public String getEmbeddableAnnotation() {
+        return persistencePackage + ".Embeddable";
+    }
+
+    /**
+     * @return The annotation marking a mapped superclass.
+     */
+    public String getMappedSuperclassAnnotation() {
+        return persistencePackage + ".MappedSuperclass";
+    }
+
+    /**
+     * @return The annotation marking an attribute which is not persistent.
+     */
+    public String getTransientAnnotation() {
+        return persistencePackage + ".Transient";
+    }
+
+    /**
+     * @return The Hibernate annotations that can only be applied on package
+     *         level.
+     */
+    public Set<String> getPackageLevelAnnotations() {
+        return packageLevelAnnotations;
+    }
+
+    /**
+     * @return A short key identifying the annotations, suitable as part of a
+     *         file name. Instances with the same persistence package and the
+     *         same package level annotations have the same key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    private String createKey() {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        digest.update(persistencePackage.getBytes(StandardCharsets.UTF_8));
+        for (final String annotation : packageLevelAnnotations) {
+            digest.update((byte) 0);
+            digest.update(annotation.getBytes(StandardCharsets.UTF_8));
+        }
+        return ScanCache.toHex(digest.digest()).substring(0, 16);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s{persistencePackage=%s, packageLevelAnnotations=%s}",
+            getClass().getSimpleName(),
+            persistencePackage,
+            packageLevelAnnotations
+        );
+    }
+
+}
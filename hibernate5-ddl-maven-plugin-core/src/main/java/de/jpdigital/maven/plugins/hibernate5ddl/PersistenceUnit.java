@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A persistence unit from a {@code persistence.xml} file. Contains the parts
+ * of the persistence unit which are relevant for generating the DDL: The
+ * listed classes, JAR files and mapping files, the value of the
+ * {@code exclude-unlisted-classes} element and the properties.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class PersistenceUnit {
+
+    private final String name;
+
+    private final List<String> classNames;
+
+    private final List<String> jarFiles;
+
+    private final List<String> mappingFiles;
+
+    private final Boolean excludeUnlistedClasses;
+
+    private final Map<String, String> properties;
+
+    PersistenceUnit(
+        final String name,
+        final List<String> classNames,
+        final List<String> jarFiles,
+        final List<String> mappingFiles,
+        final Boolean excludeUnlistedClasses,
+        final Map<String, String> properties
+    ) {
+        this.name = Objects.requireNonNull(name);
+        this.classNames = Collections.unmodifiableList(
+            new ArrayList<>(classNames)
+        );
+        this.jarFiles = Collections.unmodifiableList(new ArrayList<>(jarFiles));
+        this.mappingFiles = Collections.unmodifiableList(
+            new ArrayList<>(mappingFiles)
+        );
+        this.excludeUnlistedClasses = excludeUnlistedClasses;
+        this.properties = Collections.unmodifiableMap(
+            new LinkedHashMap<>(properties)
+        );
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The values of the {@code <class>} elements. A value may also be
+     *         the name of a package with package level annotations.
+     */
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * @return The values of the {@code <jar-file>} elements.
+     */
+    public List<String> getJarFiles() {
+        return jarFiles;
+    }
+
+    /**
+     * @return The values of the {@code <mapping-file>} elements.
+     */
+    public List<String> getMappingFiles() {
+        return mappingFiles;
+    }
+
+    /**
+     * @return The value of the {@code <exclude-unlisted-classes>} element, or
+     *         {@code null} if the element is not present.
+     */
+    public Boolean getExcludeUnlistedClasses() {
+        return excludeUnlistedClasses;
+    }
+
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+}
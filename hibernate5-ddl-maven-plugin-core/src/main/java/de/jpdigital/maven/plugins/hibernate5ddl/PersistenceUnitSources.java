@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the {@link EntitySources} for a {@link PersistenceUnit} from the
+ * classes listed in the persistence unit instead of scanning the classpath.
+ *
+ * <ul>
+ * <li>The classes listed using {@code <class>} are used directly. If a value
+ * is not a class but a package with a {@code package-info} class the package
+ * is added as annotated package.</li>
+ * <li>The JAR files listed using {@code <jar-file>} are scanned.</li>
+ * <li>The output directories of the project are only scanned if
+ * {@code <exclude-unlisted-classes>} is explicitly set to
+ * {@code false}.</li>
+ * <li>The mapping files listed using {@code <mapping-file>} are passed to the
+ * {@link DdlGenerator}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PersistenceUnitSources {
+
+    private PersistenceUnitSources() {
+        // Only static methods
+    }
+
+    /**
+     * Creates the {@link EntitySources} for a persistence unit.
+     *
+     * @param unit           The persistence unit.
+     * @param persistenceXml The {@code persistence.xml} file containing the
+     *                       persistence unit. Used to resolve relative paths
+     *                       of JAR files.
+     * @param project        The Maven project.
+     * @param log            The Maven log.
+     * @param settings       The settings for scanning JAR files.
+     *
+     * @return The entity sources of the persistence unit.
+     *
+     * @throws MojoFailureException If a listed class or JAR file can't be
+     *                              found.
+     */
+    public static EntitySources create(
+        final PersistenceUnit unit,
+        final File persistenceXml,
+        final MavenProject project,
+        final Log log,
+        final ScanSettings settings
+    ) throws MojoFailureException {
+        final List<String> jarFiles = new ArrayList<>();
+        for (final String jarFile : unit.getJarFiles()) {
+            jarFiles.add(resolveJarFile(jarFile, persistenceXml, project));
+        }
+
+        final boolean scanProjectClasses = Boolean.FALSE.equals(
+            unit.getExcludeUnlistedClasses()
+        );
+        log.info(
+            String.format(
+                "Persistence unit '%s': %d listed classes, %d JAR files, "
+                    + "%d mapping files%s.",
+                unit.getName(),
+                unit.getClassNames().size(),
+                jarFiles.size(),
+                unit.getMappingFiles().size(),
+                scanProjectClasses ? ", scanning unlisted classes" : ""
+            )
+        );
+
+        final EntitySources scanned = EntityFinder
+            .forClassPathElements(
+                project, log, scanProjectClasses, jarFiles, settings
+            )
+            .findEntitySources();
+        final ClassLoader classLoader = scanned.getClassLoader();
+
+        final List<String> entities = new ArrayList<>(
+            scanned.getEntityClassNames()
+        );
+        final List<String> converters = new ArrayList<>(
+            scanned.getConverterClassNames()
+        );
+        final List<String> packages = new ArrayList<>(
+            scanned.getPackageNames()
+        );
+        for (final String className : unit.getClassNames()) {
+            final Class<?> listedClass = loadClass(className, classLoader);
+            if (listedClass == null) {
+                if (isPackage(className, classLoader)) {
+                    packages.add(className);
+                } else {
+                    throw new MojoFailureException(
+                        String.format(
+                            "Class '%s' listed in persistence unit '%s' does "
+                                + "not exist.",
+                            className,
+                            unit.getName()
+                        )
+                    );
+                }
+            } else if (isConverter(
+                listedClass, settings.getPersistenceAnnotations()
+            )) {
+                converters.add(className);
+            } else {
+                // Entities, but also embeddables and mapped superclasses.
+                // They are all passed to Hibernate as annotated classes.
+                entities.add(className);
+            }
+        }
+
+        return new EntitySources(
+            new ScanFindings(entities, converters, packages),
+            classLoader,
+            unit.getName(),
+            unit.getMappingFiles()
+        );
+    }
+
+    private static Class<?> loadClass(
+        final String className, final ClassLoader classLoader
+    ) throws MojoFailureException {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException ex) {
+            return null;
+        } catch (LinkageError ex) {
+            throw new MojoFailureException(
+                String.format("Failed to load class '%s'.", className), ex
+            );
+        }
+    }
+
+    private static boolean isPackage(
+        final String name, final ClassLoader classLoader
+    ) {
+        return classLoader.getResource(
+            String.format("%s/package-info.class", name.replace('.', '/'))
+        ) != null;
+    }
+
+    private static boolean isConverter(
+        final Class<?> clazz, final PersistenceAnnotations annotations
+    ) {
+        for (final Annotation annotation : clazz.getAnnotations()) {
+            if (annotations.getConverterAnnotation().equals(
+                annotation.annotationType().getName()
+            )) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the value of a {@code <jar-file>} element. The value is
+     * resolved relative to the root of the persistence unit (the parent of
+     * the {@code META-INF} directory) and relative to the base directory of
+     * the project. If the file does not exist at one of these locations, a
+     * dependency of the project with the same file name is used.
+     *
+     * @param jarFile        The value of the {@code <jar-file>} element.
+     * @param persistenceXml The {@code persistence.xml} file.
+     * @param project        The Maven project.
+     *
+     * @return The absolute path of the JAR file.
+     *
+     * @throws MojoFailureException If the JAR file can't be found.
+     */
+    private static String resolveJarFile(
+        final String jarFile,
+        final File persistenceXml,
+        final MavenProject project
+    ) throws MojoFailureException {
+        final String path;
+        if (jarFile.startsWith("file:")) {
+            path = jarFile.substring("file:".length());
+        } else {
+            path = jarFile;
+        }
+
+        final List<File> candidates = new ArrayList<>();
+        final File file = new File(path);
+        if (file.isAbsolute()) {
+            candidates.add(file);
+        } else {
+            final File metaInf = persistenceXml.getAbsoluteFile().getParentFile();
+            if (metaInf != null && metaInf.getParentFile() != null) {
+                candidates.add(new File(metaInf.getParentFile(), path));
+            }
+            candidates.add(new File(project.getBasedir(), path));
+        }
+        for (final File candidate : candidates) {
+            if (candidate.isFile()) {
+                return candidate.getAbsolutePath();
+            }
+        }
+
+        final String fileName = file.getName();
+        for (final Artifact artifact : project.getArtifacts()) {
+            if (artifact.getFile() != null
+                    && fileName.equals(artifact.getFile().getName())) {
+                return artifact.getFile().getAbsolutePath();
+            }
+        }
+
+        throw new MojoFailureException(
+            String.format(
+                "JAR file '%s' listed in persistence.xml not found. Tried "
+                    + "%s and the dependencies of the project.",
+                jarFile,
+                Arrays.toString(candidates.toArray())
+            )
+        );
+    }
+
+}
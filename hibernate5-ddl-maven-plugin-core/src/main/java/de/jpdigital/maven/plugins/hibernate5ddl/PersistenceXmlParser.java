@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads the persistence units from a {@code persistence.xml} file using a
+ * streaming (StAX) parser. The parsed persistence units are immutable and
+ * are cached, keyed by the path of the file. The cached units are used by
+ * all executions of the plugin in the same JVM (all dialects, all modules of
+ * a reactor build and all requests of the {@link GeneratorDaemon}) until the
+ * modification time or the size of the file changes.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class PersistenceXmlParser {
+
+    private static final Map<Path, CachedUnits> CACHE
+        = new ConcurrentHashMap<>();
+
+    private PersistenceXmlParser() {
+        // Only static methods
+    }
+
+    /**
+     * Parses a {@code persistence.xml} file, or returns the cached result if
+     * the file has not changed since it was parsed.
+     *
+     * @param persistenceXml The file to parse.
+     *
+     * @return The persistence units defined in the file, in the order of the
+     *         file. The list can't be modified.
+     *
+     * @throws MojoFailureException If the file can't be read or parsed.
+     */
+    public static List<PersistenceUnit> parse(final File persistenceXml)
+        throws MojoFailureException {
+        final Path path = persistenceXml.toPath().toAbsolutePath().normalize();
+        final FileTime lastModified;
+        final long size;
+        try {
+            lastModified = Files.getLastModifiedTime(path);
+            size = Files.size(path);
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Failed to read persistence.xml file '%s'.",
+                    persistenceXml.getPath()
+                ),
+                ex
+            );
+        }
+
+        final CachedUnits cached = CACHE.get(path);
+        if (cached != null && cached.isCurrent(lastModified, size)) {
+            return cached.getUnits();
+        }
+
+        final List<PersistenceUnit> units = Collections.unmodifiableList(
+            read(persistenceXml)
+        );
+        CACHE.put(path, new CachedUnits(lastModified, size, units));
+        return units;
+    }
+
+    private static List<PersistenceUnit> read(final File persistenceXml)
+        throws MojoFailureException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(
+            XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false
+        );
+
+        try (InputStream inputStream = Files.newInputStream(
+            persistenceXml.toPath()
+        )) {
+            final XMLStreamReader reader = factory.createXMLStreamReader(
+                inputStream
+            );
+            try {
+                return readUnits(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Failed to read persistence.xml file '%s'.",
+                    persistenceXml.getPath()
+                ),
+                ex
+            );
+        } catch (XMLStreamException ex) {
+            throw new MojoFailureException(
+                String.format(
+                    "Error parsing persistence.xml file '%s'.",
+                    persistenceXml.getPath()
+                ),
+                ex
+            );
+        }
+    }
+
+    private static List<PersistenceUnit> readUnits(
+        final XMLStreamReader reader
+    ) throws XMLStreamException {
+        final List<PersistenceUnit> units = new ArrayList<>();
+        UnitBuilder unit = null;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                final String element = reader.getLocalName();
+                if ("persistence-unit".equals(element)) {
+                    unit = new UnitBuilder(reader.getAttributeValue(null, "name"));
+                } else if (unit != null) {
+                    // Elements outside of a persistence unit are ignored,
+                    // therefore the properties of different units are never
+                    // mixed.
+                    unit.readElement(element, reader);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT
+                           && "persistence-unit".equals(reader.getLocalName())
+                           && unit != null) {
+                units.add(unit.build());
+                unit = null;
+            }
+        }
+        return units;
+    }
+
+    /**
+     * Collects the values of a persistence unit while it is parsed.
+     */
+    private static class UnitBuilder {
+
+        private final String name;
+
+        private final List<String> classNames = new ArrayList<>();
+
+        private final List<String> jarFiles = new ArrayList<>();
+
+        private final List<String> mappingFiles = new ArrayList<>();
+
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        private Boolean excludeUnlistedClasses;
+
+        UnitBuilder(final String name) {
+            this.name = name == null ? "" : name;
+        }
+
+        void readElement(final String element, final XMLStreamReader reader)
+            throws XMLStreamException {
+            switch (element) {
+                case "class":
+                    addIfNotEmpty(classNames, reader.getElementText());
+                    break;
+                case "jar-file":
+                    addIfNotEmpty(jarFiles, reader.getElementText());
+                    break;
+                case "mapping-file":
+                    addIfNotEmpty(mappingFiles, reader.getElementText());
+                    break;
+                case "exclude-unlisted-classes": {
+                    final String value = reader.getElementText().trim();
+                    // An empty element means true.
+                    excludeUnlistedClasses = value.isEmpty()
+                                                 ? Boolean.TRUE
+                                                 : Boolean.valueOf(value);
+                    break;
+                }
+                case "property": {
+                    final String propertyName = reader.getAttributeValue(
+                        null, "name"
+                    );
+                    final String propertyValue = reader.getAttributeValue(
+                        null, "value"
+                    );
+                    if (propertyName != null && !propertyName.isEmpty()
+                            && propertyValue != null
+                            && !propertyValue.isEmpty()) {
+                        properties.put(propertyName, propertyValue);
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        PersistenceUnit build() {
+            return new PersistenceUnit(
+                name,
+                classNames,
+                jarFiles,
+                mappingFiles,
+                excludeUnlistedClasses,
+                properties
+            );
+        }
+
+        private static void addIfNotEmpty(
+            final List<String> values, final String value
+        ) {
+            final String trimmed = value.trim();
+            if (!trimmed.isEmpty()) {
+                values.add(trimmed);
+            }
+        }
+
+    }
+
+    /**
+     * The parsed persistence units of a file together with the modification
+     * time and the size of the file when it was parsed.
+     */
+    private static class CachedUnits {
+
+        private final FileTime lastModified;
+
+        private final long size;
+
+        private final List<PersistenceUnit> units;
+
+        CachedUnits(
+            final FileTime lastModified,
+            final long size,
+            final List<PersistenceUnit> units
+        ) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.units = units;
+        }
+
+        boolean isCurrent(final FileTime lastModified, final long size) {
+            return this.lastModified.equals(lastModified) && this.size == size;
+        }
+
+        List<PersistenceUnit> getUnits() {
+            return units;
+        }
+
+    }
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.SessionData;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache shared by all executions of the plugin in one Maven session (for
+ * example all modules of a reactor build). The cache is stored in the
+ * {@link SessionData} of the repository session, therefore it is released
+ * together with the session.
+ *
+ * The class loaders created by the cache are closed when the last execution
+ * of the plugin in the reactor has finished. The executions are counted when
+ * the cache is created, using the executions of the plugin configured in the
+ * projects of the session (see {@link #acquire(MavenSession, MojoExecution)}
+ * and {@link #release()}). If not all executions run, for example because
+ * the build of a module failed, the
+ * {@link ReactorCacheLifecycleParticipant} closes the class loaders when the
+ * session ends if the plugin is loaded as build extension. As last resort
+ * the class loaders are closed when the cache is no longer reachable.
+ *
+ * The cache contains:
+ *
+ * <ul>
+ * <li>The {@link ScanFindings} for single classpath elements (JAR files and
+ * the output directories of upstream modules), keyed by the path and the
+ * fingerprint of the element.</li>
+ * <li>Class loaders for the dependencies of a project, keyed by the list of
+ * classpath elements. Modules with the same dependencies share one class
+ * loader.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ReactorCache {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Map<String, ScanFindings> findings
+        = new ConcurrentHashMap<>();
+
+    private final Map<List<String>, ClassLoader> classLoaders
+        = new ConcurrentHashMap<>();
+
+    private final Cleaner.Cleanable cleanable;
+
+    private final MavenSession session;
+
+    private final int expectedExecutions;
+
+    private int activeExecutions;
+
+    private int finishedExecutions;
+
+    private boolean closed;
+
+    private ReactorCache(
+        final MavenSession session, final int expectedExecutions
+    ) {
+        this.session = session;
+        this.expectedExecutions = expectedExecutions;
+        cleanable = CLEANER.register(
+            this, new ClassLoaderCloser(classLoaders)
+        );
+    }
+
+    /**
+     * Retrieves the cache for the provided session and registers a running
+     * execution of the plugin. Every call must be followed by a call of
+     * {@link #release()} on the returned cache when the execution has
+     * finished.
+     *
+     * @param session   The current Maven session.
+     * @param execution The current execution of the plugin, used to count
+     *                  the executions of the plugin in the reactor if the
+     *                  cache is created.
+     *
+     * @return The cache of the session.
+     */
+    public static ReactorCache acquire(
+        final MavenSession session, final MojoExecution execution
+    ) {
+        final int expectedExecutions = countExecutions(session, execution);
+        while (true) {
+            final ReactorCache cache = forSession(session, expectedExecutions);
+            synchronized (cache) {
+                // A closed cache has already been removed from the session,
+                // the next attempt creates a new one.
+                if (!cache.closed) {
+                    cache.activeExecutions++;
+                    return cache;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the cache for the provided session. If the session has no
+     * cache yet a new cache is created and stored in the session.
+     *
+     * @param session            The current Maven session.
+     * @param expectedExecutions The number of executions of the plugin
+     *                           expected in the session, used if a new cache
+     *                           is created.
+     *
+     * @return The cache of the session.
+     */
+    private static ReactorCache forSession(
+        final MavenSession session, final int expectedExecutions
+    ) {
+        final SessionData data = session.getRepositorySession().getData();
+        // The class object is used as key, therefore different versions of
+        // the plugin (loaded by different class realms) don't share the cache.
+        final Object key = ReactorCache.class;
+        while (true) {
+            final Object existing = data.get(key);
+            if (existing != null) {
+                return (ReactorCache) existing;
+            }
+            final ReactorCache cache = new ReactorCache(
+                session, expectedExecutions
+            );
+            if (data.set(key, null, cache)) {
+                return cache;
+            }
+        }
+    }
+
+    /**
+     * Counts the executions of the goal of the provided execution in all
+     * projects of the session. If the goal was invoked from the command line
+     * it runs once for each project.
+     *
+     * @param session   The current Maven session.
+     * @param execution The current execution of the plugin.
+     *
+     * @return The number of executions expected in the session.
+     */
+    private static int countExecutions(
+        final MavenSession session, final MojoExecution execution
+    ) {
+        if (execution.getSource() == MojoExecution.Source.CLI) {
+            return session.getProjects().size();
+        }
+        int count = 0;
+        for (final MavenProject project : session.getProjects()) {
+            for (final Plugin plugin : project.getBuildPlugins()) {
+                if (!execution.getGroupId().equals(plugin.getGroupId())
+                        || !execution.getArtifactId().equals(
+                        plugin.getArtifactId()
+                    )) {
+                    continue;
+                }
+                for (final PluginExecution pluginExecution
+                         : plugin.getExecutions()) {
+                    if (pluginExecution.getGoals().contains(
+                        execution.getGoal()
+                    )) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Unregisters an execution registered by
+     * {@link #acquire(MavenSession, MojoExecution)}. If it was the last
+     * expected execution and no other execution is running the cache is
+     * removed from the session and its class loaders are closed. If more
+     * executions than expected run, a later execution creates a new cache.
+     *
+     * @return The number of closed class loaders, {@code 0} if the cache is
+     *         still in use.
+     */
+    public int release() {
+        synchronized (this) {
+            activeExecutions--;
+            finishedExecutions++;
+            if (closed
+                    || activeExecutions > 0
+                    || finishedExecutions < expectedExecutions) {
+                return 0;
+            }
+            closed = true;
+        }
+        final SessionData data = session.getRepositorySession().getData();
+        data.set(ReactorCache.class, this, null);
+        return close();
+    }
+
+    /**
+     * Removes the cache from the provided session and closes its class
+     * loaders. Does nothing if the session has no cache.
+     *
+     * @param session The Maven session which has ended.
+     *
+     * @return The number of closed class loaders.
+     */
+    public static int closeSession(final MavenSession session) {
+        if (session.getRepositorySession() == null) {
+            return 0;
+        }
+        final SessionData data = session.getRepositorySession().getData();
+        final Object key = ReactorCache.class;
+        final Object existing = data.get(key);
+        if (existing != null && data.set(key, existing, null)) {
+            return ((ReactorCache) existing).close();
+        }
+        return 0;
+    }
+
+    /**
+     * Closes the class loaders of the cache and clears the cache. The
+     * registration at the {@link Cleaner} is removed, therefore the class
+     * loaders are only closed once.
+     *
+     * @return The number of closed class loaders.
+     */
+    int close() {
+        synchronized (this) {
+            closed = true;
+        }
+        findings.clear();
+        synchronized (classLoaders) {
+            final int count = classLoaders.size();
+            cleanable.clean();
+            return count;
+        }
+    }
+
+    /**
+     * Retrieves the cached findings for a classpath element.
+     *
+     * @param key The key of the classpath element, created by
+     *            {@link ScanCache#fingerprint(org.apache.maven.plugin.logging.Log, java.util.List, java.lang.String...)}.
+     *
+     * @return The cached findings or {@code null} if the element has not been
+     *         scanned in this session.
+     */
+    public ScanFindings getFindings(final String key) {
+        if (key == null) {
+            return null;
+        }
+        return findings.get(key);
+    }
+
+    /**
+     * Stores the findings for a classpath element.
+     *
+     * @param key             The key of the classpath element.
+     * @param elementFindings The findings for the complete classpath element.
+     */
+    public void putFindings(
+        final String key, final ScanFindings elementFindings
+    ) {
+        if (key != null) {
+            findings.put(key, elementFindings);
+        }
+    }
+
+    /**
+     * Retrieves the class loader for the provided classpath elements. If no
+     * class loader for the elements exists yet it is created using the
+     * provided {@link ClassLoaderFactory}.
+     *
+     * @param classPathElements The classpath elements.
+     * @param factory           Factory for creating the class loader.
+     *
+     * @return The class loader for the classpath elements.
+     *
+     * @throws MojoFailureException If the class loader can't be created.
+     */
+    public ClassLoader getClassLoader(
+        final List<String> classPathElements,
+        final ClassLoaderFactory factory
+    ) throws MojoFailureException {
+        final List<String> key = new ArrayList<>(classPathElements);
+        synchronized (classLoaders) {
+            ClassLoader classLoader = classLoaders.get(key);
+            if (classLoader == null) {
+                classLoader = factory.createClassLoader(key);
+                classLoaders.put(key, classLoader);
+            }
+            return classLoader;
+        }
+    }
+
+    /**
+     * Creates a class loader for a list of classpath elements.
+     */
+    @FunctionalInterface
+    interface ClassLoaderFactory {
+
+        ClassLoader createClassLoader(List<String> classPathElements)
+            throws MojoFailureException;
+
+    }
+
+    /**
+     * Closes the class loaders of a cache. Must not reference the cache
+     * itself, otherwise the cache would never become unreachable.
+     */
+    private static class ClassLoaderCloser implements Runnable {
+
+        private final Map<List<String>, ClassLoader> classLoaders;
+
+        ClassLoaderCloser(final Map<List<String>, ClassLoader> classLoaders) {
+            this.classLoaders = classLoaders;
+        }
+
+        @Override
+        public void run() {
+            for (final ClassLoader classLoader : classLoaders.values()) {
+                if (classLoader instanceof URLClassLoader) {
+                    try {
+                        ((URLClassLoader) classLoader).close();
+                    } catch (IOException ex) {
+                        // Nothing we can do here, the session is already over.
+                    }
+                }
+            }
+            classLoaders.clear();
+        }
+
+    }
+
+}
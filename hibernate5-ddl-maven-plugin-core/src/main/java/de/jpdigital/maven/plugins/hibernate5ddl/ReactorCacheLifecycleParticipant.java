@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * Closes the class loaders of the {@link ReactorCache} when the Maven
+ * session ends. Usually the last execution of the plugin in the reactor has
+ * already closed them. The participant covers builds in which not all
+ * executions run, for example because the build of a module failed. Maven
+ * only calls lifecycle participants of plugins which are declared with
+ * {@code <extensions>true</extensions>}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Named("hibernate5-ddl-reactor-cache")
+@Singleton
+public class ReactorCacheLifecycleParticipant
+    extends AbstractMavenLifecycleParticipant {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+        ReactorCacheLifecycleParticipant.class
+    );
+
+    @Override
+    public void afterSessionEnd(final MavenSession session) {
+        final int closed = ReactorCache.closeSession(session);
+        if (closed > 0) {
+            LOGGER.info(
+                String.format(
+                    "Closed %d class loaders of the reactor cache.", closed
+                )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Helper methods for generating DDL files from a request sent by the
+ * {@link GenerateDdlMojo} to another JVM (the {@link GeneratorDaemon} or a
+ * {@link ForkedWorker}), see {@link DaemonProtocol}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class RemoteGeneration {
+
+    private RemoteGeneration() {
+        // Only static methods
+    }
+
+    /**
+     * Creates the {@link EntitySources} for a request.
+     *
+     * @param request           The request.
+     * @param classPathElements The classpath elements loaded by the new class
+     *                          loader.
+     * @param parent            The parent of the new class loader.
+     *
+     * @return The entity sources. The caller is responsible for closing
+     *         them.
+     *
+     * @throws MojoFailureException If a classpath element is invalid.
+     */
+    public static EntitySources createEntitySources(
+        final Properties request,
+        final List<String> classPathElements,
+        final ClassLoader parent
+    ) throws MojoFailureException {
+        return new EntitySources(
+            new ScanFindings(
+                DaemonProtocol.split(
+                    request.getProperty(DaemonProtocol.ENTITIES)
+                ),
+                DaemonProtocol.split(
+                    request.getProperty(DaemonProtocol.CONVERTERS)
+                ),
+                DaemonProtocol.split(
+                    request.getProperty(DaemonProtocol.PACKAGES)
+                )
+            ),
+            new URLClassLoader(toUrls(classPathElements), parent),
+            request.getProperty(DaemonProtocol.PERSISTENCE_UNIT),
+            DaemonProtocol.split(
+                request.getProperty(DaemonProtocol.MAPPING_FILES)
+            )
+        );
+    }
+
+    /**
+     * Configures a {@link GenerateDdlMojo} using the settings from a
+     * request.
+     *
+     * @param mojo    The mojo to configure.
+     * @param request The request.
+     * @param log     The log for the mojo.
+     */
+    public static void configure(
+        final GenerateDdlMojo mojo, final Properties request, final Log log
+    ) {
+        mojo.setLog(log);
+        mojo.setOutputDirectory(
+            new File(request.getProperty(DaemonProtocol.OUTPUT_DIRECTORY))
+        );
+        mojo.setOutputFileNamePrefix(
+            request.getProperty(DaemonProtocol.OUTPUT_FILE_NAME_PREFIX, "")
+        );
+        mojo.setOutputFileNameSuffix(
+            request.getProperty(DaemonProtocol.OUTPUT_FILE_NAME_SUFFIX, "")
+        );
+        mojo.setOmitDialectFromFileName(
+            Boolean.parseBoolean(
+                request.getProperty(DaemonProtocol.OMIT_DIALECT_FROM_FILE_NAME)
+            )
+        );
+        mojo.setDialects(
+            DaemonProtocol
+                .split(request.getProperty(DaemonProtocol.DIALECTS))
+                .toArray(new String[0])
+        );
+        mojo.setCustomDialects(
+            DaemonProtocol
+                .split(request.getProperty(DaemonProtocol.CUSTOM_DIALECTS))
+                .toArray(new String[0])
+        );
+        mojo.setCreateDropStatements(
+            Boolean.parseBoolean(
+                request.getProperty(DaemonProtocol.CREATE_DROP_STATEMENTS)
+            )
+        );
+        final String persistenceXml = request.getProperty(
+            DaemonProtocol.PERSISTENCE_XML
+        );
+        if (persistenceXml != null) {
+            mojo.setPersistenceXml(new File(persistenceXml));
+        }
+        mojo.setPersistencePropertiesToUse(
+            DaemonProtocol
+                .split(
+                    request.getProperty(
+                        DaemonProtocol.PERSISTENCE_PROPERTIES_TO_USE
+                    )
+                )
+                .toArray(new String[0])
+        );
+        final Map<String, String> properties = new HashMap<>();
+        for (final String name : request.stringPropertyNames()) {
+            if (name.startsWith(DaemonProtocol.PERSISTENCE_PROPERTY_PREFIX)) {
+                properties.put(
+                    name.substring(
+                        DaemonProtocol.PERSISTENCE_PROPERTY_PREFIX.length()
+                    ),
+                    request.getProperty(name)
+                );
+            }
+        }
+        mojo.setPersistenceProperties(properties);
+        mojo.setGenerationThreads(
+            Integer.parseInt(
+                request.getProperty(DaemonProtocol.GENERATION_THREADS, "1")
+            )
+        );
+        mojo.setOfflineBoot(
+            Boolean.parseBoolean(
+                request.getProperty(DaemonProtocol.OFFLINE_BOOT, "true")
+            )
+        );
+        mojo.setOfflineBootIntegrators(
+            DaemonProtocol
+                .split(
+                    request.getProperty(DaemonProtocol.OFFLINE_BOOT_INTEGRATORS)
+                )
+                .toArray(new String[0])
+        );
+        mojo.setPartitioning(
+            request.getProperty(DaemonProtocol.PARTITIONING, "none")
+        );
+        mojo.setPartitions(
+            DaemonProtocol
+                .split(request.getProperty(DaemonProtocol.PARTITIONS))
+                .toArray(new String[0])
+        );
+        mojo.setMaxPartitionSize(
+            Integer.parseInt(
+                request.getProperty(DaemonProtocol.MAX_PARTITION_SIZE, "1000")
+            )
+        );
+        mojo.setUseJandexIndex(
+            Boolean.parseBoolean(
+                request.getProperty(DaemonProtocol.USE_JANDEX_INDEX, "true")
+            )
+        );
+        final String jandexIndexDirectory = request.getProperty(
+            DaemonProtocol.JANDEX_INDEX_DIRECTORY
+        );
+        if (jandexIndexDirectory != null) {
+            mojo.setJandexIndexDirectory(new File(jandexIndexDirectory));
+        }
+        mojo.setLogHibernateServices(
+            Boolean.parseBoolean(
+                request.getProperty(DaemonProtocol.LOG_HIBERNATE_SERVICES)
+            )
+        );
+    }
+
+    /**
+     * Converts classpath elements to URLs.
+     *
+     * @param elements The classpath elements.
+     *
+     * @return The URLs of the elements.
+     *
+     * @throws MojoFailureException If an element can't be converted.
+     */
+    public static URL[] toUrls(final List<String> elements)
+        throws MojoFailureException {
+        final URL[] urls = new URL[elements.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = new File(elements.get(i)).toURI().toURL();
+            } catch (MalformedURLException ex) {
+                throw new MojoFailureException(
+                    String.format(
+                        "Invalid classpath element '%s'.", elements.get(i)
+                    ),
+                    ex
+                );
+            }
+        }
+        return urls;
+    }
+
+}
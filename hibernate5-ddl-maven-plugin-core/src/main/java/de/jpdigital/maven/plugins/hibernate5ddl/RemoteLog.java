@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+
+/**
+ * Base class for the {@link Log} implementations used by the
+ * {@link GeneratorDaemon} and the {@link ForkedWorker}. The log entries are
+ * converted to a level and a message (including the stack trace of an
+ * exception), which are sent to the Maven JVM and written to the Maven log
+ * using {@link #replay(org.apache.maven.plugin.logging.Log, java.lang.String, java.lang.String)}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+abstract class RemoteLog implements Log {
+
+    private final boolean debugEnabled;
+
+    protected RemoteLog(final boolean debugEnabled) {
+        this.debugEnabled = debugEnabled;
+    }
+
+    /**
+     * Writes a log entry received from another JVM to the Maven log.
+     *
+     * @param log     The Maven log.
+     * @param level   The level of the entry.
+     * @param message The message of the entry.
+     */
+    public static void replay(
+        final Log log, final String level, final String message
+    ) {
+        switch (level.toLowerCase(Locale.ROOT)) {
+            case "debug":
+                log.debug(message);
+                break;
+            case "warn":
+                log.warn(message);
+                break;
+            case "error":
+                log.error(message);
+                break;
+            default:
+                log.info(message);
+                break;
+        }
+    }
+
+    /**
+     * Called for each log entry.
+     *
+     * @param level   The level of the entry: {@code debug}, {@code info},
+     *                {@code warn} or {@code error}.
+     * @param message The message, including the stack trace of the exception
+     *                if any.
+     */
+    protected abstract void add(String level, String message);
+
+    private void add(
+        final String level,
+        final CharSequence content,
+        final Throwable error
+    ) {
+        final StringBuilder message = new StringBuilder();
+        if (content != null) {
+            message.append(content);
+        }
+        if (error != null) {
+            final StringWriter stackTrace = new StringWriter();
+            error.printStackTrace(new PrintWriter(stackTrace));
+            if (message.length() > 0) {
+                message.append(System.lineSeparator());
+            }
+            message.append(stackTrace);
+        }
+        add(level, message.toString());
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    @Override
+    public void debug(final CharSequence content) {
+        if (debugEnabled) {
+            add("debug", content, null);
+        }
+    }
+
+    @Override
+    public void debug(final CharSequence content, final Throwable error) {
+        if (debugEnabled) {
+            add("debug", content, error);
+        }
+    }
+
+    @Override
+    public void debug(final Throwable error) {
+        if (debugEnabled) {
+            add("debug", null, error);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return true;
+    }
+
+    @Override
+    public void info(final CharSequence content) {
+        add("info", content, null);
+    }
+
+    @Override
+    public void info(final CharSequence content, final Throwable error) {
+        add("info", content, error);
+    }
+
+    @Override
+    public void info(final Throwable error) {
+        add("info", null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return true;
+    }
+
+    @Override
+    public void warn(final CharSequence content) {
+        add("warn", content, null);
+    }
+
+    @Override
+    public void warn(final CharSequence content, final Throwable error) {
+        add("warn", content, error);
+    }
+
+    @Override
+    public void warn(final Throwable error) {
+        add("warn", null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(final CharSequence content) {
+        add("error", content, null);
+    }
+
+    @Override
+    public void error(final CharSequence content, final Throwable error) {
+        add("error", content, error);
+    }
+
+    @Override
+    public void error(final Throwable error) {
+        add("error", null, error);
+    }
+
+}
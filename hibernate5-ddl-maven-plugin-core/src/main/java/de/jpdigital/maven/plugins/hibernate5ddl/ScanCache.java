@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores the {@link ScanFindings} of the last scan of the classpath in a file
+ * (usually in the {@code target} directory of the project). The stored
+ * findings are only used if the fingerprint of the classpath has not changed
+ * since they were written. The fingerprint is created from the path, the size
+ * and the modification time of each JAR file on the classpath and from a hash
+ * of the names, sizes and modification times of all files in each directory
+ * on the classpath.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ScanCache {
+
+    /**
+     * The version of the scan results. Must be incremented if the meaning of
+     * the stored results changes, otherwise results written by an older
+     * version of the plugin would still be used. Since version 2 the results
+     * depend on the {@link PersistenceAnnotations} of the
+     * {@link DdlGenerator}, their key is part of the fingerprint.
+     */
+    static final String FORMAT = "2";
+
+    private static final String FORMAT_KEY = "format";
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private static final String ENTITIES = "entities";
+
+    private static final String CONVERTERS = "converters";
+
+    private static final String PACKAGES = "packages";
+
+    private static final String SEPARATOR = ",";
+
+    private final File cacheFile;
+
+    private final Log log;
+
+    ScanCache(final File cacheFile, final Log log) {
+        this.cacheFile = cacheFile;
+        this.log = log;
+    }
+
+    /**
+     * Creates the fingerprint for the provided classpath elements.
+     *
+     * @param classPathElements The classpath elements to scan.
+     * @param parameters        Additional parameters which influence the
+     *                          result of the scan, for example the packages to
+     *                          scan.
+     *
+     * @return The fingerprint or {@code null} if the fingerprint could not be
+     *         created. In that case the cache should not be used.
+     */
+    public String fingerprint(
+        final List<String> classPathElements,
+        final String... parameters
+    ) {
+        return fingerprint(log, classPathElements, parameters);
+    }
+
+    /**
+     * Creates the fingerprint for the provided classpath elements without a
+     * cache file, for example for the {@link ReactorCache}.
+     *
+     * @param log               The Maven log.
+     * @param classPathElements The classpath elements to scan.
+     * @param parameters        Additional parameters which influence the
+     *                          result of the scan.
+     *
+     * @return The fingerprint or {@code null} if the fingerprint could not be
+     *         created.
+     */
+    static String fingerprint(
+        final Log log,
+        final List<String> classPathElements,
+        final String... parameters
+    ) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            log.warn("SHA-256 is not available. Scan cache disabled.", ex);
+            return null;
+        }
+
+        for (final String parameter : parameters) {
+            update(digest, parameter);
+        }
+
+        try {
+            for (final String classPathElement : classPathElements) {
+                final Path path = new File(classPathElement).toPath();
+                update(digest, path.toAbsolutePath().toString());
+                if (Files.isDirectory(path)) {
+                    updateWithTree(digest, path);
+                } else if (Files.exists(path)) {
+                    update(digest, Long.toString(Files.size(path)));
+                    update(
+                        digest,
+                        Long.toString(
+                            Files.getLastModifiedTime(path).toMillis()
+                        )
+                    );
+                } else {
+                    update(digest, "missing");
+                }
+            }
+        } catch (IOException ex) {
+            log.warn(
+                "Failed to create fingerprint for the classpath. "
+                    + "Scan cache disabled.",
+                ex
+            );
+            return null;
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Reads the findings for the provided fingerprint from the cache file.
+     *
+     * @param fingerprint The current fingerprint of the classpath.
+     *
+     * @return The cached findings or {@code null} if the cache file does not
+     *         exist, could not be read or was written for another fingerprint
+     *         or by a version of the plugin using another format.
+     */
+    public ScanFindings read(final String fingerprint) {
+        if (fingerprint == null || !cacheFile.isFile()) {
+            return null;
+        }
+
+        final Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(
+            cacheFile.toPath()
+        )) {
+            properties.load(inputStream);
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to read scan cache file '%s'. Ignoring.",
+                    cacheFile.getPath()
+                ),
+                ex
+            );
+            return null;
+        }
+
+        if (!FORMAT.equals(properties.getProperty(FORMAT_KEY))
+                || !fingerprint.equals(properties.getProperty(FINGERPRINT))) {
+            return null;
+        }
+
+        return new ScanFindings(
+            split(properties.getProperty(ENTITIES)),
+            split(properties.getProperty(CONVERTERS)),
+            split(properties.getProperty(PACKAGES))
+        );
+    }
+
+    /**
+     * Writes the findings to the cache file. Failures are only logged because
+     * the cache is not essential for the generation of the DDL files.
+     *
+     * @param fingerprint The fingerprint of the scanned classpath.
+     * @param findings    The findings of the scan.
+     */
+    public void write(final String fingerprint, final ScanFindings findings) {
+        if (fingerprint == null) {
+            return;
+        }
+
+        final Properties properties = new Properties();
+        properties.setProperty(FORMAT_KEY, FORMAT);
+        properties.setProperty(FINGERPRINT, fingerprint);
+        properties.setProperty(ENTITIES, join(findings.getEntityClassNames()));
+        properties.setProperty(
+            CONVERTERS, join(findings.getConverterClassNames())
+        );
+        properties.setProperty(PACKAGES, join(findings.getPackageNames()));
+
+        final Path cachePath = cacheFile.toPath().toAbsolutePath();
+        try {
+            Files.createDirectories(cachePath.getParent());
+            final Path tmpPath = Files.createTempFile(
+                cachePath.getParent(), cachePath.getFileName().toString(), ".tmp"
+            );
+            try (OutputStream outputStream = Files.newOutputStream(tmpPath)) {
+                properties.store(
+                    outputStream, "hibernate5-ddl-maven-plugin scan cache"
+                );
+            }
+            Files.move(
+                tmpPath,
+                cachePath,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to write scan cache file '%s'.",
+                    cacheFile.getPath()
+                ),
+                ex
+            );
+        }
+    }
+
+    private static void updateWithTree(
+        final MessageDigest digest, final Path directory
+    ) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            files = stream
+                .filter(Files::isRegularFile)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        for (final Path file : files) {
+            update(digest, directory.relativize(file).toString());
+            update(digest, Long.toString(Files.size(file)));
+            update(
+                digest,
+                Long.toString(Files.getLastModifiedTime(file).toMillis())
+            );
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    static String toHex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte value : bytes) {
+            builder.append(String.format("%02x", value));
+        }
+        return builder.toString();
+    }
+
+    private static String join(final Collection<String> values) {
+        return String.join(SEPARATOR, values);
+    }
+
+    private static List<String> split(final String value) {
+        if (value == null || value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(value.split(SEPARATOR));
+    }
+
+}
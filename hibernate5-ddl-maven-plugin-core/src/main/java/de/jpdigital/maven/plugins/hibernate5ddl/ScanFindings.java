@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The names of the classes and packages found by a scan of the classpath.
+ * Only the names are stored, therefore instances of this class can be cached
+ * without keeping the classes (and their class loader) alive.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class ScanFindings {
+
+    private final Set<String> entityClassNames;
+
+    private final Set<String> converterClassNames;
+
+    private final Set<String> packageNames;
+
+    /**
+     * Creates a new {@code ScanFindings} instance.
+     *
+     * @param entityClassNames    Names of the classes annotated with
+     *                            {@code @Entity}.
+     * @param converterClassNames Names of the classes annotated with
+     *                            {@code @Converter}.
+     * @param packageNames        Names of the packages with package level
+     *                            Hibernate annotations.
+     */
+    ScanFindings(
+        final Collection<String> entityClassNames,
+        final Collection<String> converterClassNames,
+        final Collection<String> packageNames
+    ) {
+        this.entityClassNames = Collections.unmodifiableSet(
+            new TreeSet<>(Objects.requireNonNull(entityClassNames))
+        );
+        this.converterClassNames = Collections.unmodifiableSet(
+            new TreeSet<>(Objects.requireNonNull(converterClassNames))
+        );
+        this.packageNames = Collections.unmodifiableSet(
+            new TreeSet<>(Objects.requireNonNull(packageNames))
+        );
+    }
+
+    /**
+     * Merges several findings into one.
+     *
+     * @param findings The findings to merge.
+     *
+     * @return The merged findings.
+     */
+    static ScanFindings merge(final Collection<ScanFindings> findings) {
+        final Set<String> entities = new TreeSet<>();
+        final Set<String> converters = new TreeSet<>();
+        final Set<String> packages = new TreeSet<>();
+        for (final ScanFindings current : findings) {
+            entities.addAll(current.getEntityClassNames());
+            converters.addAll(current.getConverterClassNames());
+            packages.addAll(current.getPackageNames());
+        }
+        return new ScanFindings(entities, converters, packages);
+    }
+
+    /**
+     * Returns the findings located in the provided packages or in one of
+     * their subpackages.
+     *
+     * @param packageNames The names of the packages. If empty, all findings
+     *                     are returned.
+     *
+     * @return The findings in the provided packages.
+     */
+    ScanFindings filterByPackages(final String... packageNames) {
+        if (packageNames.length == 0) {
+            return this;
+        }
+        return new ScanFindings(
+            entityClassNames
+                .stream()
+                .filter(name -> isInPackages(getPackageName(name), packageNames))
+                .collect(Collectors.toList()),
+            converterClassNames
+                .stream()
+                .filter(name -> isInPackages(getPackageName(name), packageNames))
+                .collect(Collectors.toList()),
+            this.packageNames
+                .stream()
+                .filter(name -> isInPackages(name, packageNames))
+                .collect(Collectors.toList())
+        );
+    }
+
+    public Set<String> getEntityClassNames() {
+        return entityClassNames;
+    }
+
+    public Set<String> getConverterClassNames() {
+        return converterClassNames;
+    }
+
+    public Set<String> getPackageNames() {
+        return packageNames;
+    }
+
+    private static String getPackageName(final String className) {
+        final int lastDot = className.lastIndexOf('.');
+        if (lastDot < 0) {
+            return "";
+        }
+        return className.substring(0, lastDot);
+    }
+
+    private static boolean isInPackages(
+        final String packageName, final String... packageNames
+    ) {
+        for (final String candidate : packageNames) {
+            if (packageName.equals(candidate)
+                    || packageName.startsWith(candidate + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
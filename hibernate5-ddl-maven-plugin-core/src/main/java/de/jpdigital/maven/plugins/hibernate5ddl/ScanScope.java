@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+/**
+ * The parts of the classpath of a project which are scanned for entities. The
+ * class loader used to load the entities always has access to the complete
+ * classpath of the project.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public enum ScanScope {
+
+    /**
+     * Only the output directories of the project (and the artifacts
+     * explicitly configured using the {@code scanArtifacts} parameter) are
+     * scanned.
+     */
+    PROJECT,
+    /**
+     * The complete classpath of the project, including all dependencies, is
+     * scanned.
+     */
+    CLASSPATH
+
+}
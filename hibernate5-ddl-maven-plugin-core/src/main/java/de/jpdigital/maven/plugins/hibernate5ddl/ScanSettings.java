@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Settings for the classpath scan done by the {@link EntityFinder}. An
+ * instance of this class is created and populated by {@link GenerateDdlMojo}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@SuppressWarnings({"PMD.LongVariable", "PMD.DataClass"})
+class ScanSettings {
+
+    private PersistenceAnnotations persistenceAnnotations;
+
+    private boolean includeTestClasses;
+
+    private File scanCacheFile;
+
+    private File jarScanCacheDirectory;
+
+    private ScanScope scanScope = ScanScope.PROJECT;
+
+    private String[] scanArtifacts = new String[]{};
+
+    private int scanThreads;
+
+    private boolean shareScanExecutor;
+
+    private boolean useEntityIndex;
+
+    private ReactorCache reactorCache;
+
+    private File incrementalStateDirectory;
+
+    private BuildContext buildContext;
+
+    public ScanSettings() {
+        super();
+    }
+
+    /**
+     * @return The annotations of the {@link DdlGenerator}. Only classes and
+     *         packages annotated with one of them are found by the scan.
+     */
+    public PersistenceAnnotations getPersistenceAnnotations() {
+        return persistenceAnnotations;
+    }
+
+    public void setPersistenceAnnotations(
+        final PersistenceAnnotations persistenceAnnotations
+    ) {
+        this.persistenceAnnotations = persistenceAnnotations;
+    }
+
+    public boolean isIncludeTestClasses() {
+        return includeTestClasses;
+    }
+
+    public void setIncludeTestClasses(final boolean includeTestClasses) {
+        this.includeTestClasses = includeTestClasses;
+    }
+
+    /**
+     * @return The file in which the result of the scan is cached, or
+     *         {@code null} if the result should not be cached.
+     */
+    public File getScanCacheFile() {
+        return scanCacheFile;
+    }
+
+    public void setScanCacheFile(final File scanCacheFile) {
+        this.scanCacheFile = scanCacheFile;
+    }
+
+    /**
+     * @return The directory of the {@link JarScanCache}, or {@code null} if
+     *         the findings for JAR files should not be cached.
+     */
+    public File getJarScanCacheDirectory() {
+        return jarScanCacheDirectory;
+    }
+
+    public void setJarScanCacheDirectory(final File jarScanCacheDirectory) {
+        this.jarScanCacheDirectory = jarScanCacheDirectory;
+    }
+
+    public ScanScope getScanScope() {
+        return scanScope;
+    }
+
+    public void setScanScope(final ScanScope scanScope) {
+        this.scanScope = scanScope;
+    }
+
+    /**
+     * @return Patterns ({@code groupId:artifactId}, {@code *} can be used as
+     *         wildcard) for the dependencies which are scanned in addition to
+     *         the output directories of the project if the
+     *         {@link #getScanScope()} is {@link ScanScope#PROJECT}.
+     */
+    public String[] getScanArtifacts() {
+        return Arrays.copyOf(scanArtifacts, scanArtifacts.length);
+    }
+
+    public void setScanArtifacts(final String... scanArtifacts) {
+        this.scanArtifacts = Arrays.copyOf(scanArtifacts, scanArtifacts.length);
+    }
+
+    /**
+     * @return The number of threads used for scanning. {@code 0} or less means
+     *         that ClassGraph determines the number of threads.
+     */
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public void setScanThreads(final int scanThreads) {
+        this.scanThreads = scanThreads;
+    }
+
+    /**
+     * @return Should the scan use the {@link SharedScanExecutor}?
+     */
+    public boolean isShareScanExecutor() {
+        return shareScanExecutor;
+    }
+
+    public void setShareScanExecutor(final boolean shareScanExecutor) {
+        this.shareScanExecutor = shareScanExecutor;
+    }
+
+    /**
+     * @return Should an entity index created by the annotation processor be
+     *         used instead of scanning a classpath element?
+     */
+    public boolean isUseEntityIndex() {
+        return useEntityIndex;
+    }
+
+    public void setUseEntityIndex(final boolean useEntityIndex) {
+        this.useEntityIndex = useEntityIndex;
+    }
+
+    /**
+     * @return The cache shared by all modules of the reactor, or {@code null}
+     *         if scan results and class loaders should not be shared.
+     */
+    public ReactorCache getReactorCache() {
+        return reactorCache;
+    }
+
+    public void setReactorCache(final ReactorCache reactorCache) {
+        this.reactorCache = reactorCache;
+    }
+
+    /**
+     * @return The directory in which the {@link IncrementalScanner} stores its
+     *         state, or {@code null} if the output directories of the project
+     *         should not be scanned incrementally.
+     */
+    public File getIncrementalStateDirectory() {
+        return incrementalStateDirectory;
+    }
+
+    public void setIncrementalStateDirectory(
+        final File incrementalStateDirectory
+    ) {
+        this.incrementalStateDirectory = incrementalStateDirectory;
+    }
+
+    /**
+     * @return The build context of the current build, used to detect
+     *         unchanged output directories. May be {@code null}.
+     */
+    public BuildContext getBuildContext() {
+        return buildContext;
+    }
+
+    public void setBuildContext(final BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+
+}
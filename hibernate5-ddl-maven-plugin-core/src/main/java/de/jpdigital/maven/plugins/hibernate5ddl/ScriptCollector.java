@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the DDL commands generated by Hibernate in memory instead of
+ * writing them to a file. Each command is followed by a line separator, like
+ * in the files written by Hibernate. The generator modules provide the
+ * script target for their Hibernate version by extending this class.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class ScriptCollector {
+
+    private final List<String> commands = new ArrayList<>();
+
+    /**
+     * Adds a command.
+     *
+     * @param command The command.
+     */
+    public void accept(final String command) {
+        commands.add(command);
+    }
+
+    /**
+     * @return The commands collected.
+     */
+    public List<String> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    /**
+     * @return The DDL collected.
+     */
+    public String getScript() {
+        final StringBuilder script = new StringBuilder();
+        for (final String command : commands) {
+            script.append(command).append(System.lineSeparator());
+        }
+        return script.toString();
+    }
+
+}
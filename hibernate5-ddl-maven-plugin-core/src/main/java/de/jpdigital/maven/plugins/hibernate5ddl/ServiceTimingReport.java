@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the services of a Hibernate service registry which are started
+ * and how long their initiators took, and writes them to the log. The
+ * generator modules measure the times by wrapping the initiators of their
+ * Hibernate version.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class ServiceTimingReport {
+
+    private final List<String[]> entries = new ArrayList<>();
+
+    /**
+     * Writes the started services and their times to the log.
+     *
+     * @param log      The Maven log.
+     * @param info     If {@code true} the report is logged at info level,
+     *                 otherwise at debug level.
+     * @param registry The name of the registry in the report, for example
+     *                 the dialect.
+     */
+    public synchronized void report(
+        final Log log, final boolean info, final String registry
+    ) {
+        final StringBuilder report = new StringBuilder(
+            String.format(
+                "Hibernate services started for %s (%d services, including "
+                    + "the services they depend on):",
+                registry,
+                entries.size()
+            )
+        );
+        for (final String[] entry : entries) {
+            report.append(
+                String.format("%n\t%s: %s ms", entry[0], entry[1])
+            );
+        }
+        if (info) {
+            log.info(report.toString());
+        } else {
+            log.debug(report.toString());
+        }
+    }
+
+    /**
+     * Records the time for starting a service.
+     *
+     * @param service The service.
+     * @param nanos   The time in nanoseconds.
+     */
+    protected synchronized void record(
+        final Class<?> service, final long nanos
+    ) {
+        entries.add(
+            new String[]{
+                service.getName(),
+                Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos))
+            }
+        );
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds a thread pool which is shared by all executions of the plugin in the
+ * same plugin realm (for example all modules of a reactor build using
+ * {@code -T}). This bounds the total number of threads used for scanning the
+ * classpath, regardless of how many executions are running in parallel.
+ *
+ * The size of the pool is determined by the first execution which requests
+ * the pool. The threads of the pool are daemon threads, therefore the pool
+ * does not need to be shut down explicitly.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class SharedScanExecutor {
+
+    private static ExecutorService executor;
+
+    private static int poolSize;
+
+    private SharedScanExecutor() {
+        //Nothing
+    }
+
+    /**
+     * Returns the shared thread pool, creating it if necessary.
+     *
+     * @param threads The number of threads for the pool. Only used if the pool
+     *                does not exist yet.
+     * @param log     The Maven log.
+     *
+     * @return The shared thread pool.
+     */
+    public static synchronized ExecutorService getExecutor(
+        final int threads, final Log log
+    ) {
+        if (executor == null) {
+            final AtomicInteger threadCounter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(
+                threads,
+                runnable -> {
+                    final Thread thread = new Thread(
+                        runnable,
+                        String.format(
+                            "hibernate5-ddl-scan-%d",
+                            threadCounter.incrementAndGet()
+                        )
+                    );
+                    thread.setDaemon(true);
+                    // Don't inherit the context class loader of the
+                    // execution which happens to create the thread.
+                    thread.setContextClassLoader(
+                        SharedScanExecutor.class.getClassLoader()
+                    );
+                    return thread;
+                }
+            );
+            poolSize = threads;
+            log.debug(
+                String.format(
+                    "Created shared scan thread pool with %d threads.", threads
+                )
+            );
+        } else if (threads != poolSize) {
+            log.debug(
+                String.format(
+                    "Shared scan thread pool already exists with %d threads, "
+                        + "ignoring requested size of %d threads.",
+                    poolSize,
+                    threads
+                )
+            );
+        }
+        return executor;
+    }
+
+    /**
+     * @return The size of the shared pool, or {@code 0} if the pool has not
+     *         been created yet.
+     */
+    public static synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+}
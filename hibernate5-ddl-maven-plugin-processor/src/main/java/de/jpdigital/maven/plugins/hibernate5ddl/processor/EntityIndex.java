@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The index of the entities, converters and annotated packages of a project.
+ * The index is created at compile time by the {@link EntityIndexProcessor}
+ * and stored at {@link #LOCATION} in the class output directory. The
+ * hibernate5-ddl-maven-plugin reads the index instead of scanning the
+ * classpath if the index is present and up to date.
+ *
+ * The index is a simple text file. Each line contains the fully qualified
+ * name of the annotation, a colon and the binary name of the annotated class
+ * or the name of the annotated package. A package with several package level
+ * annotations has one line for each annotation. Lines starting with
+ * {@code #} are ignored.
+ *
+ * Older versions of the processor used the type of the entry ({@code entity},
+ * {@code converter} or {@code package}) instead of the annotation. These
+ * indexes can still be read, see {@link #isLegacyFormat()}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public final class EntityIndex {
+
+    /**
+     * The location of the index file, relative to the class output directory
+     * or the root of a JAR file.
+     */
+    public static final String LOCATION
+        = "META-INF/hibernate5-ddl-maven-plugin/entity.index";
+
+    /**
+     * Annotations marking an entity. The processor records the entities of
+     * all supported persistence APIs, the plugin only uses the entries for
+     * the annotations bound by its generator.
+     */
+    public static final Set<String> ENTITY_ANNOTATIONS = Collections
+        .unmodifiableSet(
+            new HashSet<>(
+                Arrays.asList(
+                    new String[]{
+                        "javax.persistence.Entity",
+                        "jakarta.persistence.Entity"
+                    }
+                )
+            )
+        );
+
+    /**
+     * Annotations marking an attribute converter.
+     */
+    public static final Set<String> CONVERTER_ANNOTATIONS = Collections
+        .unmodifiableSet(
+            new HashSet<>(
+                Arrays.asList(
+                    new String[]{
+                        "javax.persistence.Converter",
+                        "jakarta.persistence.Converter"
+                    }
+                )
+            )
+        );
+
+    /**
+     * Hibernate Annotations that only be applied on package level (in a
+     * {@code package-info.java} file). Contains the annotations of Hibernate
+     * 5 and Hibernate 6, each generator of the plugin only uses the entries
+     * for the annotations of its Hibernate version.
+     */
+    public static final Set<String> PACKAGE_LEVEL_ANNOTATIONS = Collections
+        .unmodifiableSet(
+            new HashSet<>(
+                Arrays.asList(
+                    new String[]{
+                        "org.hibernate.annotations.AnyMetaDef",
+                        "org.hibernate.annotations.AnyMetaDefs",
+                        "org.hibernate.annotations.CollectionTypeRegistration",
+                        "org.hibernate.annotations.CollectionTypeRegistrations",
+                        "org.hibernate.annotations.CompositeTypeRegistration",
+                        "org.hibernate.annotations.CompositeTypeRegistrations",
+                        "org.hibernate.annotations.ConverterRegistration",
+                        "org.hibernate.annotations.ConverterRegistrations",
+                        "org.hibernate.annotations.EmbeddableInstantiatorRegistration",
+                        "org.hibernate.annotations.EmbeddableInstantiatorRegistrations",
+                        "org.hibernate.annotations.FetchProfile",
+                        "org.hibernate.annotations.FetchProfile.FetchOverride",
+                        "org.hibernate.annotations.FetchProfiles",
+                        "org.hibernate.annotations.FilterDef",
+                        "org.hibernate.annotations.FilterDefs",
+                        "org.hibernate.annotations.GenericGenerator",
+                        "org.hibernate.annotations.GenericGenerators",
+                        "org.hibernate.annotations.JavaTypeRegistration",
+                        "org.hibernate.annotations.JavaTypeRegistrations",
+                        "org.hibernate.annotations.JdbcTypeRegistration",
+                        "org.hibernate.annotations.JdbcTypeRegistrations",
+                        "org.hibernate.annotations.NamedNativeQueries",
+                        "org.hibernate.annotations.NamedNativeQuery",
+                        "org.hibernate.annotations.NamedQueries",
+                        "org.hibernate.annotations.NamedQuery",
+                        "org.hibernate.annotations.TypeDef",
+                        "org.hibernate.annotations.TypeDefs",
+                        "org.hibernate.annotations.TypeRegistration",
+                        "org.hibernate.annotations.TypeRegistrations"}
+                )
+            )
+        );
+
+    /**
+     * The types used instead of the annotations by older versions of the
+     * processor.
+     */
+    private static final Set<String> LEGACY_TYPES = Collections
+        .unmodifiableSet(
+            new HashSet<>(
+                Arrays.asList(new String[]{"entity", "converter", "package"})
+            )
+        );
+
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+
+    private boolean legacyFormat;
+
+    public EntityIndex() {
+        super();
+    }
+
+    /**
+     * @return The annotations for which the index contains entries.
+     */
+    public Set<String> getAnnotations() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Adds an entry to the index.
+     *
+     * @param annotation The fully qualified name of the annotation.
+     * @param name       The binary name of the annotated class or the name
+     *                   of the annotated package.
+     */
+    public void addEntry(final String annotation, final String name) {
+        entries
+            .computeIfAbsent(annotation, key -> new TreeSet<>())
+            .add(name);
+    }
+
+    /**
+     * Retrieves the classes or packages annotated with at least one of the
+     * provided annotations.
+     *
+     * @param annotations The fully qualified names of the annotations.
+     *
+     * @return The names of the annotated classes or packages.
+     */
+    public Set<String> getNames(final Collection<String> annotations) {
+        final Set<String> names = new TreeSet<>();
+        for (final String annotation : annotations) {
+            names.addAll(
+                entries.getOrDefault(annotation, Collections.emptySet())
+            );
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * @return {@code true} if the index was written by an older version of
+     *         the processor which recorded the type of the entries instead of
+     *         the annotations. The entries of such an index are stored with
+     *         the types {@code entity}, {@code converter} and
+     *         {@code package} as annotation.
+     */
+    public boolean isLegacyFormat() {
+        return legacyFormat;
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param reader The reader providing the content of the index file.
+     *
+     * @return The index.
+     *
+     * @throws IOException If the index can't be read or contains invalid
+     *                     lines.
+     */
+    public static EntityIndex read(final Reader reader) throws IOException {
+        final EntityIndex index = new EntityIndex();
+        final BufferedReader bufferedReader = new BufferedReader(reader);
+        String line = bufferedReader.readLine();
+        while (line != null) {
+            final String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                final int colon = trimmed.indexOf(':');
+                if (colon <= 0) {
+                    throw new IOException(
+                        String.format("Invalid line in entity index: %s", line)
+                    );
+                }
+                final String annotation = trimmed.substring(0, colon);
+                final String name = trimmed.substring(colon + 1);
+                if (LEGACY_TYPES.contains(annotation)) {
+                    index.legacyFormat = true;
+                } else if (annotation.indexOf('.') < 0) {
+                    throw new IOException(
+                        String.format(
+                            "Invalid annotation '%s' in entity index.",
+                            annotation
+                        )
+                    );
+                }
+                index.addEntry(annotation, name);
+            }
+            line = bufferedReader.readLine();
+        }
+        return index;
+    }
+
+    /**
+     * Writes the index.
+     *
+     * @param writer The writer to use.
+     *
+     * @throws IOException If the index can't be written.
+     */
+    public void write(final Writer writer) throws IOException {
+        writer.write(
+            String.format(
+                "# Generated by hibernate5-ddl-maven-plugin-processor%n"
+            )
+        );
+        for (final Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+            for (final String name : entry.getValue()) {
+                writer.write(String.format("%s:%s%n", entry.getKey(), name));
+            }
+        }
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl.processor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor which creates the {@link EntityIndex} of a project. All
+ * classes annotated with one of the {@link EntityIndex#ENTITY_ANNOTATIONS} or
+ * {@link EntityIndex#CONVERTER_ANNOTATIONS} and all packages annotated with
+ * one of the {@link EntityIndex#PACKAGE_LEVEL_ANNOTATIONS} are recorded,
+ * together with the annotation. The processor does not know which generator
+ * of the plugin is used, therefore the annotations of all supported
+ * persistence APIs and Hibernate versions are recorded.
+ *
+ * If only some classes are compiled (incremental compilation) the entries of
+ * the existing index are merged into the new index, as long as the classes and
+ * packages still exist and are still annotated.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class EntityIndexProcessor extends AbstractProcessor {
+
+    private final EntityIndex index = new EntityIndex();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        final Set<String> annotationTypes = new HashSet<>();
+        annotationTypes.addAll(EntityIndex.ENTITY_ANNOTATIONS);
+        annotationTypes.addAll(EntityIndex.CONVERTER_ANNOTATIONS);
+        annotationTypes.addAll(EntityIndex.PACKAGE_LEVEL_ANNOTATIONS);
+        return annotationTypes;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(
+        final Set<? extends TypeElement> annotations,
+        final RoundEnvironment roundEnv
+    ) {
+        for (final TypeElement annotation : annotations) {
+            final String annotationName = annotation
+                .getQualifiedName()
+                .toString();
+            for (final Element element : roundEnv.getElementsAnnotatedWith(
+                annotation
+            )) {
+                recordElement(annotationName, element);
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+
+        // The annotations are not claimed, other processors may also
+        // process them.
+        return false;
+    }
+
+    private void recordElement(
+        final String annotationName, final Element element
+    ) {
+        if (isClassAnnotation(annotationName)
+                && element.getKind() == ElementKind.CLASS) {
+            index.addEntry(annotationName, getBinaryName(element));
+        } else if (EntityIndex.PACKAGE_LEVEL_ANNOTATIONS.contains(
+            annotationName
+        ) && element.getKind() == ElementKind.PACKAGE) {
+            index.addEntry(
+                annotationName,
+                ((PackageElement) element).getQualifiedName().toString()
+            );
+        }
+    }
+
+    private static boolean isClassAnnotation(final String annotationName) {
+        return EntityIndex.ENTITY_ANNOTATIONS.contains(annotationName)
+                   || EntityIndex.CONVERTER_ANNOTATIONS.contains(
+                annotationName
+            );
+    }
+
+    private String getBinaryName(final Element element) {
+        return processingEnv
+            .getElementUtils()
+            .getBinaryName((TypeElement) element)
+            .toString();
+    }
+
+    private void writeIndex() {
+        final EntityIndex previousIndex = readPreviousIndex();
+        if (previousIndex != null) {
+            mergePreviousIndex(previousIndex);
+        }
+
+        try {
+            final FileObject resource = processingEnv
+                .getFiler()
+                .createResource(
+                    StandardLocation.CLASS_OUTPUT, "", EntityIndex.LOCATION
+                );
+            try (Writer writer = resource.openWriter()) {
+                index.write(writer);
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(
+                Diagnostic.Kind.ERROR,
+                String.format(
+                    "Failed to write entity index %s: %s",
+                    EntityIndex.LOCATION,
+                    ex.getMessage()
+                )
+            );
+        }
+    }
+
+    private EntityIndex readPreviousIndex() {
+        try {
+            final FileObject resource = processingEnv
+                .getFiler()
+                .getResource(
+                    StandardLocation.CLASS_OUTPUT, "", EntityIndex.LOCATION
+                );
+            try (Reader reader = resource.openReader(true)) {
+                return EntityIndex.read(reader);
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            // No previous index.
+            return null;
+        }
+    }
+
+    /**
+     * Merges the entries of the previous index for classes and packages which
+     * were not part of the current compilation but still exist and are still
+     * annotated. The annotations are determined again, therefore an index
+     * written by an older version of the processor is converted to the
+     * current format.
+     *
+     * @param previousIndex The previous index.
+     */
+    private void mergePreviousIndex(final EntityIndex previousIndex) {
+        for (final String annotation : previousIndex.getAnnotations()) {
+            final boolean packageEntries = "package".equals(annotation)
+                || EntityIndex.PACKAGE_LEVEL_ANNOTATIONS.contains(annotation);
+            for (final String name : previousIndex.getNames(
+                Collections.singleton(annotation)
+            )) {
+                final Element element;
+                if (packageEntries) {
+                    element = processingEnv
+                        .getElementUtils()
+                        .getPackageElement(name);
+                } else {
+                    element = processingEnv
+                        .getElementUtils()
+                        .getTypeElement(name.replace('$', '.'));
+                }
+                if (element != null) {
+                    recordAnnotations(element, name, packageEntries);
+                }
+            }
+        }
+    }
+
+    private void recordAnnotations(
+        final Element element, final String name, final boolean isPackage
+    ) {
+        for (final AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final String annotationName = ((TypeElement) mirror
+                .getAnnotationType()
+                .asElement())
+                .getQualifiedName()
+                .toString();
+            if (isPackage
+                    ? EntityIndex.PACKAGE_LEVEL_ANNOTATIONS.contains(
+                        annotationName
+                    )
+                    : isClassAnnotation(annotationName)) {
+                index.addEntry(annotationName, name);
+            }
+        }
+    }
+
+}
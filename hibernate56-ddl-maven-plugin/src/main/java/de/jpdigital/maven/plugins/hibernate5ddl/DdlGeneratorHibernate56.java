@@ -17,37 +17,29 @@
 package de.jpdigital.maven.plugins.hibernate5ddl;
 
 import org.apache.maven.plugin.MojoFailureException;
-import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
-import org.xml.sax.SAXException;
-
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.util.Set;
-
-import org.apache.maven.plugin.logging.Log;
 import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataBuilder;
 import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.BootstrapServiceRegistry;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
 import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.registry.classloading.internal.ClassLoaderServiceImpl;
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
-import org.hibernate.tool.schema.TargetType;
-import org.xml.sax.Attributes;
-import org.xml.sax.helpers.DefaultHandler;
+import org.jboss.jandex.IndexView;
 
-import java.io.File;
-import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.EnumSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 /**
  * Implementation of the {@link DdlGenerator} interface for Hibernate
  * {@literal 5.4}.
@@ -56,16 +48,301 @@ import javax.xml.parsers.SAXParserFactory;
  */
 public class DdlGeneratorHibernate56 implements DdlGenerator {
 
+    private static final String ENVERS_INTEGRATOR
+        = "org.hibernate.envers.boot.internal.EnversIntegrator";
+
+    /**
+     * Hibernate 5 uses the {@code javax.persistence} API. The package level
+     * annotations are the ones supported by Hibernate 5.
+     */
+    private static final PersistenceAnnotations PERSISTENCE_ANNOTATIONS
+        = new PersistenceAnnotations(
+            PersistenceAnnotations.JAVAX_PERSISTENCE,
+            Arrays.asList(
+                "org.hibernate.annotations.AnyMetaDef",
+                "org.hibernate.annotations.AnyMetaDefs",
+                "org.hibernate.annotations.FetchProfile",
+                "org.hibernate.annotations.FetchProfile.FetchOverride",
+                "org.hibernate.annotations.FetchProfiles",
+                "org.hibernate.annotations.FilterDef",
+                "org.hibernate.annotations.FilterDefs",
+                "org.hibernate.annotations.GenericGenerator",
+                "org.hibernate.annotations.GenericGenerators",
+                "org.hibernate.annotations.NamedNativeQueries",
+                "org.hibernate.annotations.NamedNativeQuery",
+                "org.hibernate.annotations.NamedQueries",
+                "org.hibernate.annotations.NamedQuery",
+                "org.hibernate.annotations.TypeDef",
+                "org.hibernate.annotations.TypeDefs"
+            )
+        );
+
+    @Override
+    public PersistenceAnnotations getPersistenceAnnotations() {
+        return PERSISTENCE_ANNOTATIONS;
+    }
+
+    @Override
+    public void generateDdl(
+        final List<String> dialectClassNames,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        // Hibernate has to use the class loader of the project for loading
+        // the package-info classes and other classes referenced by the
+        // entities. The bootstrap registry (class loading, integrators,
+        // strategy selector) does not depend on the dialect and is shared by
+        // the registries for all dialects. Auto close is disabled, otherwise
+        // the bootstrap registry would be destroyed together with the
+        // registry of the first dialect.
+        final long bootstrapStart = System.nanoTime();
+        final BootstrapServiceRegistryBuilder bootstrapBuilder
+            = new BootstrapServiceRegistryBuilder().disableAutoClose();
+        if (mojo.isOfflineBoot()) {
+            bootstrapBuilder.applyClassLoaderService(
+                createOfflineClassLoaderService(entitySources, mojo)
+            );
+        } else {
+            bootstrapBuilder.applyClassLoader(entitySources.getClassLoader());
+        }
+        final BootstrapServiceRegistry bootstrapRegistry = bootstrapBuilder
+            .build();
+        logBootTime(
+            mojo,
+            String.format(
+                "Started the Hibernate bootstrap registry in %d ms%s.",
+                TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - bootstrapStart
+                ),
+                mojo.isOfflineBoot() ? " using the offline boot profile" : ""
+            )
+        );
+        try {
+            // With partitioning each partition has its own sources, the
+            // metadata of the partitions is built one after another.
+            final List<EntityPartition> partitions = EntityPartitioner
+                .partition(entitySources, getPersistenceAnnotations(), mojo);
+            final List<MetadataSources> metadataSources = new ArrayList<>();
+            if (partitions.isEmpty()) {
+                metadataSources.add(
+                    createMetadataSources(
+                        bootstrapRegistry, entitySources, null, mojo
+                    )
+                );
+            } else {
+                for (final EntityPartition partition : partitions) {
+                    metadataSources.add(
+                        createMetadataSources(
+                            bootstrapRegistry, entitySources, partition, mojo
+                        )
+                    );
+                }
+            }
+            // The persistence.xml is read once, its properties are used for
+            // all dialects.
+            final Map<String, String> persistenceXmlProperties = mojo
+                .getPersistenceXmlProperties(
+                    entitySources.getPersistenceUnitName()
+                );
+            // The index of the annotated classes is created (or read) once
+            // and shared by the metadata of all dialects.
+            final IndexView index = JandexIndexes.create(entitySources, mojo);
+            // Each dialect gets its own registry, metadata and export
+            // target. The dialects may be processed in parallel, see
+            // GenerateDdlMojo#getGenerationThreads().
+            DialectTaskRunner.run(
+                dialectClassNames,
+                mojo.getGenerationThreads(),
+                dialectClassName -> generateDdl(
+                    dialectClassName,
+                    bootstrapRegistry,
+                    partitions,
+                    metadataSources,
+                    persistenceXmlProperties,
+                    index,
+                    entitySources,
+                    mojo
+                ),
+                mojo.getLog()
+            );
+        } finally {
+            // The bootstrap registry references the class loader of the
+            // project, it must be destroyed to release the classes.
+            ((ServiceRegistryImplementor) bootstrapRegistry).destroy();
+        }
+    }
+
     @Override
     public void generateDdl(
         final String dialectClassName,
-        final Set<Package> packages,
-        final Set<Class<?>> entityClasses,
+        final EntitySources entitySources,
         final GenerateDdlMojo mojo
     ) throws MojoFailureException {
+        generateDdl(
+            Collections.singletonList(dialectClassName), entitySources, mojo
+        );
+    }
+
+    @Override
+    public void generateDdl(
+        final Dialect dialect,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    )
+        throws MojoFailureException {
+
+        generateDdl(dialect.getDialectClassName(), entitySources, mojo);
+    }
+
+    /**
+     * Helper method for creating the {@link ClassLoaderService} used by the
+     * offline boot profile. Only the Envers integrator and the integrators
+     * configured using {@link GenerateDdlMojo#getOfflineBootIntegrators()}
+     * are used.
+     *
+     * @param entitySources The entity sources providing the class loader of
+     *                      the project.
+     * @param mojo          The {@link GenerateDdlMojo}.
+     *
+     * @return The class loader service.
+     */
+    private ClassLoaderService createOfflineClassLoaderService(
+        final EntitySources entitySources, final GenerateDdlMojo mojo
+    ) {
+        final Set<String> allowedIntegrators = new HashSet<>();
+        allowedIntegrators.add(ENVERS_INTEGRATOR);
+        allowedIntegrators.addAll(
+            Arrays.asList(mojo.getOfflineBootIntegrators())
+        );
+        return new IntegratorFilteringClassLoaderService(
+            new ClassLoaderServiceImpl(entitySources.getClassLoader()),
+            new IntegratorFilter(allowedIntegrators, mojo.getLog())
+        );
+    }
+
+    /**
+     * Helper method for applying the settings of the offline boot profile.
+     * Applied before the settings from the {@code persistence.xml} and the
+     * POM, which therefore override the profile.
+     *
+     * @param registryBuilder The builder of the registry for a dialect.
+     */
+    private void applyOfflineBootProfile(
         final StandardServiceRegistryBuilder registryBuilder
-            = new StandardServiceRegistryBuilder();
-        processPersistenceXml(registryBuilder, mojo);
+    ) {
+        // The JDBC environment is created from the dialect, without asking
+        // the database for its metadata.
+        registryBuilder.applySetting(
+            "hibernate.temp.use_jdbc_metadata_defaults", "false"
+        );
+        // No pool and no driver detection, the scripts don't need
+        // connections.
+        registryBuilder.applySetting(
+            "hibernate.connection.provider_class",
+            "org.hibernate.engine.jdbc.connections.internal"
+                + ".UserSuppliedConnectionProviderImpl"
+        );
+    }
+
+    private void logBootTime(final GenerateDdlMojo mojo, final String message) {
+        if (mojo.isLogHibernateServices()) {
+            mojo.getLog().info(message);
+        } else {
+            mojo.getLog().debug(message);
+        }
+    }
+
+    /**
+     * Helper method for collecting the sources of the metadata. The sources
+     * do not depend on the dialect, mapping files are parsed only once.
+     *
+     * @param bootstrapRegistry The bootstrap registry.
+     * @param entitySources     The entity sources.
+     * @param partition         The partition for which the sources are
+     *                          created or {@code null} for all entities.
+     *                          The converters and packages are added to the
+     *                          sources of every partition.
+     * @param mojo              The {@link GenerateDdlMojo} providing the
+     *                          Maven log.
+     *
+     * @return The {@link MetadataSources} for all dialects.
+     */
+    private MetadataSources createMetadataSources(
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final EntitySources entitySources,
+        final EntityPartition partition,
+        final GenerateDdlMojo mojo
+    ) {
+        final MetadataSources metadataSources = new MetadataSources(
+            bootstrapRegistry
+        );
+
+        if (entitySources.getPackageNames().isEmpty()) {
+            mojo.getLog().debug("No packages to process.");
+        }
+        for (final String packageName : entitySources.getPackageNames()) {
+            mojo.getLog().debug(
+                String.format("Will process package %s", packageName)
+            );
+            metadataSources.addPackage(packageName);
+        }
+        // Only the names of the classes are added, Hibernate loads the
+        // classes using the class loader service of the bootstrap registry
+        // while the metadata is built.
+        for (final String entityClassName : entitySources
+            .getEntityClassNames()) {
+            if (partition == null
+                    || partition.getClassNames().contains(entityClassName)) {
+                metadataSources.addAnnotatedClassName(entityClassName);
+            }
+        }
+        for (final String converterClassName : entitySources
+            .getConverterClassNames()) {
+            metadataSources.addAnnotatedClassName(converterClassName);
+        }
+        for (final String mappingFile : entitySources.getMappingFiles()) {
+            metadataSources.addResource(mappingFile);
+        }
+
+        return metadataSources;
+    }
+
+    /**
+     * Helper method for generating the DDL file for one dialect.
+     *
+     * @param dialectClassName  The class name of the dialect.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     * @param partitions        The partitions of the entities. Empty if the
+     *                          metadata for all entities is built at once.
+     * @param metadataSources   The shared metadata sources, one for each
+     *                          partition or only one without partitions.
+     * @param persistenceXmlProperties The properties from the
+     *                          {@code persistence.xml}.
+     * @param index             The Jandex index of the annotated classes or
+     *                          {@code null} if no index is used.
+     * @param entitySources     The entity sources.
+     * @param mojo              The {@link GenerateDdlMojo}.
+     *
+     * @throws MojoFailureException If the DDL file can't be generated.
+     */
+    private void generateDdl(
+        final String dialectClassName,
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final List<EntityPartition> partitions,
+        final List<MetadataSources> metadataSources,
+        final Map<String, String> persistenceXmlProperties,
+        final IndexView index,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        final StandardServiceRegistryBuilder registryBuilder
+            = new StandardServiceRegistryBuilder(bootstrapRegistry);
+        if (mojo.isOfflineBoot()) {
+            applyOfflineBootProfile(registryBuilder);
+        }
+        final ServiceTimings serviceTimings = new ServiceTimings();
+        serviceTimings.applyTo(registryBuilder);
+        registryBuilder.applySettings(persistenceXmlProperties);
 
         if (mojo.isCreateDropStatements()) {
             registryBuilder.applySetting(
@@ -114,209 +391,207 @@ public class DdlGeneratorHibernate56 implements DdlGenerator {
             registryBuilder.applySettings(properties);
         }
 
-        final StandardServiceRegistry standardRegistry = registryBuilder.build();
-
-        final MetadataSources metadataSources = new MetadataSources(
-            standardRegistry
-        );
-
-        if (packages.isEmpty()) {
-            System.err.println("No packages to process.");
-        }
-        for (final Package aPackage : packages) {
-            System.err.printf("will process package %s%n", aPackage.getName());
-            metadataSources.addPackage(aPackage);
-        }
-        for (final Class<?> entityClass : entityClasses) {
-            metadataSources.addAnnotatedClass(entityClass);
-        }
-
-        final SchemaExport export = new SchemaExport();
-        export.setDelimiter(";");
-
-        final Path tmpDir;
-        try {
-            tmpDir = Files.createTempDirectory("hibernate5-ddl-maven-plugin");
-        } catch (IOException ex) {
-            throw new MojoFailureException("Failed to create work dir.", ex);
+        final PartitionSchemaFilter schemaFilter;
+        if (partitions.isEmpty()) {
+            schemaFilter = null;
+        } else {
+            schemaFilter = new PartitionSchemaFilter();
+            registryBuilder.applySetting(
+                "hibernate.hbm2ddl.schema_filter_provider", schemaFilter
+            );
         }
 
-        final Metadata metadata = metadataSources.buildMetadata();
-
-        export.setManageNamespaces(true);
-        export.setOutputFile(
-            String.format(
-                "%s/%s.sql",
-                tmpDir.toString(),
-                mojo.getDialectNameFromClassName(dialectClassName)
-            )
-        );
-        export.setFormat(true);
-        if (mojo.isCreateDropStatements()) {
-            export.execute(
-                EnumSet.of(TargetType.SCRIPT),
-                SchemaExport.Action.BOTH,
-                metadata
+        // The registries reference the class loader of the project. They are
+        // destroyed after the DDL has been generated, otherwise they would
+        // keep the classes of the project in memory. The DDL is collected in
+        // memory and passed directly to the mojo, which compares it with the
+        // existing output file.
+        final String script;
+        if (partitions.isEmpty()) {
+            final StandardServiceRegistry standardRegistry = buildRegistry(
+                registryBuilder, bootstrapRegistry
             );
+            try {
+                final Metadata metadata = buildMetadata(
+                    metadataSources.get(0), standardRegistry, index
+                );
+                final InMemoryScriptTarget target = new InMemoryScriptTarget();
+                final SchemaExport.Action action;
+                if (mojo.isCreateDropStatements()) {
+                    action = SchemaExport.Action.BOTH;
+                } else {
+                    action = SchemaExport.Action.CREATE;
+                }
+                export(action, metadata, standardRegistry, target);
+                script = target.getScript();
+            } finally {
+                destroyRegistry(standardRegistry, bootstrapRegistry);
+            }
         } else {
-            export.execute(
-                EnumSet.of(TargetType.SCRIPT),
-                SchemaExport.Action.CREATE,
-                metadata
+            script = exportPartitions(
+                dialectClassName,
+                partitions,
+                metadataSources,
+                schemaFilter,
+                registryBuilder,
+                bootstrapRegistry,
+                index,
+                mojo
             );
         }
 
-        mojo.writeOutputFile(dialectClassName, tmpDir);
+        mojo.writeOutputFile(dialectClassName, script, entitySources);
 
-        try {
-            Files
-                .walk(tmpDir)
-                .sorted(Comparator.reverseOrder())
-                .map(Path::toFile)
-                .forEach(File::delete);
-        } catch (IOException ex) {
-            throw new MojoFailureException("Failed to clean up temporary files.",
-                                           ex);
+        if (mojo.isLogHibernateServices()
+                || mojo.getLog().isDebugEnabled()) {
+            serviceTimings.report(
+                mojo.getLog(),
+                mojo.isLogHibernateServices(),
+                dialectClassName
+            );
         }
     }
 
-    @Override
-    public void generateDdl(
-        final Dialect dialect,
-        final Set<Package> packages,
-        final Set<Class<?>> entityClasses,
-        final GenerateDdlMojo mojo
-    )
-        throws MojoFailureException {
+    /**
+     * Helper method for building a registry for a dialect. Building and
+     * destroying a registry registers and deregisters it as child of the
+     * shared bootstrap registry, which is not guaranteed to be thread safe.
+     *
+     * @param registryBuilder   The builder of the registry for the dialect.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     *
+     * @return The registry.
+     */
+    private StandardServiceRegistry buildRegistry(
+        final StandardServiceRegistryBuilder registryBuilder,
+        final BootstrapServiceRegistry bootstrapRegistry
+    ) {
+        synchronized (bootstrapRegistry) {
+            return registryBuilder.build();
+        }
+    }
 
-        generateDdl(
-            dialect.getDialectClassName(), packages, entityClasses, mojo
-        );
+    private void destroyRegistry(
+        final StandardServiceRegistry standardRegistry,
+        final BootstrapServiceRegistry bootstrapRegistry
+    ) {
+        synchronized (bootstrapRegistry) {
+            StandardServiceRegistryBuilder.destroy(standardRegistry);
+        }
     }
 
     /**
-     * Helper method for processing the {@code persistence.xml} file.
+     * Helper method for exporting the metadata of the partitions one after
+     * another. Only the metadata of one partition is in memory at a time.
+     * Each partition gets its own registry: Integrators like the one of
+     * Envers may only be initialized once per registry, therefore the
+     * registry can't be shared by the metadata of several partitions.
+     *
+     * @param dialectClassName The class name of the dialect.
+     * @param partitions       The partitions.
+     * @param metadataSources  The metadata sources of the partitions.
+     * @param schemaFilter     The schema filter of the registries.
+     * @param registryBuilder  The builder of the registries for the
+     *                         dialect.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     * @param index            The Jandex index or {@code null}.
+     * @param mojo             The {@link GenerateDdlMojo}.
      *
-     * @param registryBuilder {@link StandardServiceRegistryBuilder} from
-     *                        Hibernate.
-     * @param mojo            Provides access to the Maven {@link Log} and the
-     *                        properties provided to the Mojo.
+     * @return The combined script of all partitions.
      */
-    private void processPersistenceXml(
+    private String exportPartitions(
+        final String dialectClassName,
+        final List<EntityPartition> partitions,
+        final List<MetadataSources> metadataSources,
+        final PartitionSchemaFilter schemaFilter,
         final StandardServiceRegistryBuilder registryBuilder,
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final IndexView index,
         final GenerateDdlMojo mojo
     ) {
-        final Log log = mojo.getLog();
-        final File persistenceXml = mojo.getPersistenceXml();
-
-        if (persistenceXml != null) {
-            if (Files.exists(persistenceXml.toPath())) {
-                try (InputStream inputStream = new FileInputStream(
-                    mojo.getPersistenceXml()
-                )) {
-                    log.info(
-                        "persistence.xml found, looking for properties..."
-                    );
-
-                    final SAXParser parser = SAXParserFactory
-                        .newInstance()
-                        .newSAXParser();
-
-                    parser.parse(
-                        inputStream,
-                        new PersistenceXmlHandler(
-                            registryBuilder,
-                            mojo.getLog(),
-                            new HashSet<>(
-                                Arrays.asList(
-                                    mojo.getPersistencePropertiesToUse()
-                                )
-                            )
-                        )
-                    );
-
-                } catch (IOException ex) {
-                    log.error(
-                        "Failed to open persistence.xml. "
-                            + "Not processing properties.",
-                        ex
-                    );
-                } catch (ParserConfigurationException | SAXException ex) {
-                    log.error(
-                        "Error parsing persistence.xml. "
-                            + "Not processing properties",
-                        ex
+        final PartitionedScript script = new PartitionedScript();
+        for (int i = 0; i < partitions.size(); i++) {
+            final EntityPartition partition = partitions.get(i);
+            final long start = System.nanoTime();
+            final StandardServiceRegistry standardRegistry = buildRegistry(
+                registryBuilder, bootstrapRegistry
+            );
+            try {
+                final Metadata metadata = buildMetadata(
+                    metadataSources.get(i), standardRegistry, index
+                );
+                schemaFilter.exclude(metadata, partition);
+                if (mojo.isCreateDropStatements()) {
+                    final InMemoryScriptTarget dropTarget
+                        = new InMemoryScriptTarget();
+                    export(
+                        SchemaExport.Action.DROP,
+                        metadata,
+                        standardRegistry,
+                        dropTarget
                     );
+                    script.addDropCommands(dropTarget.getCommands());
                 }
-            } else {
-                log.warn(
-                    String.format(
-                        "persistence.xml file '%s' does not exist. Ignoring.",
-                        persistenceXml.getPath()
-                    )
+                final InMemoryScriptTarget createTarget
+                    = new InMemoryScriptTarget();
+                export(
+                    SchemaExport.Action.CREATE,
+                    metadata,
+                    standardRegistry,
+                    createTarget
                 );
+                script.addCreateCommands(createTarget.getCommands());
+            } finally {
+                destroyRegistry(standardRegistry, bootstrapRegistry);
             }
+            mojo.getLog().debug(
+                String.format(
+                    "Exported partition %s for %s in %d ms.",
+                    partition,
+                    dialectClassName,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                )
+            );
         }
+        return script.getScript();
     }
 
     /**
-     * A SAX Handler for processing the {@code persistence.xml} file. Used by
-     * {@link #processPersistenceXml(org.hibernate.boot.registry.StandardServiceRegistryBuilder, de.jpdigital.maven.plugins.hibernate5ddl.GenerateDdlMojo) }.
+     * Helper method for building the metadata for a dialect. Hibernate 5
+     * binds the dialect into the metadata (the JdbcEnvironment of the
+     * registry is used while binding), therefore the metadata is built for
+     * each dialect. The sources are shared.
+     *
+     * @param metadataSources  The metadata sources.
+     * @param standardRegistry The registry for the dialect.
+     * @param index            The Jandex index or {@code null}.
+     *
+     * @return The metadata.
      */
-    private static class PersistenceXmlHandler extends DefaultHandler {
-
-        private final transient StandardServiceRegistryBuilder registryBuilder;
-
-        private final transient Set<String> propertiesToUse;
-
-        private final transient Log log;
-
-        public PersistenceXmlHandler(
-            final StandardServiceRegistryBuilder registryBuilder,
-            final Log log,
-            final Set<String> propertiesToUse
-        ) {
-            this.registryBuilder = registryBuilder;
-            this.log = log;
-            this.propertiesToUse = propertiesToUse;
-        }
-
-        @Override
-        public void startElement(
-            final String uri,
-            final String localName,
-            final String qName,
-            final Attributes attributes
-        ) {
-            log.info(
-                String.format(
-                    "Found element with uri = '%s', localName = '%s', qName = '%s'...",
-                    uri,
-                    localName,
-                    qName
-                )
-            );
-
-            if ("property".equals(qName)
-                    && propertiesToUse.contains(attributes.getValue("name"))) {
-
-                final String propertyName = attributes.getValue("name");
-                final String propertyValue = attributes.getValue("value");
-
-                if (propertyName != null && !propertyName.isEmpty()
-                        && propertyValue != null && !propertyValue.isEmpty()) {
-                    log.info(
-                        String.format(
-                            "Found property %s = %s in persistence.xml",
-                            propertyName,
-                            propertyValue
-                        )
-                    );
-                    registryBuilder.applySetting(propertyName, propertyValue);
-                }
-            }
+    private Metadata buildMetadata(
+        final MetadataSources metadataSources,
+        final StandardServiceRegistry standardRegistry,
+        final IndexView index
+    ) {
+        final MetadataBuilder metadataBuilder = metadataSources
+            .getMetadataBuilder(standardRegistry);
+        if (index != null) {
+            metadataBuilder.applyIndexView(index);
         }
+        return metadataBuilder.build();
+    }
 
+    private void export(
+        final SchemaExport.Action action,
+        final Metadata metadata,
+        final StandardServiceRegistry standardRegistry,
+        final InMemoryScriptTarget target
+    ) {
+        final SchemaExport export = new SchemaExport();
+        export.setDelimiter(";");
+        export.setManageNamespaces(true);
+        export.setFormat(true);
+        export.doExecution(action, false, metadata, standardRegistry, target);
     }
 
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.hibernate.tool.schema.TargetType;
+import org.hibernate.tool.schema.spi.ScriptTargetOutput;
+import org.hibernate.tool.schema.spi.TargetDescriptor;
+
+import java.util.EnumSet;
+
+/**
+ * A script target for the {@code SchemaExport} which collects the generated
+ * DDL in memory instead of writing it to a file, see {@link ScriptCollector}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class InMemoryScriptTarget
+    extends ScriptCollector
+    implements TargetDescriptor, ScriptTargetOutput {
+
+    @Override
+    public EnumSet<TargetType> getTargetTypes() {
+        return EnumSet.of(TargetType.SCRIPT);
+    }
+
+    @Override
+    public ScriptTargetOutput getScriptTargetOutput() {
+        return this;
+    }
+
+    @Override
+    public void prepare() {
+        // Nothing to prepare
+    }
+
+    @Override
+    public void release() {
+        // Nothing to release
+    }
+
+}
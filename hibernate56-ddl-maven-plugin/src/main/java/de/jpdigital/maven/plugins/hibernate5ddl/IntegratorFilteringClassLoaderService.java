@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.integrator.spi.Integrator;
+
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link ClassLoaderService} which applies an {@link IntegratorFilter} to
+ * the {@link Integrator}s found on the classpath, used by the offline boot
+ * profile. All other methods are delegated.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class IntegratorFilteringClassLoaderService implements ClassLoaderService {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ClassLoaderService delegate;
+
+    private final transient IntegratorFilter filter;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate The class loader service to delegate to.
+     * @param filter   The filter for the integrators.
+     */
+    IntegratorFilteringClassLoaderService(
+        final ClassLoaderService delegate, final IntegratorFilter filter
+    ) {
+        this.delegate = delegate;
+        this.filter = filter;
+    }
+
+    @Override
+    public <S> Collection<S> loadJavaServices(final Class<S> serviceContract) {
+        final Collection<S> services = delegate.loadJavaServices(
+            serviceContract
+        );
+        if (Integrator.class.equals(serviceContract)) {
+            return filter.filter(services);
+        }
+        return services;
+    }
+
+    @Override
+    public <T> Class<T> classForName(final String className) {
+        return delegate.classForName(className);
+    }
+
+    @Override
+    public URL locateResource(final String name) {
+        return delegate.locateResource(name);
+    }
+
+    @Override
+    public InputStream locateResourceStream(final String name) {
+        return delegate.locateResourceStream(name);
+    }
+
+    @Override
+    public List<URL> locateResources(final String name) {
+        return delegate.locateResources(name);
+    }
+
+    @Override
+    public <T> T generateProxy(
+        final InvocationHandler handler, final Class... interfaces
+    ) {
+        return delegate.generateProxy(handler, interfaces);
+    }
+
+    @Override
+    public Package packageForNameOrNull(final String packageName) {
+        return delegate.packageForNameOrNull(packageName);
+    }
+
+    @Override
+    public <T> T workWithClassLoader(final Work<T> work) {
+        return delegate.workWithClassLoader(work);
+    }
+
+    @Override
+    public void stop() {
+        delegate.stop();
+    }
+
+}
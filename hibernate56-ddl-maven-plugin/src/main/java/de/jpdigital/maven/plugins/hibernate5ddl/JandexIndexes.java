@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexView;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.jandex.Indexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the Jandex index passed to the {@link org.hibernate.boot.MetadataBuilder}.
+ * The index contains the classes found by the {@link EntityFinder} (entities,
+ * embeddables, mapped superclasses and converters), their superclasses and the
+ * {@code package-info} classes of the annotated packages. The class files
+ * are read from the class loader of the project, the classes are not loaded.
+ *
+ * The index is stored in the directory returned by
+ * {@link GenerateDdlMojo#getJandexIndexDirectory()}, keyed by the fingerprint
+ * of the classpath (see {@link ScanCache}) and the indexed class names. If
+ * neither the classpath nor the entities have changed the stored index is
+ * used.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+final class JandexIndexes {
+
+    /**
+     * Part of the key of the stored indexes. Must be changed if the content
+     * of the index changes, for example if more classes are indexed.
+     */
+    private static final String INDEX_FORMAT = "jandex-2-entities-1";
+
+    private static final String PACKAGE_INFO = ".package-info";
+
+    private JandexIndexes() {
+        // Only static methods
+    }
+
+    /**
+     * Creates or reads the index for the provided entity sources.
+     *
+     * @param entitySources The entity sources.
+     * @param mojo          The {@link GenerateDdlMojo}.
+     *
+     * @return The index or {@code null} if the Jandex index is disabled.
+     */
+    public static IndexView create(
+        final EntitySources entitySources, final GenerateDdlMojo mojo
+    ) {
+        if (!mojo.isUseJandexIndex()) {
+            return null;
+        }
+        final Log log = mojo.getLog();
+        final long start = System.nanoTime();
+
+        final Set<String> classNames = new TreeSet<>();
+        classNames.addAll(entitySources.getEntityClassNames());
+        classNames.addAll(entitySources.getConverterClassNames());
+        for (final String packageName : entitySources.getPackageNames()) {
+            classNames.add(packageName + PACKAGE_INFO);
+        }
+
+        final File indexFile = getIndexFile(
+            entitySources, classNames, mojo.getJandexIndexDirectory(), log
+        );
+        if (indexFile != null && indexFile.isFile()) {
+            try (InputStream inputStream = Files.newInputStream(
+                indexFile.toPath()
+            )) {
+                final Index index = new IndexReader(inputStream).read();
+                log.debug(
+                    String.format(
+                        "Read Jandex index %s in %d ms.",
+                        indexFile.getPath(),
+                        elapsedMillis(start)
+                    )
+                );
+                return index;
+            } catch (IOException | RuntimeException ex) {
+                log.warn(
+                    String.format(
+                        "Failed to read Jandex index %s, creating a new "
+                            + "index: %s",
+                        indexFile.getPath(),
+                        ex.getMessage()
+                    )
+                );
+            }
+        }
+
+        final Index index = createIndex(
+            classNames, entitySources.getClassLoader(), log
+        );
+        if (indexFile != null) {
+            write(index, indexFile, log);
+        }
+        log.info(
+            String.format(
+                "Created Jandex index with %d classes in %d ms.",
+                index.getKnownClasses().size(),
+                elapsedMillis(start)
+            )
+        );
+        return index;
+    }
+
+    private static File getIndexFile(
+        final EntitySources entitySources,
+        final Set<String> classNames,
+        final File directory,
+        final Log log
+    ) {
+        if (directory == null) {
+            return null;
+        }
+        final String fingerprint = ScanCache.fingerprint(
+            log,
+            DaemonClient.getClassPath(
+                entitySources.getClassLoader(),
+                EntityFinder.class.getClassLoader()
+            ),
+            INDEX_FORMAT,
+            String.join(",", classNames)
+        );
+        if (fingerprint == null) {
+            return null;
+        }
+        return new File(directory, fingerprint + ".idx");
+    }
+
+    /**
+     * Indexes the provided classes and their superclasses. Classes whose
+     * class file can't be found are skipped, Hibernate falls back to
+     * reflection for them.
+     */
+    private static Index createIndex(
+        final Set<String> classNames,
+        final ClassLoader classLoader,
+        final Log log
+    ) {
+        final Indexer indexer = new Indexer();
+        final Set<String> visited = new HashSet<>();
+        final Deque<String> queue = new ArrayDeque<>(classNames);
+        while (!queue.isEmpty()) {
+            final String className = queue.poll();
+            if (!visited.add(className) || isJdkClass(className)) {
+                continue;
+            }
+            final String resource = className.replace('.', '/') + ".class";
+            try (InputStream inputStream = classLoader.getResourceAsStream(
+                resource
+            )) {
+                if (inputStream == null) {
+                    if (!className.endsWith(PACKAGE_INFO)) {
+                        log.debug(
+                            String.format(
+                                "Class file %s not found, not adding it to "
+                                    + "the Jandex index.",
+                                resource
+                            )
+                        );
+                    }
+                    continue;
+                }
+                final ClassInfo classInfo = indexer.index(inputStream);
+                if (classInfo.superName() != null) {
+                    queue.add(classInfo.superName().toString());
+                }
+            } catch (IOException | RuntimeException ex) {
+                log.warn(
+                    String.format(
+                        "Failed to add class %s to the Jandex index: %s",
+                        className,
+                        ex.getMessage()
+                    )
+                );
+            }
+        }
+        return indexer.complete();
+    }
+
+    /**
+     * Writes the index to a temporary file first, so that concurrent builds
+     * never read a partially written index.
+     */
+    private static void write(
+        final Index index, final File indexFile, final Log log
+    ) {
+        try {
+            final Path directory = indexFile.getParentFile().toPath();
+            Files.createDirectories(directory);
+            final Path tempFile = Files.createTempFile(
+                directory, indexFile.getName(), ".tmp"
+            );
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(
+                    tempFile
+                )) {
+                    new IndexWriter(outputStream).write(index);
+                }
+                Files.move(
+                    tempFile,
+                    indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE
+                );
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            log.warn(
+                String.format(
+                    "Failed to write Jandex index %s: %s",
+                    indexFile.getPath(),
+                    ex.getMessage()
+                )
+            );
+        }
+    }
+
+    private static boolean isJdkClass(final String className) {
+        return className.startsWith("java.")
+                   || className.startsWith("javax.")
+                   || className.startsWith("jdk.")
+                   || className.startsWith("sun.");
+    }
+
+    private static long elapsedMillis(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.model.relational.Namespace;
+import org.hibernate.boot.model.relational.Sequence;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.Join;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Table;
+import org.hibernate.tool.schema.spi.SchemaFilter;
+import org.hibernate.tool.schema.spi.SchemaFilterProvider;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Schema filter used while exporting the metadata of an
+ * {@link EntityPartition}. Excludes the tables determined by
+ * {@link PartitionTables}.
+ *
+ * One instance is used for all partitions exported with the registry of a
+ * dialect. The partitions of a dialect are exported one after another,
+ * {@link #exclude(Metadata, EntityPartition)} is invoked before each export.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class PartitionSchemaFilter implements SchemaFilterProvider, SchemaFilter {
+
+    private Set<Table> excludedTables = Collections.emptySet();
+
+    /**
+     * Determines the tables to exclude for the next export.
+     *
+     * @param metadata  The metadata of the partition.
+     * @param partition The partition.
+     */
+    public void exclude(
+        final Metadata metadata, final EntityPartition partition
+    ) {
+        final PartitionTables<Table> tables = new PartitionTables<>(
+            partition
+        );
+        for (final PersistentClass entity : metadata.getEntityBindings()) {
+            addTables(entity, tables);
+        }
+        for (final Collection collection : metadata.getCollectionBindings()) {
+            if (collection.getCollectionTable() != null) {
+                tables.addTable(
+                    collection.getOwner().getClassName(),
+                    collection.getCollectionTable()
+                );
+            }
+        }
+        excludedTables = tables.getExcludedTables();
+    }
+
+    private static void addTables(
+        final PersistentClass entity, final PartitionTables<Table> tables
+    ) {
+        tables.addTable(entity.getClassName(), entity.getTable());
+        final Iterator<?> joins = entity.getJoinIterator();
+        while (joins.hasNext()) {
+            tables.addTable(
+                entity.getClassName(), ((Join) joins.next()).getTable()
+            );
+        }
+    }
+
+    @Override
+    public SchemaFilter getCreateFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getDropFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getMigrateFilter() {
+        return this;
+    }
+
+    @Override
+    public SchemaFilter getValidateFilter() {
+        return this;
+    }
+
+    @Override
+    public boolean includeNamespace(final Namespace namespace) {
+        return true;
+    }
+
+    @Override
+    public boolean includeTable(final Table table) {
+        return !excludedTables.contains(table);
+    }
+
+    @Override
+    public boolean includeSequence(final Sequence sequence) {
+        return true;
+    }
+
+}
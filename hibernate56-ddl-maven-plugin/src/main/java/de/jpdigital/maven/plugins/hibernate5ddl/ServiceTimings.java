@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.hibernate.boot.registry.StandardServiceInitiator;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.service.Service;
+import org.hibernate.service.StandardServiceInitiators;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records which services of a {@code StandardServiceRegistry} are started
+ * and how long their initiators took. The standard initiators are replaced
+ * by wrappers measuring the time. Services are started lazily, therefore only
+ * the services actually used for generating the DDL appear in the report
+ * (see {@link ServiceTimingReport}). The time of a service includes the time
+ * for starting the services it depends on.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+class ServiceTimings extends ServiceTimingReport {
+
+    /**
+     * Replaces the standard initiators of the provided builder by wrappers
+     * measuring the time. The builder uses the last initiator added for a
+     * service.
+     *
+     * @param registryBuilder The builder.
+     */
+    @SuppressWarnings("unchecked")
+    public void applyTo(final StandardServiceRegistryBuilder registryBuilder) {
+        final List<StandardServiceInitiator<?>> initiators
+            = (List<StandardServiceInitiator<?>>) (List<?>)
+                  StandardServiceInitiators.LIST;
+        for (final StandardServiceInitiator<?> initiator : initiators) {
+            registryBuilder.addInitiator(new TimedInitiator<>(initiator));
+        }
+    }
+
+    /**
+     * Wraps a {@link StandardServiceInitiator} and records the time it took
+     * to initiate the service.
+     *
+     * @param <R> The type of the service.
+     */
+    private class TimedInitiator<R extends Service>
+        implements StandardServiceInitiator<R> {
+
+        private final StandardServiceInitiator<R> delegate;
+
+        TimedInitiator(final StandardServiceInitiator<R> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Class<R> getServiceInitiated() {
+            return delegate.getServiceInitiated();
+        }
+
+        @Override
+        public R initiateService(
+            final Map configurationValues,
+            final ServiceRegistryImplementor registry
+        ) {
+            final long start = System.nanoTime();
+            try {
+                return delegate.initiateService(configurationValues, registry);
+            } finally {
+                record(getServiceInitiated(), System.nanoTime() - start);
+            }
+        }
+
+    }
+
+}
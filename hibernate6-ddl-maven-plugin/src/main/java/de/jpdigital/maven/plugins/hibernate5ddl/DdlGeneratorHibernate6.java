@@ -0,0 +1,758 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.BootstrapServiceRegistry;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.boot.registry.classloading.internal.ClassLoaderServiceImpl;
+import org.hibernate.boot.registry.classloading.spi.ClassLoaderService;
+import org.hibernate.boot.registry.classloading.spi.ClassLoadingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.tool.schema.SourceType;
+import org.hibernate.tool.schema.internal.ExceptionHandlerHaltImpl;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.ExecutionOptions;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.hibernate.tool.schema.spi.ScriptSourceInput;
+import org.hibernate.tool.schema.spi.SourceDescriptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the {@link DdlGenerator} interface for Hibernate
+ * {@literal 6}. The DDL is created using the {@link SchemaManagementTool} of
+ * Hibernate 6 directly.
+ *
+ * Hibernate 6 has dropped most of the dialects for specific database versions
+ * listed in {@link Dialect}. If a configured dialect class does not exist,
+ * the dialect for the database is used instead, see
+ * {@link #resolveDialect(String, ClassLoaderService, Log)}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class DdlGeneratorHibernate6 implements DdlGenerator {
+
+    private static final String ENVERS_INTEGRATOR
+        = "org.hibernate.envers.boot.internal.EnversIntegrator";
+
+    private static final String DIALECT_PACKAGE = "org.hibernate.dialect.";
+
+    private static final String DIALECT_SUFFIX = "Dialect";
+
+    /**
+     * Hibernate 6 uses the {@code jakarta.persistence} API. The package level
+     * annotations are the ones supported by Hibernate 6, which has replaced
+     * {@code @TypeDef} by the type registrations.
+     */
+    private static final PersistenceAnnotations PERSISTENCE_ANNOTATIONS
+        = new PersistenceAnnotations(
+            PersistenceAnnotations.JAKARTA_PERSISTENCE,
+            Arrays.asList(
+                "org.hibernate.annotations.CollectionTypeRegistration",
+                "org.hibernate.annotations.CollectionTypeRegistrations",
+                "org.hibernate.annotations.CompositeTypeRegistration",
+                "org.hibernate.annotations.CompositeTypeRegistrations",
+                "org.hibernate.annotations.ConverterRegistration",
+                "org.hibernate.annotations.ConverterRegistrations",
+                "org.hibernate.annotations.EmbeddableInstantiatorRegistration",
+                "org.hibernate.annotations"
+                    + ".EmbeddableInstantiatorRegistrations",
+                "org.hibernate.annotations.FetchProfile",
+                "org.hibernate.annotations.FetchProfile.FetchOverride",
+                "org.hibernate.annotations.FetchProfiles",
+                "org.hibernate.annotations.FilterDef",
+                "org.hibernate.annotations.FilterDefs",
+                "org.hibernate.annotations.GenericGenerator",
+                "org.hibernate.annotations.GenericGenerators",
+                "org.hibernate.annotations.JavaTypeRegistration",
+                "org.hibernate.annotations.JavaTypeRegistrations",
+                "org.hibernate.annotations.JdbcTypeRegistration",
+                "org.hibernate.annotations.JdbcTypeRegistrations",
+                "org.hibernate.annotations.NamedNativeQueries",
+                "org.hibernate.annotations.NamedNativeQuery",
+                "org.hibernate.annotations.NamedQueries",
+                "org.hibernate.annotations.NamedQuery",
+                "org.hibernate.annotations.TypeRegistration",
+                "org.hibernate.annotations.TypeRegistrations"
+            )
+        );
+
+    /**
+     * The source of the DDL: Always the metadata, scripts are not used.
+     */
+    private static final SourceDescriptor METADATA_SOURCE
+        = new SourceDescriptor() {
+
+        @Override
+        public SourceType getSourceType() {
+            return SourceType.METADATA;
+        }
+
+        @Override
+        public ScriptSourceInput getScriptSourceInput() {
+            return null;
+        }
+
+    };
+
+    @Override
+    public PersistenceAnnotations getPersistenceAnnotations() {
+        return PERSISTENCE_ANNOTATIONS;
+    }
+
+    @Override
+    public void generateDdl(
+        final List<String> dialectClassNames,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        // Hibernate has to use the class loader of the project for loading
+        // the package-info classes and other classes referenced by the
+        // entities. The bootstrap registry (class loading, integrators,
+        // strategy selector) does not depend on the dialect and is shared by
+        // the registries for all dialects. Auto close is disabled, otherwise
+        // the bootstrap registry would be destroyed together with the
+        // registry of the first dialect.
+        final long bootstrapStart = System.nanoTime();
+        final BootstrapServiceRegistryBuilder bootstrapBuilder
+            = new BootstrapServiceRegistryBuilder().disableAutoClose();
+        if (mojo.isOfflineBoot()) {
+            bootstrapBuilder.applyClassLoaderService(
+                createOfflineClassLoaderService(entitySources, mojo)
+            );
+        } else {
+            bootstrapBuilder.applyClassLoader(entitySources.getClassLoader());
+        }
+        final BootstrapServiceRegistry bootstrapRegistry = bootstrapBuilder
+            .build();
+        logBootTime(
+            mojo,
+            String.format(
+                "Started the Hibernate bootstrap registry in %d ms%s.",
+                TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - bootstrapStart
+                ),
+                mojo.isOfflineBoot() ? " using the offline boot profile" : ""
+            )
+        );
+        if (mojo.isUseJandexIndex()) {
+            // Hibernate 6 reads the annotations using its own reflection
+            // based model, an index can't be passed to the MetadataBuilder
+            // anymore.
+            mojo.getLog().debug(
+                "Hibernate 6 does not use a Jandex index, ignoring "
+                    + "useJandexIndex."
+            );
+        }
+        try {
+            // With partitioning each partition has its own sources, the
+            // metadata of the partitions is built one after another.
+            final List<EntityPartition> partitions = EntityPartitioner
+                .partition(entitySources, getPersistenceAnnotations(), mojo);
+            final List<MetadataSources> metadataSources = new ArrayList<>();
+            if (partitions.isEmpty()) {
+                metadataSources.add(
+                    createMetadataSources(
+                        bootstrapRegistry, entitySources, null, mojo
+                    )
+                );
+            } else {
+                for (final EntityPartition partition : partitions) {
+                    metadataSources.add(
+                        createMetadataSources(
+                            bootstrapRegistry, entitySources, partition, mojo
+                        )
+                    );
+                }
+            }
+            // The persistence.xml is read once, its properties are used for
+            // all dialects.
+            final Map<String, String> persistenceXmlProperties = mojo
+                .getPersistenceXmlProperties(
+                    entitySources.getPersistenceUnitName()
+                );
+            final ClassLoaderService classLoaderService = bootstrapRegistry
+                .getService(ClassLoaderService.class);
+            // Each dialect gets its own registry, metadata and export
+            // target. The dialects may be processed in parallel, see
+            // GenerateDdlMojo#getGenerationThreads().
+            DialectTaskRunner.run(
+                dialectClassNames,
+                mojo.getGenerationThreads(),
+                dialectClassName -> generateDdl(
+                    dialectClassName,
+                    resolveDialect(
+                        dialectClassName, classLoaderService, mojo.getLog()
+                    ),
+                    bootstrapRegistry,
+                    partitions,
+                    metadataSources,
+                    persistenceXmlProperties,
+                    entitySources,
+                    mojo
+                ),
+                mojo.getLog()
+            );
+        } finally {
+            // The bootstrap registry references the class loader of the
+            // project, it must be destroyed to release the classes.
+            ((ServiceRegistryImplementor) bootstrapRegistry).destroy();
+        }
+    }
+
+    @Override
+    public void generateDdl(
+        final String dialectClassName,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        generateDdl(
+            Collections.singletonList(dialectClassName), entitySources, mojo
+        );
+    }
+
+    @Override
+    public void generateDdl(
+        final Dialect dialect,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    )
+        throws MojoFailureException {
+
+        generateDdl(dialect.getDialectClassName(), entitySources, mojo);
+    }
+
+    /**
+     * Helper method for finding the dialect class used by Hibernate 6 for a
+     * configured dialect. If the configured class exists it is used.
+     * Otherwise the characters at the end of the name of the class are removed
+     * one by one until a dialect in the package {@code org.hibernate.dialect}
+     * is found, for example {@code MySQL5InnoDBDialect} becomes
+     * {@code MySQLDialect} and {@code DB2390Dialect} becomes
+     * {@code DB2Dialect}. The dialects of Hibernate 6 determine the version of
+     * the database from the settings and support all versions of a database.
+     *
+     * @param dialectClassName   The configured dialect class.
+     * @param classLoaderService The class loader service of the bootstrap
+     *                           registry.
+     * @param log                The Maven log.
+     *
+     * @return The dialect class to use.
+     *
+     * @throws MojoFailureException If no dialect for the configured class
+     *                              exists.
+     */
+    private String resolveDialect(
+        final String dialectClassName,
+        final ClassLoaderService classLoaderService,
+        final Log log
+    ) throws MojoFailureException {
+        if (isAvailable(dialectClassName, classLoaderService)) {
+            return dialectClassName;
+        }
+
+        String name = dialectClassName.substring(
+            dialectClassName.lastIndexOf('.') + 1
+        );
+        if (name.endsWith(DIALECT_SUFFIX)) {
+            name = name.substring(0, name.length() - DIALECT_SUFFIX.length());
+        }
+        while (!name.isEmpty()) {
+            final String candidate = String.format(
+                "%s%s%s", DIALECT_PACKAGE, name, DIALECT_SUFFIX
+            );
+            if (isAvailable(candidate, classLoaderService)) {
+                log.warn(
+                    String.format(
+                        "Dialect %s does not exist in Hibernate 6, using %s. "
+                            + "The DDL file is still named after %s.",
+                        dialectClassName,
+                        candidate,
+                        dialectClassName
+                    )
+                );
+                return candidate;
+            }
+            name = name.substring(0, name.length() - 1);
+        }
+
+        throw new MojoFailureException(
+            String.format(
+                "Dialect %s does not exist in Hibernate 6 and no replacement "
+                    + "was found. Use a dialect of Hibernate 6 as custom "
+                    + "dialect instead.",
+                dialectClassName
+            )
+        );
+    }
+
+    private static boolean isAvailable(
+        final String className, final ClassLoaderService classLoaderService
+    ) {
+        try {
+            classLoaderService.classForName(className);
+            return true;
+        } catch (ClassLoadingException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper method for creating the {@link ClassLoaderService} used by the
+     * offline boot profile. Only the Envers integrator and the integrators
+     * configured using {@link GenerateDdlMojo#getOfflineBootIntegrators()}
+     * are used.
+     *
+     * @param entitySources The entity sources providing the class loader of
+     *                      the project.
+     * @param mojo          The {@link GenerateDdlMojo}.
+     *
+     * @return The class loader service.
+     */
+    private ClassLoaderService createOfflineClassLoaderService(
+        final EntitySources entitySources, final GenerateDdlMojo mojo
+    ) {
+        final Set<String> allowedIntegrators = new HashSet<>();
+        allowedIntegrators.add(ENVERS_INTEGRATOR);
+        allowedIntegrators.addAll(
+            Arrays.asList(mojo.getOfflineBootIntegrators())
+        );
+        return new IntegratorFilteringClassLoaderService(
+            new ClassLoaderServiceImpl(entitySources.getClassLoader()),
+            new IntegratorFilter(allowedIntegrators, mojo.getLog())
+        );
+    }
+
+    /**
+     * Helper method for applying the settings of the offline boot profile.
+     * Applied before the settings from the {@code persistence.xml} and the
+     * POM, which therefore override the profile.
+     *
+     * @param registryBuilder The builder of the registry for a dialect.
+     */
+    private void applyOfflineBootProfile(
+        final StandardServiceRegistryBuilder registryBuilder
+    ) {
+        // The JDBC environment is created from the dialect, without asking
+        // the database for its metadata. Hibernate 6.4 still uses the old
+        // setting, newer versions the new one.
+        registryBuilder.applySetting(
+            "hibernate.temp.use_jdbc_metadata_defaults", "false"
+        );
+        registryBuilder.applySetting(
+            "hibernate.boot.allow_jdbc_metadata_access", "false"
+        );
+        // No pool and no driver detection, the scripts don't need
+        // connections.
+        registryBuilder.applySetting(
+            "hibernate.connection.provider_class",
+            "org.hibernate.engine.jdbc.connections.internal"
+                + ".UserSuppliedConnectionProviderImpl"
+        );
+    }
+
+    private void logBootTime(final GenerateDdlMojo mojo, final String message) {
+        if (mojo.isLogHibernateServices()) {
+            mojo.getLog().info(message);
+        } else {
+            mojo.getLog().debug(message);
+        }
+    }
+
+    /**
+     * Helper method for collecting the sources of the metadata. The sources
+     * do not depend on the dialect, mapping files are parsed only once.
+     *
+     * @param bootstrapRegistry The bootstrap registry.
+     * @param entitySources     The entity sources.
+     * @param partition         The partition for which the sources are
+     *                          created or {@code null} for all entities.
+     *                          The converters and packages are added to the
+     *                          sources of every partition.
+     * @param mojo              The {@link GenerateDdlMojo} providing the
+     *                          Maven log.
+     *
+     * @return The {@link MetadataSources} for all dialects.
+     */
+    private MetadataSources createMetadataSources(
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final EntitySources entitySources,
+        final EntityPartition partition,
+        final GenerateDdlMojo mojo
+    ) {
+        final MetadataSources metadataSources = new MetadataSources(
+            bootstrapRegistry
+        );
+
+        if (entitySources.getPackageNames().isEmpty()) {
+            mojo.getLog().debug("No packages to process.");
+        }
+        for (final String packageName : entitySources.getPackageNames()) {
+            mojo.getLog().debug(
+                String.format("Will process package %s", packageName)
+            );
+            metadataSources.addPackage(packageName);
+        }
+        // Only the names of the classes are added, Hibernate loads the
+        // classes using the class loader service of the bootstrap registry
+        // while the metadata is built.
+        for (final String entityClassName : entitySources
+            .getEntityClassNames()) {
+            if (partition == null
+                    || partition.getClassNames().contains(entityClassName)) {
+                metadataSources.addAnnotatedClassName(entityClassName);
+            }
+        }
+        for (final String converterClassName : entitySources
+            .getConverterClassNames()) {
+            metadataSources.addAnnotatedClassName(converterClassName);
+        }
+        for (final String mappingFile : entitySources.getMappingFiles()) {
+            metadataSources.addResource(mappingFile);
+        }
+
+        return metadataSources;
+    }
+
+    /**
+     * Helper method for generating the DDL file for one dialect.
+     *
+     * @param dialectClassName  The class name of the configured dialect. The
+     *                          DDL file is named after this dialect.
+     * @param hibernateDialect  The class name of the dialect used by
+     *                          Hibernate, see
+     *                          {@link #resolveDialect(String, ClassLoaderService, Log)}.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     * @param partitions        The partitions of the entities. Empty if the
+     *                          metadata for all entities is built at once.
+     * @param metadataSources   The shared metadata sources, one for each
+     *                          partition or only one without partitions.
+     * @param persistenceXmlProperties The properties from the
+     *                          {@code persistence.xml}.
+     * @param entitySources     The entity sources.
+     * @param mojo              The {@link GenerateDdlMojo}.
+     *
+     * @throws MojoFailureException If the DDL file can't be generated.
+     */
+    private void generateDdl(
+        final String dialectClassName,
+        final String hibernateDialect,
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final List<EntityPartition> partitions,
+        final List<MetadataSources> metadataSources,
+        final Map<String, String> persistenceXmlProperties,
+        final EntitySources entitySources,
+        final GenerateDdlMojo mojo
+    ) throws MojoFailureException {
+        final StandardServiceRegistryBuilder registryBuilder
+            = new StandardServiceRegistryBuilder(bootstrapRegistry);
+        if (mojo.isOfflineBoot()) {
+            applyOfflineBootProfile(registryBuilder);
+        }
+        final ServiceTimings serviceTimings = new ServiceTimings();
+        serviceTimings.applyTo(registryBuilder);
+        registryBuilder.applySettings(
+            new HashMap<String, Object>(persistenceXmlProperties)
+        );
+
+        if (mojo.isCreateDropStatements()) {
+            registryBuilder.applySetting(
+                "hibernate.hbm2ddl.auto", "create-drop"
+            );
+        } else {
+            registryBuilder.applySetting("hibernate.hbm2ddl.auto", "create");
+        }
+
+        registryBuilder.applySetting("hibernate.dialect", hibernateDialect);
+
+        if (!mojo.getPersistenceProperties().isEmpty()) {
+            mojo.getLog().info("Applying persistence properties set in POM...");
+            final Map<String, Object> properties = mojo
+                .getPersistenceProperties()
+                .entrySet()
+                .stream()
+                .filter(
+                    property -> !property.getKey().equals(
+                        "hibernate.hbm2ddl.auto"
+                    )
+                )
+                .filter(
+                    property -> !property.getKey().equals(
+                        "hibernate.dialect"
+                    )
+                )
+                .collect(
+                    Collectors.toMap(
+                        property -> property.getKey(),
+                        property -> property.getValue()
+                    )
+                );
+
+            for (final Map.Entry<String, Object> property : properties
+                .entrySet()) {
+                mojo.getLog().info(
+                    String.format(
+                        "Setting peristence property %s = %s",
+                        property.getKey(),
+                        property.getValue()
+                    )
+                );
+            }
+
+            registryBuilder.applySettings(properties);
+        }
+
+        final PartitionSchemaFilter schemaFilter;
+        if (partitions.isEmpty()) {
+            schemaFilter = null;
+        } else {
+            schemaFilter = new PartitionSchemaFilter();
+            registryBuilder.applySetting(
+                "hibernate.hbm2ddl.schema_filter_provider", schemaFilter
+            );
+        }
+
+        // The registries reference the class loader of the project. They are
+        // destroyed after the DDL has been generated, otherwise they would
+        // keep the classes of the project in memory. The DDL is collected in
+        // memory and passed directly to the mojo, which compares it with the
+        // existing output file.
+        final String script;
+        if (partitions.isEmpty()) {
+            final StandardServiceRegistry standardRegistry = buildRegistry(
+                registryBuilder, bootstrapRegistry
+            );
+            try {
+                final Metadata metadata = metadataSources
+                    .get(0)
+                    .getMetadataBuilder(standardRegistry)
+                    .build();
+                final InMemoryScriptTarget target = new InMemoryScriptTarget();
+                if (mojo.isCreateDropStatements()) {
+                    drop(metadata, standardRegistry, target);
+                }
+                create(metadata, standardRegistry, target);
+                script = target.getScript();
+            } finally {
+                destroyRegistry(standardRegistry, bootstrapRegistry);
+            }
+        } else {
+            script = exportPartitions(
+                dialectClassName,
+                partitions,
+                metadataSources,
+                schemaFilter,
+                registryBuilder,
+                bootstrapRegistry,
+                mojo
+            );
+        }
+
+        mojo.writeOutputFile(dialectClassName, script, entitySources);
+
+        if (mojo.isLogHibernateServices()
+                || mojo.getLog().isDebugEnabled()) {
+            serviceTimings.report(
+                mojo.getLog(),
+                mojo.isLogHibernateServices(),
+                dialectClassName
+            );
+        }
+    }
+
+    /**
+     * Helper method for building a registry for a dialect. Building and
+     * destroying a registry registers and deregisters it as child of the
+     * shared bootstrap registry, which is not guaranteed to be thread safe.
+     *
+     * @param registryBuilder   The builder of the registry for the dialect.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     *
+     * @return The registry.
+     */
+    private StandardServiceRegistry buildRegistry(
+        final StandardServiceRegistryBuilder registryBuilder,
+        final BootstrapServiceRegistry bootstrapRegistry
+    ) {
+        synchronized (bootstrapRegistry) {
+            return registryBuilder.build();
+        }
+    }
+
+    private void destroyRegistry(
+        final StandardServiceRegistry standardRegistry,
+        final BootstrapServiceRegistry bootstrapRegistry
+    ) {
+        synchronized (bootstrapRegistry) {
+            StandardServiceRegistryBuilder.destroy(standardRegistry);
+        }
+    }
+
+    /**
+     * Helper method for exporting the metadata of the partitions one after
+     * another. Only the metadata of one partition is in memory at a time.
+     * Each partition gets its own registry: Integrators like the one of
+     * Envers may only be initialized once per registry, therefore the
+     * registry can't be shared by the metadata of several partitions.
+     *
+     * @param dialectClassName The class name of the dialect.
+     * @param partitions       The partitions.
+     * @param metadataSources  The metadata sources of the partitions.
+     * @param schemaFilter     The schema filter of the registries.
+     * @param registryBuilder  The builder of the registries for the
+     *                         dialect.
+     * @param bootstrapRegistry The shared bootstrap registry.
+     * @param mojo             The {@link GenerateDdlMojo}.
+     *
+     * @return The combined script of all partitions.
+     */
+    private String exportPartitions(
+        final String dialectClassName,
+        final List<EntityPartition> partitions,
+        final List<MetadataSources> metadataSources,
+        final PartitionSchemaFilter schemaFilter,
+        final StandardServiceRegistryBuilder registryBuilder,
+        final BootstrapServiceRegistry bootstrapRegistry,
+        final GenerateDdlMojo mojo
+    ) {
+        final PartitionedScript script = new PartitionedScript();
+        for (int i = 0; i < partitions.size(); i++) {
+            final EntityPartition partition = partitions.get(i);
+            final long start = System.nanoTime();
+            final StandardServiceRegistry standardRegistry = buildRegistry(
+                registryBuilder, bootstrapRegistry
+            );
+            try {
+                final Metadata metadata = metadataSources
+                    .get(i)
+                    .getMetadataBuilder(standardRegistry)
+                    .build();
+                schemaFilter.exclude(metadata, partition);
+                if (mojo.isCreateDropStatements()) {
+                    final InMemoryScriptTarget dropTarget
+                        = new InMemoryScriptTarget();
+                    drop(metadata, standardRegistry, dropTarget);
+                    script.addDropCommands(dropTarget.getCommands());
+                }
+                final InMemoryScriptTarget createTarget
+                    = new InMemoryScriptTarget();
+                create(metadata, standardRegistry, createTarget);
+                script.addCreateCommands(createTarget.getCommands());
+            } finally {
+                destroyRegistry(standardRegistry, bootstrapRegistry);
+            }
+            mojo.getLog().debug(
+                String.format(
+                    "Exported partition %s for %s in %d ms.",
+                    partition,
+                    dialectClassName,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                )
+            );
+        }
+        return script.getScript();
+    }
+
+    private void drop(
+        final Metadata metadata,
+        final StandardServiceRegistry standardRegistry,
+        final InMemoryScriptTarget target
+    ) {
+        final Map<String, Object> configuration = getConfiguration(
+            standardRegistry
+        );
+        standardRegistry
+            .getService(SchemaManagementTool.class)
+            .getSchemaDropper(configuration)
+            .doDrop(
+                metadata,
+                getExecutionOptions(configuration),
+                ContributableMatcher.ALL,
+                METADATA_SOURCE,
+                target
+            );
+    }
+
+    private void create(
+        final Metadata metadata,
+        final StandardServiceRegistry standardRegistry,
+        final InMemoryScriptTarget target
+    ) {
+        final Map<String, Object> configuration = getConfiguration(
+            standardRegistry
+        );
+        standardRegistry
+            .getService(SchemaManagementTool.class)
+            .getSchemaCreator(configuration)
+            .doCreation(
+                metadata,
+                getExecutionOptions(configuration),
+                ContributableMatcher.ALL,
+                METADATA_SOURCE,
+                target
+            );
+    }
+
+    /**
+     * Helper method for creating the configuration of the schema management
+     * tool: The settings of the registry with the same formatting options the
+     * {@code SchemaExport} of Hibernate 5 was configured with by the plugin.
+     *
+     * @param standardRegistry The registry for the dialect.
+     *
+     * @return The configuration.
+     */
+    private Map<String, Object> getConfiguration(
+        final StandardServiceRegistry standardRegistry
+    ) {
+        final Map<String, Object> configuration = new HashMap<>(
+            standardRegistry
+                .getService(ConfigurationService.class)
+                .getSettings()
+        );
+        configuration.put("hibernate.hbm2ddl.delimiter", ";");
+        configuration.put("hibernate.format_sql", true);
+        configuration.put("hibernate.hbm2ddl.create_namespaces", true);
+        return configuration;
+    }
+
+    private ExecutionOptions getExecutionOptions(
+        final Map<String, Object> configuration
+    ) {
+        return SchemaManagementToolCoordinator.buildExecutionOptions(
+            configuration, ExceptionHandlerHaltImpl.INSTANCE
+        );
+    }
+
+}
@@ -0,0 +1,18 @@
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, ["hsql", "mysql5", "postgresql9"])
+
+// The DDL files must have been generated by the daemon, which writes its
+// output to a log file in the daemon directory.
+def daemonDirectory = new File(basedir, "target/daemon")
+def daemonLogs = daemonDirectory.listFiles().findAll { it.name.endsWith(".log") }
+if (daemonLogs.isEmpty()) {
+    throw new FileNotFoundException(
+        String.format(
+            "No daemon log file found in '%s'.",
+            daemonDirectory.getAbsolutePath()
+        )
+    )
+}
+if (!daemonLogs.any { it.text.contains("Generator daemon started") }) {
+    throw new RuntimeException("The generator daemon was not started.")
+}
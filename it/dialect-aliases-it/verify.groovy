@@ -0,0 +1,41 @@
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, ["hsql", "db2390"])
+
+// DB2390 and DB2_OS390 are aliases for the same dialect class, the custom
+// dialect repeats the class of hsql. Only one DDL file is generated for
+// each class.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains(
+    "Dialects DB2390, DB2_OS390 resolve to org.hibernate.dialect.DB2390Dialect"
+)) {
+    throw new RuntimeException("The DB2390 aliases were not grouped.")
+}
+if (!buildLog.contains(
+    "Dialects HSQL, org.hibernate.dialect.HSQLDialect (custom) resolve to "
+        + "org.hibernate.dialect.HSQLDialect"
+)) {
+    throw new RuntimeException("The custom HSQL dialect was not grouped.")
+}
+if (!buildLog.contains("Generated the DDL files for 2 dialects in ")) {
+    throw new RuntimeException(
+        "The DDL was not generated exactly once for each dialect class."
+    )
+}
+def ddlFiles = new File(basedir, "target/generated-resources/sql/ddl/auto")
+    .listFiles()
+if (ddlFiles.length != 2) {
+    throw new RuntimeException(
+        String.format(
+            "Expected 2 DDL files but found %s.", Arrays.toString(ddlFiles)
+        )
+    )
+}
+
+// Hibernate 6 has no DB2390Dialect anymore, the DB2Dialect is used instead
+// but the DDL file is still named after the configured dialect.
+if (hibernateMajorVersion == "6" && !buildLog.contains(
+    "Dialect org.hibernate.dialect.DB2390Dialect does not exist in "
+        + "Hibernate 6, using org.hibernate.dialect.DB2Dialect."
+)) {
+    throw new RuntimeException("The DB2390 dialect was not replaced.")
+}
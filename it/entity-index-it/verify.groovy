@@ -0,0 +1,65 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.charset.StandardCharsets
+
+def index = new File(
+    basedir,
+    "target/classes/META-INF/hibernate5-ddl-maven-plugin/entity.index"
+)
+if (!index.exists()) {
+    throw new FileNotFoundException(
+        String.format(
+            "Entity index '%s' does not exist.", index.getAbsolutePath()
+        )
+    )
+}
+
+def indexContent = new String(
+    Files.readAllBytes(Paths.get(index.getAbsolutePath())),
+    StandardCharsets.UTF_8
+)
+if (!indexContent.contains(
+    "javax.persistence.Entity:"
+        + "de.jpdigital.maven.plugins.hibernate5ddl.tests.entityindex.Customer"
+)) {
+    throw new RuntimeException("Entity index does not contain the entity.")
+}
+
+def buildLog = new String(
+    Files.readAllBytes(Paths.get(new File(basedir, "build.log").getAbsolutePath())),
+    StandardCharsets.UTF_8
+)
+if (!buildLog.contains("Using entity index of")) {
+    throw new RuntimeException("The entity index was not used.")
+}
+
+def dialects = ["hsql", "mysql5", "postgresql9"]
+
+for (def dialect : dialects) {
+    def file = new File(
+        basedir, 
+        String.format(
+            "target/generated-resources/sql/ddl/auto/%s.sql", 
+            dialect.toLowerCase()
+        )
+    );
+
+    if (!file.exists()) {
+        throw new FileNotFoundException(
+            String.format(
+                "DDL file '%s' for dialect '%s' does not exist.",
+                file.getAbsolutePath(),
+                dialect.toLowerCase()
+            )
+        )
+    }
+
+    def ddlScriptBytes = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
+    def ddlScript = new String(ddlScriptBytes, StandardCharsets.UTF_8);
+
+    if (!ddlScript.toLowerCase().contains("create table customers")) {
+        throw new RuntimeException(
+            "DDL script does contain a create statement for table 'customers'."
+        )
+    }
+}
@@ -0,0 +1,37 @@
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, ["hsql", "mysql5", "postgresql9"])
+
+// The dialects must have been distributed over two forked JVMs.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains("Generating DDL files for 3 dialects in 2 forked JVMs.")) {
+    throw new RuntimeException("The DDL files were not generated in forked JVMs.")
+}
+
+// With Java 13 or newer the first build creates the class data sharing
+// archive in the configured directory, the forked JVMs of the second build
+// use it.
+if (Runtime.version().feature() >= 13) {
+    if (!buildLog.contains("Created class data sharing archive")) {
+        throw new RuntimeException(
+            "The first build did not create a class data sharing archive."
+        )
+    }
+    def archives = new File(basedir, "target/cds").listFiles(
+        { dir, name -> name.endsWith(".jsa") } as FilenameFilter
+    )
+    if (archives == null || archives.length != 1) {
+        throw new RuntimeException(
+            String.format(
+                "Expected one class data sharing archive in target/cds but "
+                    + "found %s.",
+                archives == null ? "none" : Arrays.toString(archives)
+            )
+        )
+    }
+    if (!buildLog.contains("used the class data sharing archive")) {
+        throw new RuntimeException(
+            "The forked JVMs of the second build did not use the class data "
+                + "sharing archive."
+        )
+    }
+}
@@ -0,0 +1,34 @@
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, ["hsql", "mysql5", "postgresql9"])
+
+// The Jandex index is created by default and stored in the target
+// directory.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains("Created Jandex index with")) {
+    throw new RuntimeException("No Jandex index was created.")
+}
+def indexDirectory = new File(
+    basedir, "target/hibernate5-ddl-maven-plugin/jandex"
+)
+def indexFiles = indexDirectory.listFiles(
+    { dir, name -> name.endsWith(".idx") } as FilenameFilter
+)
+if (indexFiles == null || indexFiles.length == 0) {
+    throw new RuntimeException(
+        String.format(
+            "No Jandex index file found in '%s'.",
+            indexDirectory.getAbsolutePath()
+        )
+    )
+}
+
+// The classes did not change, the second build must read the stored index
+// instead of creating a new one.
+if (!buildLog.contains("Read Jandex index ")) {
+    throw new RuntimeException(
+        "The second build did not read the stored Jandex index."
+    )
+}
+if (buildLog.contains("Failed to read Jandex index")) {
+    throw new RuntimeException("The stored Jandex index could not be read.")
+}
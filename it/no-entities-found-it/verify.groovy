@@ -0,0 +1,13 @@
+// The configured package contains no entities. With the default scan scope
+// 'project' the plugin must warn that no entities were found and name the
+// parameters which control the scan.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains(
+    "[WARNING] No entities found. With the scan scope 'project' only the "
+        + "output directories of the project and the dependencies listed in "
+        + "scanArtifacts (none) are scanned."
+)) {
+    throw new RuntimeException(
+        "The plugin did not warn that no entities were found."
+    )
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl.tests.offlineboot;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * An integrator registered using the {@link java.util.ServiceLoader}. It only
+ * integrates with the session factory, the offline boot profile must skip
+ * it.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+public class SessionFactoryOnlyIntegrator implements Integrator {
+
+    @Override
+    public void integrate(
+        final Metadata metadata,
+        final SessionFactoryImplementor sessionFactory,
+        final SessionFactoryServiceRegistry serviceRegistry
+    ) {
+        throw new IllegalStateException(
+            "The offline boot profile must skip this integrator."
+        );
+    }
+
+    @Override
+    public void disintegrate(
+        final SessionFactoryImplementor sessionFactory,
+        final SessionFactoryServiceRegistry serviceRegistry
+    ) {
+        // Nothing to do
+    }
+
+}
@@ -0,0 +1,24 @@
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, ["hsql", "mysql5", "postgresql9"])
+
+// The offline boot profile is active by default, the started Hibernate
+// services are reported for each dialect.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains("using the offline boot profile")) {
+    throw new RuntimeException("The offline boot profile was not used.")
+}
+if (!buildLog.contains("Hibernate services started for org.hibernate.dialect.")) {
+    throw new RuntimeException("The started Hibernate services were not logged.")
+}
+
+// The integrator of the project is registered using the ServiceLoader and
+// must have been skipped by the offline boot profile.
+if (!buildLog.contains(
+    "Offline boot profile: Skipping integrator "
+        + "de.jpdigital.maven.plugins.hibernate5ddl.tests.offlineboot."
+        + "SessionFactoryOnlyIntegrator."
+)) {
+    throw new RuntimeException(
+        "The offline boot profile did not skip the integrator of the project."
+    )
+}
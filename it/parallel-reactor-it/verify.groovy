@@ -0,0 +1,79 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.charset.StandardCharsets
+
+def modules = ["01", "02", "03", "04", "05", "06", "07", "08"]
+def dialects = ["hsql", "mysql5", "postgresql9"]
+
+for (def module : modules) {
+    for (def dialect : dialects) {
+        def file = new File(
+            basedir,
+            String.format(
+                "module-%s/target/generated-resources/sql/ddl/auto/%s.sql",
+                module,
+                dialect.toLowerCase()
+            )
+        );
+
+        if (!file.exists()) {
+            throw new FileNotFoundException(
+                String.format(
+                    "DDL file '%s' for module %s and dialect '%s' does not "
+                        + "exist.",
+                    file.getAbsolutePath(),
+                    module,
+                    dialect.toLowerCase()
+                )
+            )
+        }
+
+        def ddlScriptBytes = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
+        def ddlScript = new String(ddlScriptBytes, StandardCharsets.UTF_8).toLowerCase();
+
+        if (!ddlScript.contains("create table items_module_" + module)) {
+            throw new RuntimeException(
+                String.format(
+                    "DDL script '%s' does not contain a create statement for "
+                        + "the table of module %s.",
+                    file.getAbsolutePath(),
+                    module
+                )
+            )
+        }
+        for (def otherModule : modules) {
+            if (otherModule != module
+                    && ddlScript.contains("items_module_" + otherModule)) {
+                throw new RuntimeException(
+                    String.format(
+                        "DDL script '%s' of module %s contains the table of "
+                            + "module %s.",
+                        file.getAbsolutePath(),
+                        module,
+                        otherModule
+                    )
+                )
+            }
+        }
+    }
+}
+
+// The modules must have been built in parallel, otherwise the test does not
+// show anything.
+def reactorLog = new File(basedir, "build.log").text
+if (!(reactorLog =~ /MultiThreadedBuilder implementation with a .*thread count of 4/)) {
+    throw new RuntimeException("The modules were not built in parallel.")
+}
+
+// The plugin is not loaded as build extension. The last of the eight
+// executions closes the class loaders of the reactor cache, exactly once.
+def closedMatches = (reactorLog =~ /Last execution of the plugin in the reactor, closed \d+ class loaders of the reactor cache\./)
+if (closedMatches.count != 1) {
+    throw new RuntimeException(
+        String.format(
+            "Expected the class loaders of the reactor cache to be closed "
+                + "once by the last execution, but they were closed %d times.",
+            closedMatches.count
+        )
+    )
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl.tests.partitions.catalog;
+
+import de.jpdigital.maven.plugins.hibernate5ddl.tests.partitions.orders.PurchaseOrder;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+/**
+ * Uses the same sequence as the parties and is the inverse side of the join
+ * table owned by {@link PurchaseOrder}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "products")
+public class Product implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(
+        strategy = GenerationType.SEQUENCE, generator = "product_ids"
+    )
+    @SequenceGenerator(name = "product_ids", sequenceName = "shared_ids")
+    private long productId;
+
+    private String title;
+
+    @ManyToMany(mappedBy = "products")
+    private Set<PurchaseOrder> orders = new HashSet<>();
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(final long productId) {
+        this.productId = productId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(final String title) {
+        this.title = title;
+    }
+
+    public Set<PurchaseOrder> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(final Set<PurchaseOrder> orders) {
+        this.orders = orders;
+    }
+
+}
@@ -0,0 +1,86 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.charset.StandardCharsets
+
+// The entities are split into one partition per package. The partitions
+// reference each other (PurchaseOrder references Customer and Product), share
+// a join table (order_products, mapped by PurchaseOrder and Product), share a
+// table (the single table hierarchy of Party, Customer and Organisation) and
+// share a sequence (shared_ids). The combined script of the partitions must
+// contain the same statements as the script created from the metadata of all
+// entities at once, each of them exactly once.
+
+def dialects = ["hsql", "mysql5", "postgresql9"]
+
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains("Split 5 entities into 4 partitions by package")) {
+    throw new RuntimeException("The entities were not split by package.")
+}
+
+def readStatements = { String variant, String dialect ->
+    def file = new File(
+        basedir,
+        String.format("target/ddl/%s/%s.sql", variant, dialect)
+    )
+    if (!file.exists()) {
+        throw new FileNotFoundException(
+            String.format(
+                "DDL file '%s' for dialect '%s' does not exist.",
+                file.getAbsolutePath(),
+                dialect
+            )
+        )
+    }
+    def script = new String(
+        Files.readAllBytes(Paths.get(file.getAbsolutePath())),
+        StandardCharsets.UTF_8
+    )
+    return script
+        .split(";")
+        .collect { it.replaceAll("\\s+", " ").trim() }
+        .findAll { !it.isEmpty() }
+}
+
+for (def dialect : dialects) {
+    def unpartitioned = readStatements("unpartitioned", dialect)
+    def partitioned = readStatements("partitioned", dialect)
+
+    def duplicates = partitioned.findAll { statement ->
+        partitioned.count(statement) > 1
+    }.unique()
+    if (!duplicates.isEmpty()) {
+        throw new RuntimeException(
+            String.format(
+                "The partitioned DDL for %s contains duplicate statements: %s",
+                dialect,
+                duplicates
+            )
+        )
+    }
+
+    def missing = unpartitioned.findAll { !partitioned.contains(it) }
+    def additional = partitioned.findAll { !unpartitioned.contains(it) }
+    if (!missing.isEmpty() || !additional.isEmpty()) {
+        throw new RuntimeException(
+            String.format(
+                "The partitioned DDL for %s differs from the unpartitioned "
+                    + "DDL.%nMissing: %s%nAdditional: %s",
+                dialect,
+                missing,
+                additional
+            )
+        )
+    }
+
+    for (def table : ["parties", "products", "purchase_orders", "order_products"]) {
+        if (!partitioned.any { it.toLowerCase().startsWith("create table " + table + " ") }) {
+            throw new RuntimeException(
+                String.format(
+                    "The partitioned DDL for %s does not create the table %s.",
+                    dialect,
+                    table
+                )
+            )
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2024 Jens Pelzetter
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.jpdigital.maven.plugins.hibernate5ddl.tests.ddlit.entities1;
+
+import de.jpdigital.maven.plugins.hibernate5ddl.tests.ddlit.entities2.Company;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+/**
+ * Links a {@link Person} to the {@link Company} employing the person. The
+ * entity references entities in both packages, therefore the partitions
+ * created by package share the metadata of {@link Company}.
+ *
+ * @author <a href="mailto:jens.pelzetter@googlemail.com">Jens Pelzetter</a>
+ */
+@Entity
+@Table(name = "employments")
+public class Employment implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long employmentId;
+
+    @ManyToOne
+    private Person employee;
+
+    @ManyToOne
+    private Company employer;
+
+    public long getEmploymentId() {
+        return employmentId;
+    }
+
+    public void setEmploymentId(final long employmentId) {
+        this.employmentId = employmentId;
+    }
+
+    public Person getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(final Person employee) {
+        this.employee = employee;
+    }
+
+    public Company getEmployer() {
+        return employer;
+    }
+
+    public void setEmployer(final Company employer) {
+        this.employer = employer;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 41 * hash + Objects.hashCode(employee);
+        hash = 41 * hash + Objects.hashCode(employer);
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final Employment other = (Employment) obj;
+        if (!Objects.equals(this.employee, other.getEmployee())) {
+            return false;
+        }
+        return Objects.equals(this.employer, other.getEmployer());
+    }
+
+}
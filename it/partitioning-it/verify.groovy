@@ -0,0 +1,50 @@
+def dialects = ["hsql", "mysql5", "postgresql9"]
+
+def verifyDdl = evaluate(new File(fixturesDirectory, "verify-ddl.groovy"))
+verifyDdl(basedir, dialects)
+
+// The entities are split by package. Employment references Company, which
+// is part of the metadata of both partitions, but its table is only created
+// once. The foreign keys are added after all tables have been created.
+def buildLog = new File(basedir, "build.log").text
+if (!buildLog.contains("into 2 partitions by package")) {
+    throw new RuntimeException("The entities were not split by package.")
+}
+for (def dialect : dialects) {
+    def ddlScript = new File(
+        basedir,
+        String.format("target/generated-resources/sql/ddl/auto/%s.sql", dialect)
+    ).text.toLowerCase()
+    // Hibernate 6 creates a table companies_seq for the sequence of the
+    // companies, therefore the opening parenthesis is part of the pattern.
+    if ((ddlScript =~ /create table companies\s*\(/).count > 1) {
+        throw new RuntimeException(
+            String.format(
+                "Table 'companies' is created twice in the DDL for %s.",
+                dialect
+            )
+        )
+    }
+    if (!ddlScript.contains("create table employments")) {
+        throw new RuntimeException(
+            String.format(
+                "Table 'employments' is missing in the DDL for %s.", dialect
+            )
+        )
+    }
+    def foreignKey = ddlScript.indexOf("foreign key")
+    if (foreignKey < 0) {
+        throw new RuntimeException(
+            String.format("No foreign key in the DDL for %s.", dialect)
+        )
+    }
+    if (foreignKey < ddlScript.lastIndexOf("create table")) {
+        throw new RuntimeException(
+            String.format(
+                "The foreign key is not created after the tables in the DDL "
+                    + "for %s.",
+                dialect
+            )
+        )
+    }
+}
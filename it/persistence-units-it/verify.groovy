@@ -0,0 +1,69 @@
+import java.nio.file.Files
+import java.nio.file.Paths
+import java.nio.charset.StandardCharsets
+
+// The AuditEntry entity is not listed in any persistence unit and must not
+// appear in the DDL files.
+def expectedTables = [
+    "orders": "orders",
+    "billing": "invoices"
+]
+
+def dialects = ["hsql", "mysql5", "postgresql9"]
+
+for (def unit : expectedTables.keySet()) {
+    for (def dialect : dialects) {
+        def file = new File(
+            basedir,
+            String.format(
+                "target/generated-resources/sql/ddl/auto/%s/%s.sql",
+                unit,
+                dialect.toLowerCase()
+            )
+        );
+
+        if (!file.exists()) {
+            throw new FileNotFoundException(
+                String.format(
+                    "DDL file '%s' for persistence unit '%s' and dialect '%s' "
+                        + "does not exist.",
+                    file.getAbsolutePath(),
+                    unit,
+                    dialect.toLowerCase()
+                )
+            )
+        }
+
+        def ddlScriptBytes = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
+        def ddlScript = new String(ddlScriptBytes, StandardCharsets.UTF_8).toLowerCase();
+
+        if (!ddlScript.contains("create table " + expectedTables[unit])) {
+            throw new RuntimeException(
+                String.format(
+                    "DDL script for persistence unit '%s' does not contain a "
+                        + "create statement for table '%s'.",
+                    unit,
+                    expectedTables[unit]
+                )
+            )
+        }
+        for (def otherTable : expectedTables.values()) {
+            if (otherTable != expectedTables[unit]
+                    && ddlScript.contains("create table " + otherTable)) {
+                throw new RuntimeException(
+                    String.format(
+                        "DDL script for persistence unit '%s' contains the "
+                            + "table '%s' of another persistence unit.",
+                        unit,
+                        otherTable
+                    )
+                )
+            }
+        }
+        if (ddlScript.contains("create table audit_entries")) {
+            throw new RuntimeException(
+                "DDL script contains the table of an unlisted entity."
+            )
+        }
+    }
+}